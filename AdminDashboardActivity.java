@@ -1,45 +1,52 @@
 package com.example.hydro_guard;
 
 import android.content.Intent;
-import android.graphics.Color;
-import android.graphics.Typeface;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
-import android.util.TypedValue;
-import android.view.Gravity;
 import android.view.View;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ImageButton;
-import android.widget.LinearLayout;
 import android.widget.Spinner;
-import android.widget.TableLayout;
-import android.widget.TableRow;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.appbar.MaterialToolbar;
-import com.google.android.material.button.MaterialButton;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 public class AdminDashboardActivity extends AppCompatActivity {
 
@@ -47,19 +54,24 @@ public class AdminDashboardActivity extends AppCompatActivity {
 
     private static final String TEMPAT_NODE = "tempat";
     private static final String USERS_NODE  = "users";
-    private static final String DEFAULT_DEVICE_ID = "HG-01";
+    private static final String DEFAULT_DEVICE_ID = SnapshotDecoder.DEFAULT_DEVICE_ID;
 
     // UI (Kelola Operator)
     private TextView tvAdminEmail;
     private EditText etSearchOperator;
     private Spinner spinnerRole, spinnerStatus;
-    private TableLayout tableOperators;
+    private RecyclerView rvOperators;
+    private TextView tvOperatorEmpty;
+    private OperatorAdapter operatorAdapter;
     private Button btnTambahOperator;
 
     // UI (Kelola Tempat)
     private Spinner spinnerKecamatan, spinnerKelurahan;
-    private LinearLayout listTempatContainer;
+    private RecyclerView rvTempat;
+    private TempatAdapter tempatAdapter;
     private TextView tvTempatEmpty;
+    private TextView tvFleetSummary;
+    private Button btnBulkOff, btnBulkAuto;
 
     // Adapters
     private android.widget.ArrayAdapter<String> roleAdapter;
@@ -68,8 +80,10 @@ public class AdminDashboardActivity extends AppCompatActivity {
     private android.widget.ArrayAdapter<String> kelurahanAdapter;
 
     // Data
-    private final List<UserItem> allUsers = new ArrayList<>();
-    private final List<TempatItem> allTempat = new ArrayList<>();
+    private final UserStore userStore = new UserStore();
+    // Tempat yang sudah dimuat, terindeks kecamatan → kelurahan → tempatId
+    private final LocationIndex locationIndex = new LocationIndex();
+    private boolean defaultTempatShown = false;
     private final List<String> kecamatanOptions = new ArrayList<>();
     private final List<String> kelurahanOptions = new ArrayList<>();
 
@@ -77,18 +91,79 @@ public class AdminDashboardActivity extends AppCompatActivity {
     private FirebaseDatabase db;
     private DatabaseReference usersRef;
     private DatabaseReference tempatRef;
-    private ValueEventListener usersRealtimeListener;
-    private ValueEventListener tempatRealtimeListener;
-
-    // Simpan listener realtime per card tempat
-    private static class LiveListener {
-        final DatabaseReference ref;
-        final ValueEventListener listener;
-        LiveListener(DatabaseReference ref, ValueEventListener listener) {
-            this.ref = ref; this.listener = listener;
+    private ChildEventListener usersRealtimeListener;
+    private UsersInitialLoad usersInitialLoad;
+
+    // Delta user dikumpulkan dulu (initial load = ratusan onChildAdded beruntun)
+    private static final long USER_DELTA_DEBOUNCE_MS = 120L;
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final Set<String> pendingUserUids = new LinkedHashSet<>();
+    private boolean userFlushQueued = false;
+    private final Runnable flushUserDeltas = this::flushUserDeltas;
+
+    // Cari operator: debounce ketikan, query index di thread sendiri, hanya hasil terakhir yang dirender
+    private static final long OPERATOR_SEARCH_DEBOUNCE_MS = 150L;
+    private final ExecutorService operatorSearchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hg-operator-search");
+        t.setDaemon(true);
+        return t;
+    });
+    private int operatorSearchSeq = 0;
+    private final Runnable runOperatorSearch = this::applyFiltersAndRenderOperators;
+
+    // Decode snapshot users / tempat di luar main thread. Satu thread → urutan event per uid terjaga
+    private final ExecutorService decodeExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hg-decode");
+        t.setDaemon(true);
+        return t;
+    });
+    private final SnapshotDecoder.Stats userDecodeStats = new SnapshotDecoder.Stats("users");
+    private final SnapshotDecoder.Stats tempatDecodeStats = new SnapshotDecoder.Stats("tempat");
+    private int userGeneration = 0; // naik tiap attach / detach listener users
+
+    // Cache lokal (SQLite) untuk cold start: dibaca sekali di decodeExecutor, perubahan
+    // dari server ditulis berkelompok paling sering tiap CACHE_FLUSH_MS di thread sendiri
+    private static final long CACHE_FLUSH_MS = 3_000L;
+    private DashboardCache dashboardCache;
+    private final ExecutorService cacheExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "hg-cache");
+        t.setDaemon(true);
+        return t;
+    });
+    private DashboardCache.Batch pendingCacheWrites = new DashboardCache.Batch();
+    private boolean cacheFlushQueued = false;
+    private final Runnable flushCache = this::flushCacheWrites;
+    // Tempat dari cache yang belum dikonfirmasi halaman /tempat mana pun
+    private final TreeSet<String> cachedTempatIds = new TreeSet<>(FirebaseKeyOrder.INSTANCE);
+
+    // Status live card tempat: listener dipakai bersama per device (lihat DeviceLiveHub),
+    // dan hanya untuk card yang ter-attach di rvTempat (lihat TempatAdapter).
+    // Update live digabung per frame, paling sering tiap LIVE_CARD_MIN_INTERVAL_MS
+    private static final long LIVE_CARD_MIN_INTERVAL_MS = 200L;
+    private DeviceLiveHub liveHub;
+
+    // /tempat dimuat per halaman (keyset orderByKey); tiap halaman punya listener realtime sendiri
+    private static final int TEMPAT_PAGE_SIZE = 25;
+    private static final int TEMPAT_PREFETCH = 5;
+    private final KeyPager<TempatItem> tempatPager = new KeyPager<>(TEMPAT_PAGE_SIZE);
+    private final List<TempatPage> tempatPages = new ArrayList<>();
+
+    // Ringkasan armada: agregat di-update per event, header dirender paling sering tiap FLEET_RENDER_MS
+    private static final long FLEET_RENDER_MS = 250L;
+    private static final long FLEET_SWEEP_MS = 15_000L;
+    private final FleetSummary fleetSummary = new FleetSummary();
+    private final Map<String, DeviceLiveHub.Subscription> fleetTelemetrySubs = new HashMap<>();
+    private DatabaseReference pumpsRef;
+    private ChildEventListener pumpsListener;
+    private boolean fleetRenderQueued = false;
+    private boolean started = false;
+    private final Runnable renderFleet = this::renderFleetSummary;
+    private final Runnable sweepFleet = new Runnable() {
+        @Override public void run() {
+            if (fleetSummary.sweepStale(System.currentTimeMillis())) queueFleetRender();
+            uiHandler.postDelayed(this, FLEET_SWEEP_MS);
         }
-    }
-    private final List<LiveListener> liveListeners = new ArrayList<>();
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -99,54 +174,79 @@ public class AdminDashboardActivity extends AppCompatActivity {
 
         // ✅ Konsisten RTDB
         db = HelperClass.db();
+        liveHub = new DeviceLiveHub(db);
 
         bindViews();
         setupToolbar();
         setupTopBarActions();
 
+        setupOperatorList();
         setupFiltersKelolaOperator();
         setupTambahOperator();
         setupFiltersKelolaTempat();
+        setupTempatList();
+        setupBulkControl();
+
+        // Keputusan mode otomatis jalan di background untuk semua device, bukan hanya
+        // saat ManualControlActivity terbuka
+        AutoDecisionService.start(this);
+
+        // Cache dibaca di decodeExecutor sebelum listener mana pun dipasang (onStart),
+        // jadi pasti diterapkan sebelum hasil decode data server (antrean FIFO)
+        dashboardCache = new DashboardCache(this);
+        decodeExecutor.execute(() -> {
+            DashboardCache.Snapshot cached = dashboardCache.load();
+            uiHandler.post(() -> applyCachedSnapshot(cached));
+        });
 
         usersRef  = db.getReference(USERS_NODE);
         tempatRef = db.getReference(TEMPAT_NODE);
+        pumpsRef  = db.getReference("kontrol_pompa");
 
-        // ================= USERS LISTENER =================
-        usersRealtimeListener = new ValueEventListener() {
+        // ================= STATUS POMPA (satu listener untuk ringkasan armada) =================
+        pumpsListener = new ChildEventListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                allUsers.clear();
+            public void onChildAdded(@NonNull DataSnapshot child, String previousChildName) {
+                onPumpSnapshot(child);
+            }
 
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    String uid = child.getKey();
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot child, String previousChildName) {
+                onPumpSnapshot(child);
+            }
 
-                    String name = child.child("name").getValue(String.class);
-                    String email = child.child("email").getValue(String.class);
-                    String role = child.child("role").getValue(String.class);
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot child) {
+                if (child.getKey() != null && fleetSummary.onPump(child.getKey(), false, false)) queueFleetRender();
+            }
 
-                    String wa = child.child("no_wa").getValue(String.class);
-                    if (TextUtils.isEmpty(wa)) wa = child.child("hp").getValue(String.class);
-                    if (TextUtils.isEmpty(wa)) wa = child.child("phone").getValue(String.class);
-                    if (TextUtils.isEmpty(wa)) wa = child.child("wa").getValue(String.class);
+            @Override public void onChildMoved(@NonNull DataSnapshot child, String previousChildName) {}
 
-                    Boolean approved = child.child("approved").getValue(Boolean.class);
-                    if (approved == null) {
-                        String a = child.child("approved").getValue(String.class);
-                        approved = "true".equalsIgnoreCase(a);
-                    }
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "kontrol_pompa listener cancelled: " + error.getMessage());
+            }
+        };
 
-                    if (TextUtils.isEmpty(role)) continue;
-                    if (TextUtils.isEmpty(name)) name = "(tanpa nama)";
-                    if (TextUtils.isEmpty(wa)) wa = "-";
-                    if (email == null) email = "";
+        // ================= USERS LISTENER (per child) =================
+        usersRealtimeListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot child, String previousChildName) {
+                onUserSnapshot(child);
+            }
 
-                    allUsers.add(new UserItem(uid, name, email, role, wa, approved != null && approved));
-                }
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot child, String previousChildName) {
+                onUserSnapshot(child);
+            }
 
-                refreshAdminEmail();
-                applyFiltersAndRenderOperators();
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot child) {
+                onUserRemoved(child.getKey());
             }
 
+            @Override public void onChildMoved(@NonNull DataSnapshot child, String previousChildName) {}
+
             @Override
             public void onCancelled(@NonNull DatabaseError error) {
                 Toast.makeText(AdminDashboardActivity.this,
@@ -154,93 +254,150 @@ public class AdminDashboardActivity extends AppCompatActivity {
                         Toast.LENGTH_SHORT).show();
             }
         };
+    }
 
-        // ================= TEMPAT LISTENER =================
-        tempatRealtimeListener = new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                allTempat.clear();
-
-                for (DataSnapshot child : snapshot.getChildren()) {
-                    String tempatId = child.getKey();
-
-                    String nama = child.child("nama").getValue(String.class);
-                    if (TextUtils.isEmpty(nama)) nama = child.child("name").getValue(String.class);
-
-                    String kecamatan = child.child("kecamatan").getValue(String.class);
-                    String kelurahan = child.child("kelurahan").getValue(String.class);
-
-                    String createdBy = child.child("createdBy").getValue(String.class);
-                    if (TextUtils.isEmpty(createdBy)) createdBy = child.child("created_by").getValue(String.class);
+    // ===================== USERS (delta) =====================
+    /** Decode di decodeExecutor; hanya UserItem jadi yang dikirim ke main thread. */
+    private void onUserSnapshot(DataSnapshot child) {
+        String uid = child.getKey();
+        if (uid == null) return;
+
+        int gen = userGeneration;
+        decodeExecutor.execute(() -> {
+            long t0 = System.nanoTime();
+            UserItem u = SnapshotDecoder.user(uid, child.getValue());
+            userDecodeStats.record(System.nanoTime() - t0);
+            uiHandler.post(() -> applyUser(gen, uid, u));
+        });
+    }
 
-                    String operatorId = child.child("operatorId").getValue(String.class);
-                    if (TextUtils.isEmpty(operatorId)) operatorId = child.child("operator_id").getValue(String.class);
+    /** Lewat decodeExecutor juga, supaya tidak mendahului decode uid yang sama. */
+    private void onUserRemoved(String uid) {
+        if (uid == null) return;
+        int gen = userGeneration;
+        decodeExecutor.execute(() -> uiHandler.post(() -> applyUser(gen, uid, null)));
+    }
 
-                    String operatorName = child.child("operatorName").getValue(String.class);
-                    if (TextUtils.isEmpty(operatorName)) operatorName = child.child("operator_name").getValue(String.class);
+    private void applyUser(int gen, String uid, UserItem u) {
+        if (gen != userGeneration) return; // listener sudah dilepas / dipasang ulang
+        boolean changed = (u == null) ? userStore.remove(uid) : userStore.upsert(u);
+        // mis. hanya lastLoginAt yang berubah → tidak ada yang perlu digambar ulang
+        if (!changed) return;
+        queueUserDelta(uid);
+        pendingCacheWrites.putUser(uid, u);
+        queueCacheFlush();
+    }
 
-                    String deviceId = child.child("deviceId").getValue(String.class);
-                    if (TextUtils.isEmpty(deviceId)) deviceId = child.child("device_id").getValue(String.class);
-                    if (TextUtils.isEmpty(deviceId)) deviceId = looksLikeDeviceId(tempatId) ? tempatId : DEFAULT_DEVICE_ID;
+    /**
+     * Value event /users datang setelah semua onChildAdded awal: user (dari cache atau
+     * sesi sebelumnya) yang tidak ada lagi di server dibuang.
+     */
+    private final class UsersInitialLoad implements ValueEventListener {
+        final int gen;
 
-                    if (TextUtils.isEmpty(nama)) nama = "(Tanpa nama tempat)";
-                    if (TextUtils.isEmpty(kecamatan)) kecamatan = "-";
-                    if (TextUtils.isEmpty(kelurahan)) kelurahan = "-";
+        UsersInitialLoad(int gen) { this.gen = gen; }
 
-                    allTempat.add(new TempatItem(
-                            tempatId, nama, kecamatan, kelurahan,
-                            createdBy, operatorId, operatorName, deviceId
-                    ));
-                }
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            if (usersInitialLoad == this) usersInitialLoad = null;
+            // Lewat decodeExecutor: dijalankan setelah decode child yang sudah antre
+            try {
+                decodeExecutor.execute(() -> {
+                    Set<String> uids = new HashSet<>();
+                    for (DataSnapshot child : snapshot.getChildren()) uids.add(child.getKey());
+                    uiHandler.post(() -> reconcileUsers(gen, uids));
+                });
+            } catch (RejectedExecutionException ignored) {
+                // activity sudah destroy
+            }
+        }
 
-                if (allTempat.isEmpty()) {
-                    allTempat.add(new TempatItem(
-                            DEFAULT_DEVICE_ID,
-                            "HG-01 (Default)",
-                            "-", "-",
-                            "", "", "",
-                            DEFAULT_DEVICE_ID
-                    ));
-                }
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            if (usersInitialLoad == this) usersInitialLoad = null;
+            Log.w(TAG, "users initial load cancelled: " + error.getMessage());
+        }
+    }
 
-                rebuildKecamatanKelurahanOptions();
-                applyFiltersAndRenderTempat();
-            }
+    private void reconcileUsers(int gen, Set<String> serverUids) {
+        if (gen != userGeneration) return;
+        for (String uid : userStore.retain(serverUids)) {
+            queueUserDelta(uid);
+            pendingCacheWrites.putUser(uid, null);
+        }
+        queueCacheFlush();
+    }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Toast.makeText(AdminDashboardActivity.this,
-                        "Gagal memuat tempat: " + error.getMessage(),
-                        Toast.LENGTH_SHORT).show();
-            }
-        };
+    private void queueUserDelta(String uid) {
+        pendingUserUids.add(uid);
+        if (userFlushQueued) return;
+        userFlushQueued = true;
+        uiHandler.postDelayed(flushUserDeltas, USER_DELTA_DEBOUNCE_MS);
     }
 
-    private boolean looksLikeDeviceId(String s) {
-        if (TextUtils.isEmpty(s)) return false;
-        return s.startsWith("HG-") || s.startsWith("ESP-") || s.startsWith("DEV-");
+    /** Satu submitList per jendela debounce; DiffUtil hanya menyentuh baris yang berubah. */
+    private void flushUserDeltas() {
+        userFlushQueued = false;
+        if (operatorAdapter == null || pendingUserUids.isEmpty()) return;
+        pendingUserUids.clear();
+        applyFiltersAndRenderOperators();
     }
 
     @Override
     protected void onStart() {
         super.onStart();
-        if (usersRef != null && usersRealtimeListener != null) usersRef.addValueEventListener(usersRealtimeListener);
-        if (tempatRef != null && tempatRealtimeListener != null) tempatRef.addValueEventListener(tempatRealtimeListener);
+        started = true;
+        // ChildEventListener mengirim ulang semua child saat attach: isi lama (cache / sesi
+        // sebelumnya) tetap tampil, di-upsert per child lalu dirapikan oleh UsersInitialLoad
+        pendingUserUids.clear();
+        userGeneration++;
+        refreshAdminEmail();
+        if (usersRef != null && usersRealtimeListener != null) {
+            usersRef.addChildEventListener(usersRealtimeListener);
+            usersInitialLoad = new UsersInitialLoad(userGeneration);
+            usersRef.addListenerForSingleValueEvent(usersInitialLoad);
+        }
+        attachTempatPages();
+        attachFleetTelemetry();
+        if (tempatAdapter != null) tempatAdapter.setLive(true);
+        if (pumpsRef != null && pumpsListener != null) pumpsRef.addChildEventListener(pumpsListener);
+        uiHandler.postDelayed(sweepFleet, FLEET_SWEEP_MS);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
+        started = false;
         if (usersRef != null && usersRealtimeListener != null) usersRef.removeEventListener(usersRealtimeListener);
-        if (tempatRef != null && tempatRealtimeListener != null) tempatRef.removeEventListener(tempatRealtimeListener);
-        clearLiveListeners();
+        if (usersRef != null && usersInitialLoad != null) usersRef.removeEventListener(usersInitialLoad);
+        usersInitialLoad = null;
+        userGeneration++;
+        uiHandler.removeCallbacks(flushUserDeltas);
+        uiHandler.removeCallbacks(runOperatorSearch);
+        userFlushQueued = false;
+        for (TempatPage page : tempatPages) page.unlisten();
+        if (tempatAdapter != null) tempatAdapter.setLive(false);
+        if (pumpsRef != null && pumpsListener != null) pumpsRef.removeEventListener(pumpsListener);
+        for (DeviceLiveHub.Subscription sub : fleetTelemetrySubs.values()) sub.cancel();
+        fleetTelemetrySubs.clear();
+        uiHandler.removeCallbacks(sweepFleet);
+        uiHandler.removeCallbacks(renderFleet);
+        fleetRenderQueued = false;
+        flushCacheWrites();
+        Log.d(TAG, userDecodeStats + " | " + tempatDecodeStats);
     }
 
-    private void clearLiveListeners() {
-        for (LiveListener l : liveListeners) {
-            try { l.ref.removeEventListener(l.listener); } catch (Exception ignored) {}
-        }
-        liveListeners.clear();
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Laporan ack bulk (timeout CommandTracker) & debounce lain tidak boleh menahan activity
+        uiHandler.removeCallbacksAndMessages(null);
+        operatorSearchExecutor.shutdownNow();
+        decodeExecutor.shutdownNow();
+        // Tulisan cache yang sudah antre tetap diselesaikan, baru DB ditutup
+        if (dashboardCache != null) cacheExecutor.execute(dashboardCache::close);
+        cacheExecutor.shutdown();
+        if (liveHub != null) liveHub.shutdown();
     }
 
     private void bindViews() {
@@ -248,13 +405,17 @@ public class AdminDashboardActivity extends AppCompatActivity {
         etSearchOperator = findViewById(R.id.etSearchOperator);
         spinnerRole = findViewById(R.id.spinnerRole);
         spinnerStatus = findViewById(R.id.spinnerStatus);
-        tableOperators = findViewById(R.id.tableOperators);
+        rvOperators = findViewById(R.id.rvOperators);
+        tvOperatorEmpty = findViewById(R.id.tvOperatorEmpty);
         btnTambahOperator = findViewById(R.id.btnTambahOperator);
 
         spinnerKecamatan = findViewById(R.id.spinnerKecamatan);
         spinnerKelurahan = findViewById(R.id.spinnerKelurahan);
-        listTempatContainer = findViewById(R.id.listTempatContainer);
+        rvTempat = findViewById(R.id.rvTempat);
         tvTempatEmpty = findViewById(R.id.tvTempatEmpty);
+        tvFleetSummary = findViewById(R.id.tvFleetSummary);
+        btnBulkOff = findViewById(R.id.btnBulkOff);
+        btnBulkAuto = findViewById(R.id.btnBulkAuto);
     }
 
     private void setupToolbar() {
@@ -313,7 +474,10 @@ public class AdminDashboardActivity extends AppCompatActivity {
             etSearchOperator.addTextChangedListener(new android.text.TextWatcher() {
                 @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
                 @Override public void onTextChanged(CharSequence s, int start, int before, int count) {}
-                @Override public void afterTextChanged(android.text.Editable s) { applyFiltersAndRenderOperators(); }
+                @Override public void afterTextChanged(android.text.Editable s) {
+                    uiHandler.removeCallbacks(runOperatorSearch);
+                    uiHandler.postDelayed(runOperatorSearch, OPERATOR_SEARCH_DEBOUNCE_MS);
+                }
             });
         }
     }
@@ -334,34 +498,30 @@ public class AdminDashboardActivity extends AppCompatActivity {
         else tvAdminEmail.setText("admin@hydroguard.local");
     }
 
+    /** Baca filter di main thread, cari di operatorSearchExecutor, render kalau masih yang terbaru. */
     private void applyFiltersAndRenderOperators() {
-        if (tableOperators == null) return;
-
-        String q = etSearchOperator != null ? etSearchOperator.getText().toString().trim() : "";
-        q = q.toLowerCase(Locale.getDefault());
-
-        String roleFilter = spinnerRole != null ? String.valueOf(spinnerRole.getSelectedItem()) : "Semua";
-        String statusFilter = spinnerStatus != null ? String.valueOf(spinnerStatus.getSelectedItem()) : "Semua";
-
-        List<UserItem> filtered = new ArrayList<>();
-        for (UserItem u : allUsers) {
-            if (!"Semua".equalsIgnoreCase(roleFilter) && !u.role.equalsIgnoreCase(roleFilter)) continue;
-
-            if (!"Semua".equalsIgnoreCase(statusFilter)) {
-                boolean isAktif = "admin".equalsIgnoreCase(u.role) || u.approved;
-                if ("Aktif".equalsIgnoreCase(statusFilter) && !isAktif) continue;
-                if ("Menunggu".equalsIgnoreCase(statusFilter) && isAktif) continue;
-            }
-
-            if (!TextUtils.isEmpty(q)) {
-                String hay = (u.name + " " + u.email + " " + u.wa).toLowerCase(Locale.getDefault());
-                if (!hay.contains(q)) continue;
-            }
-
-            filtered.add(u);
+        if (operatorAdapter == null) return;
+        uiHandler.removeCallbacks(runOperatorSearch);
+
+        String q = etSearchOperator != null ? etSearchOperator.getText().toString() : "";
+
+        String roleFilter = spinnerRole != null ? String.valueOf(spinnerRole.getSelectedItem()) : OperatorFilter.ALL;
+        String statusFilter = spinnerStatus != null ? String.valueOf(spinnerStatus.getSelectedItem()) : OperatorFilter.ALL;
+
+        OperatorFilter.Criteria criteria = new OperatorFilter.Criteria(q, roleFilter, statusFilter);
+        final int seq = ++operatorSearchSeq;
+        try {
+            operatorSearchExecutor.execute(() -> {
+                List<UserItem> result = userStore.search(criteria);
+                uiHandler.post(() -> {
+                    // Ketikan / delta yang lebih baru sudah menyusul → buang hasil ini
+                    if (seq != operatorSearchSeq || isDestroyed()) return;
+                    renderOperatorList(result);
+                });
+            });
+        } catch (RejectedExecutionException ignored) {
+            // activity sudah destroy
         }
-
-        renderOperatorTable(filtered);
     }
 
     private void approveOperator(String uid) {
@@ -379,69 +539,237 @@ public class AdminDashboardActivity extends AppCompatActivity {
                         Toast.makeText(this, "Gagal menyetujui: " + e.getMessage(), Toast.LENGTH_SHORT).show());
     }
 
-    private void renderOperatorTable(List<UserItem> items) {
-        int childCount = tableOperators.getChildCount();
-        if (childCount > 1) tableOperators.removeViews(1, childCount - 1);
-
-        for (UserItem u : items) {
-            TableRow row = new TableRow(this);
-            row.setPadding(0, dp(6), 0, dp(6));
-
-            TextView tvName = cell(u.name, 2f, false);
-            TextView tvRole = cell(u.role, 1f, false);
-            TextView tvWa   = cell(u.wa, 2f, false);
-
-            boolean isAktif = "admin".equalsIgnoreCase(u.role) || u.approved;
-            TextView tvStatus = cell(isAktif ? "Aktif" : "Menunggu", 1f, true);
-            tvStatus.setTextColor(isAktif ? Color.parseColor("#059669") : Color.parseColor("#B45309"));
-
-            row.addView(tvName);
-            row.addView(tvRole);
-            row.addView(tvWa);
-            row.addView(tvStatus);
-
-            if ("operator".equalsIgnoreCase(u.role) && !u.approved) {
-                MaterialButton btnAcc = new MaterialButton(this);
-                btnAcc.setText("Setujui");
-                btnAcc.setTextSize(TypedValue.COMPLEX_UNIT_SP, 12);
-                btnAcc.setInsetTop(0);
-                btnAcc.setInsetBottom(0);
-                btnAcc.setOnClickListener(v -> approveOperator(u.uid));
-
-                TableRow.LayoutParams lpBtn = new TableRow.LayoutParams(
-                        TableRow.LayoutParams.WRAP_CONTENT,
-                        TableRow.LayoutParams.WRAP_CONTENT
-                );
-                lpBtn.leftMargin = dp(8);
-                btnAcc.setLayoutParams(lpBtn);
-                row.addView(btnAcc);
+    private void setupOperatorList() {
+        if (rvOperators == null) return;
+        operatorAdapter = new OperatorAdapter(this::approveOperator);
+        rvOperators.setLayoutManager(new LinearLayoutManager(this));
+        rvOperators.setHasFixedSize(true);
+        rvOperators.setAdapter(operatorAdapter);
+    }
+
+    private void renderOperatorList(List<UserItem> items) {
+        // submitList: diff dihitung di background, lalu dispatch ke baris yang terlihat saja
+        operatorAdapter.submitList(items, () -> {
+            if (tvOperatorEmpty != null) {
+                tvOperatorEmpty.setVisibility(operatorAdapter.getItemCount() == 0 ? View.VISIBLE : View.GONE);
             }
+        });
+    }
 
-            tableOperators.addView(row);
+    // ===================== KELOLA TEMPAT =====================
+    private void setupTempatList() {
+        if (rvTempat == null) return;
+        tempatAdapter = new TempatAdapter(liveHub, this::resolveUserLabel, LIVE_CARD_MIN_INTERVAL_MS);
+        rvTempat.setLayoutManager(new LinearLayoutManager(this));
+        rvTempat.setAdapter(tempatAdapter);
+        rvTempat.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy > 0) maybeLoadMoreTempat();
+            }
+        });
+    }
+
+    /**
+     * Listener satu halaman /tempat; rentangnya dari tempatPager. Halaman terakhir:
+     * orderByKey().startAt(start).limitToFirst(PAGE + 1); halaman lain dikunci ke
+     * startAt(start).endBefore(awal halaman berikutnya), jadi insert di tengah tidak
+     * mendorong tempat keluar dari semua halaman.
+     */
+    private final class TempatPage implements ValueEventListener {
+        final KeyPager.Page<TempatItem> range;
+        Query query;
+        int decodeSeq = 0;       // snapshot terbaru; hasil decode snapshot lama dibuang
+
+        TempatPage(KeyPager.Page<TempatItem> range) {
+            this.range = range;
+            this.query = buildQuery();
         }
 
-        if (items.isEmpty()) {
-            TableRow row = new TableRow(this);
-            row.setPadding(0, dp(10), 0, dp(10));
+        private Query buildQuery() {
+            Query q = tempatRef.orderByKey();
+            if (range.startKey != null) q = q.startAt(range.startKey);
+            return (range.endKey() != null) ? q.endBefore(range.endKey()) : q.limitToFirst(tempatPager.limit());
+        }
 
-            TextView empty = new TextView(this);
-            empty.setText("Tidak ada data yang sesuai filter.");
-            empty.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-            empty.setTextColor(Color.parseColor("#6B7280"));
+        void listen() {
+            query.addValueEventListener(this);
+        }
 
-            TableRow.LayoutParams lp = new TableRow.LayoutParams(
-                    TableRow.LayoutParams.MATCH_PARENT,
-                    TableRow.LayoutParams.WRAP_CONTENT
-            );
-            lp.span = 5;
-            empty.setLayoutParams(lp);
+        void unlisten() {
+            query.removeEventListener(this);
+            decodeSeq++; // decode yang masih jalan tidak diterapkan lagi
+        }
+
+        /** Halaman baru saja ditutup (ada halaman sesudahnya): pasang query rentang tetap. */
+        void reanchor() {
+            unlisten();
+            query = buildQuery();
+            if (started) listen();
+        }
+
+        /** Decode satu halaman di decodeExecutor, lalu terapkan di main thread kalau masih terbaru. */
+        @Override
+        public void onDataChange(@NonNull DataSnapshot snapshot) {
+            int seq = ++decodeSeq;
+            int keep = tempatPager.keepCount(range);
+            try {
+                decodeExecutor.execute(() -> {
+                    Map<String, TempatItem> out = new LinkedHashMap<>();
+                    String next = null;
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        if (out.size() == keep) {
+                            next = child.getKey();
+                            break;
+                        }
+                        long t0 = System.nanoTime();
+                        TempatItem t = SnapshotDecoder.tempat(child.getKey(), child.getValue());
+                        tempatDecodeStats.record(System.nanoTime() - t0);
+                        out.put(t.tempatId, t);
+                    }
+                    String nextKeyDecoded = next;
+                    uiHandler.post(() -> applyDecoded(seq, out, nextKeyDecoded));
+                });
+            } catch (RejectedExecutionException ignored) {
+                // activity sudah destroy
+            }
+        }
 
-            row.addView(empty);
-            tableOperators.addView(row);
+        private void applyDecoded(int seq, Map<String, TempatItem> out, String next) {
+            if (seq != decodeSeq || !tempatPages.contains(this)) return;
+            Map<String, TempatItem> old = tempatPager.apply(range, out, next);
+            onTempatPageChanged(this, old);
+        }
+
+        @Override
+        public void onCancelled(@NonNull DatabaseError error) {
+            tempatPager.failed(range);
+            Toast.makeText(AdminDashboardActivity.this,
+                    "Gagal memuat tempat: " + error.getMessage(),
+                    Toast.LENGTH_SHORT).show();
         }
     }
 
-    // ===================== KELOLA TEMPAT =====================
+    /** onStart: halaman pertama, atau pasang lagi listener halaman yang sudah dimuat. */
+    private void attachTempatPages() {
+        if (tempatRef == null) return;
+        if (tempatPages.isEmpty()) {
+            loadNextTempatPage();
+            return;
+        }
+        for (TempatPage page : tempatPages) page.listen();
+    }
+
+    private boolean hasMoreTempat() {
+        return tempatPager.hasMore();
+    }
+
+    private void loadNextTempatPage() {
+        KeyPager.Page<TempatItem> range = tempatPager.addPage();
+        if (range == null) return; // masih memuat / sudah habis
+        // Halaman terakhir sebelumnya sekarang berakhir di awal halaman baru
+        if (!tempatPages.isEmpty()) tempatPages.get(tempatPages.size() - 1).reanchor();
+        TempatPage page = new TempatPage(range);
+        tempatPages.add(page);
+        page.listen();
+    }
+
+    /** Muat halaman berikutnya kalau card terakhir yang terlihat sudah dekat ujung daftar. */
+    private void maybeLoadMoreTempat() {
+        if (rvTempat == null || !hasMoreTempat()) return;
+        LinearLayoutManager lm = (LinearLayoutManager) rvTempat.getLayoutManager();
+        if (lm == null) return;
+        int last = lm.findLastVisibleItemPosition();
+        if (last >= tempatAdapter.getItemCount() - TEMPAT_PREFETCH) loadNextTempatPage();
+    }
+
+    /**
+     * Terapkan perubahan satu halaman ke locationIndex + ringkasan armada: hanya tempat
+     * yang berubah / hilang dari halaman itu, bukan semua tempat.
+     */
+    private void onTempatPageChanged(TempatPage page, Map<String, TempatItem> old) {
+        boolean changed = false;
+        Map<String, TempatItem> items = page.range.items();
+        for (TempatItem t : items.values()) {
+            if (indexTempat(t)) {
+                changed = true;
+                pendingCacheWrites.putTempat(t.tempatId, t);
+            }
+        }
+
+        // Rentang halaman tetap (KeyPager), jadi yang hilang dari halaman ini memang dihapus
+        for (String id : old.keySet()) {
+            if (!items.containsKey(id)) changed |= removeTempat(id);
+        }
+
+        // Tempat dari cache di rentang key halaman ini tapi tidak ada di halaman = sudah dihapus
+        // (urutan set = FirebaseKeyOrder, sama dengan orderByKey() halaman)
+        String start = page.range.startKey, end = page.range.loadedEndKey();
+        Set<String> range;
+        if (start == null) {
+            range = (end != null) ? cachedTempatIds.headSet(end) : cachedTempatIds;
+        } else {
+            range = (end != null) ? cachedTempatIds.subSet(start, end) : cachedTempatIds.tailSet(start);
+        }
+        for (String id : new ArrayList<>(range)) {
+            if (!items.containsKey(id)) changed |= removeTempat(id);
+        }
+        range.clear();
+
+        changed |= syncDefaultTempat();
+        queueCacheFlush();
+        if (!changed) return;
+
+        rebuildKecamatanKelurahanOptions();
+        applyFiltersAndRenderTempat();
+    }
+
+    /** Tempat default HG-01 hanya tampil selama /tempat benar-benar kosong. */
+    private boolean syncDefaultTempat() {
+        int real = locationIndex.size() - (defaultTempatShown ? 1 : 0);
+        if (real == 0 && !hasMoreTempat() && !defaultTempatShown) {
+            indexTempat(new TempatItem(
+                    DEFAULT_DEVICE_ID,
+                    "HG-01 (Default)",
+                    "-", "-",
+                    "", "", "",
+                    DEFAULT_DEVICE_ID
+            ));
+            defaultTempatShown = true;
+            return true;
+        }
+        if (real > 0 && defaultTempatShown) {
+            defaultTempatShown = false;
+            return unindexTempat(DEFAULT_DEVICE_ID);
+        }
+        return false;
+    }
+
+    private boolean indexTempat(TempatItem t) {
+        TempatItem prev = locationIndex.get(t.tempatId);
+        if (!locationIndex.put(t)) return false;
+        if (DEFAULT_DEVICE_ID.equals(t.tempatId)) defaultTempatShown = false; // tempat asli ber-id sama
+
+        if (fleetSummary.putSite(t.tempatId, t.deviceId, t.kecamatan, t.kelurahan)) queueFleetRender();
+        subscribeFleetTelemetry(t.deviceId);
+        if (prev != null && !prev.deviceId.equals(t.deviceId)) releaseFleetTelemetryIfUnused(prev.deviceId);
+        return true;
+    }
+
+    /** Tempat hilang dari server: lepas dari index + hapus dari cache lokal. */
+    private boolean removeTempat(String tempatId) {
+        pendingCacheWrites.putTempat(tempatId, null);
+        return unindexTempat(tempatId);
+    }
+
+    private boolean unindexTempat(String tempatId) {
+        TempatItem prev = locationIndex.get(tempatId);
+        if (prev == null) return false;
+        locationIndex.remove(tempatId);
+        if (fleetSummary.removeSite(tempatId)) queueFleetRender();
+        releaseFleetTelemetryIfUnused(prev.deviceId);
+        return true;
+    }
+
     private void setupFiltersKelolaTempat() {
         kecamatanOptions.clear();
         kelurahanOptions.clear();
@@ -456,285 +784,361 @@ public class AdminDashboardActivity extends AppCompatActivity {
         kelurahanAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         if (spinnerKelurahan != null) spinnerKelurahan.setAdapter(kelurahanAdapter);
 
-        if (spinnerKecamatan != null) spinnerKecamatan.setOnItemSelectedListener(new SimpleItemSelectedListener(this::applyFiltersAndRenderTempat));
+        if (spinnerKecamatan != null) spinnerKecamatan.setOnItemSelectedListener(new SimpleItemSelectedListener(() -> {
+            rebuildKelurahanOptions();
+            applyFiltersAndRenderTempat();
+        }));
         if (spinnerKelurahan != null) spinnerKelurahan.setOnItemSelectedListener(new SimpleItemSelectedListener(this::applyFiltersAndRenderTempat));
     }
 
+    /** Opsi spinner dari locationIndex; kelurahan ikut kecamatan yang dipilih. */
     private void rebuildKecamatanKelurahanOptions() {
-        String keepKec = spinnerKecamatan != null && spinnerKecamatan.getSelectedItem() != null
-                ? String.valueOf(spinnerKecamatan.getSelectedItem()) : "Semua";
-        String keepKel = spinnerKelurahan != null && spinnerKelurahan.getSelectedItem() != null
-                ? String.valueOf(spinnerKelurahan.getSelectedItem()) : "Semua";
+        String keepKec = selectedOrAll(spinnerKecamatan);
 
-        Set<String> kecSet = new LinkedHashSet<>();
-        Set<String> kelSet = new LinkedHashSet<>();
-        kecSet.add("Semua");
-        kelSet.add("Semua");
+        kecamatanOptions.clear();
+        kecamatanOptions.add("Semua");
+        kecamatanOptions.addAll(locationIndex.kecamatanOptions());
+        if (kecamatanAdapter != null) kecamatanAdapter.notifyDataSetChanged();
 
-        for (TempatItem t : allTempat) {
-            if (!TextUtils.isEmpty(t.kecamatan) && !"-".equals(t.kecamatan)) kecSet.add(t.kecamatan);
-            if (!TextUtils.isEmpty(t.kelurahan) && !"-".equals(t.kelurahan)) kelSet.add(t.kelurahan);
-        }
+        int idxKec = kecamatanOptions.indexOf(keepKec);
+        if (spinnerKecamatan != null) spinnerKecamatan.setSelection(Math.max(0, idxKec), false);
 
-        kecamatanOptions.clear();
-        kecamatanOptions.addAll(kecSet);
+        rebuildKelurahanOptions();
+    }
 
-        kelurahanOptions.clear();
-        kelurahanOptions.addAll(kelSet);
+    private void rebuildKelurahanOptions() {
+        String kec = selectedOrAll(spinnerKecamatan);
+        String keepKel = selectedOrAll(spinnerKelurahan);
 
-        if (kecamatanAdapter != null) kecamatanAdapter.notifyDataSetChanged();
+        kelurahanOptions.clear();
+        kelurahanOptions.add("Semua");
+        kelurahanOptions.addAll(locationIndex.kelurahanOptions("Semua".equalsIgnoreCase(kec) ? null : kec));
         if (kelurahanAdapter != null) kelurahanAdapter.notifyDataSetChanged();
 
-        int idxKec = kecamatanOptions.indexOf(keepKec);
-        if (idxKec >= 0 && spinnerKecamatan != null) spinnerKecamatan.setSelection(idxKec, false);
-
         int idxKel = kelurahanOptions.indexOf(keepKel);
-        if (idxKel >= 0 && spinnerKelurahan != null) spinnerKelurahan.setSelection(idxKel, false);
+        if (spinnerKelurahan != null) spinnerKelurahan.setSelection(Math.max(0, idxKel), false);
     }
 
-    private void applyFiltersAndRenderTempat() {
-        if (listTempatContainer == null || tvTempatEmpty == null) return;
+    private static String selectedOrAll(Spinner sp) {
+        return sp != null && sp.getSelectedItem() != null ? String.valueOf(sp.getSelectedItem()) : "Semua";
+    }
 
-        String kecFilter = spinnerKecamatan != null && spinnerKecamatan.getSelectedItem() != null
-                ? String.valueOf(spinnerKecamatan.getSelectedItem()) : "Semua";
-        String kelFilter = spinnerKelurahan != null && spinnerKelurahan.getSelectedItem() != null
-                ? String.valueOf(spinnerKelurahan.getSelectedItem()) : "Semua";
+    private void applyFiltersAndRenderTempat() {
+        if (tempatAdapter == null || tvTempatEmpty == null) return;
 
-        List<TempatItem> filtered = new ArrayList<>();
-        for (TempatItem t : allTempat) {
-            if (!"Semua".equalsIgnoreCase(kecFilter) && !kecFilter.equalsIgnoreCase(t.kecamatan)) continue;
-            if (!"Semua".equalsIgnoreCase(kelFilter) && !kelFilter.equalsIgnoreCase(t.kelurahan)) continue;
-            filtered.add(t);
-        }
+        String kecFilter = selectedOrAll(spinnerKecamatan);
+        String kelFilter = selectedOrAll(spinnerKelurahan);
 
-        renderTempatList(filtered);
+        // Lookup langsung ke grup kecamatan / kelurahan (O(hasil), bukan scan semua tempat)
+        renderTempatList(locationIndex.query(
+                "Semua".equalsIgnoreCase(kecFilter) ? null : kecFilter,
+                "Semua".equalsIgnoreCase(kelFilter) ? null : kelFilter));
+        renderFleetSummary();
     }
 
-    private void renderTempatList(List<TempatItem> items) {
-        listTempatContainer.removeAllViews();
-        clearLiveListeners();
+    // ===================== CACHE LOKAL =====================
+    /** Cold start: tampilkan isi cache dulu; data server yang datang kemudian menimpanya. */
+    private void applyCachedSnapshot(DashboardCache.Snapshot cached) {
+        boolean usersChanged = false;
+        for (UserItem u : cached.users) usersChanged |= userStore.upsert(u);
+        if (usersChanged) applyFiltersAndRenderOperators();
+
+        boolean tempatChanged = false;
+        for (TempatItem t : cached.tempat) {
+            if (locationIndex.contains(t.tempatId)) continue;
+            if (indexTempat(t)) {
+                cachedTempatIds.add(t.tempatId);
+                tempatChanged = true;
+            }
+        }
 
-        if (items.isEmpty()) {
-            tvTempatEmpty.setVisibility(View.VISIBLE);
-            tvTempatEmpty.setText("Belum ada tempat");
-            return;
+        // Setelah tempat masuk (device sudah dipakai site); nilai live yang sudah ada tidak ditimpa
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Map<String, Object>> e : cached.telemetry.entrySet()) {
+            String deviceId = e.getKey();
+            Map<String, Object> fields = e.getValue();
+            if (!fleetSummary.hasTelemetry(deviceId)) {
+                double soil = TelemetryValues.toDouble(fields.get("soil"), Double.NaN);
+                long updatedAt = (long) TelemetryValues.toDouble(fields.get("updatedAt"), 0);
+                if (updatedAt > 0 && fleetSummary.onTelemetry(deviceId, soil, updatedAt, now)) queueFleetRender();
+            }
+            if (tempatAdapter != null) tempatAdapter.seedSensor(deviceId, fields);
         }
-        tvTempatEmpty.setVisibility(View.GONE);
 
-        for (TempatItem t : items) {
-            LinearLayout card = new LinearLayout(this);
-            card.setOrientation(LinearLayout.VERTICAL);
-            card.setPadding(dp(12), dp(12), dp(12), dp(12));
-            card.setBackgroundResource(R.drawable.bg_item_tempat);
-
-            LinearLayout.LayoutParams lp = new LinearLayout.LayoutParams(
-                    LinearLayout.LayoutParams.MATCH_PARENT,
-                    LinearLayout.LayoutParams.WRAP_CONTENT
-            );
-            lp.bottomMargin = dp(8);
-            card.setLayoutParams(lp);
-
-            TextView tvNama = new TextView(this);
-            tvNama.setText(t.nama);
-            tvNama.setTextSize(TypedValue.COMPLEX_UNIT_SP, 15);
-            tvNama.setTypeface(Typeface.DEFAULT_BOLD);
-            tvNama.setTextColor(Color.parseColor("#111827"));
-
-            TextView tvLok = new TextView(this);
-            tvLok.setText("Lokasi: " + t.kecamatan + " - " + t.kelurahan);
-            tvLok.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-            tvLok.setTextColor(Color.parseColor("#6B7280"));
-
-            TextView tvBy = new TextView(this);
-            tvBy.setText("Diinput oleh: " + resolveUserLabel(t.createdBy));
-            tvBy.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-            tvBy.setTextColor(Color.parseColor("#111827"));
-
-            TextView tvOp = new TextView(this);
-            String opLabel = !TextUtils.isEmpty(t.operatorName) ? t.operatorName : "-";
-            tvOp.setText("Operator: " + opLabel);
-            tvOp.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-            tvOp.setTextColor(Color.parseColor("#111827"));
-
-            TextView tvSensor = new TextView(this);
-            tvSensor.setText("Sensor: memuat...");
-            tvSensor.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-            tvSensor.setTextColor(Color.parseColor("#111827"));
-            tvSensor.setPadding(0, dp(6), 0, 0);
-
-            TextView tvPump = new TextView(this);
-            tvPump.setText("Pompa: memuat...");
-            tvPump.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-            tvPump.setTextColor(Color.parseColor("#111827"));
-
-            card.addView(tvNama);
-            card.addView(tvLok);
-            card.addView(tvBy);
-            card.addView(tvOp);
-            card.addView(tvSensor);
-            card.addView(tvPump);
-
-            listTempatContainer.addView(card);
-
-            // ✅ PENTING: pakai deviceId & parser aman (ini yang mencegah admin keluar)
-            attachLiveStatusToCard(t.deviceId, tvSensor, tvPump);
-        }
-    }
-
-    private void attachLiveStatusToCard(String deviceId, TextView tvSensor, TextView tvPump) {
-        if (TextUtils.isEmpty(deviceId)) deviceId = DEFAULT_DEVICE_ID;
-
-        DatabaseReference tRef = db.getReference("telemetry").child(deviceId).child("latest");
-        ValueEventListener tl = new ValueEventListener() {
-            @Override public void onDataChange(@NonNull DataSnapshot s) {
-                if (!s.exists()) {
-                    tvSensor.setText("Sensor: (telemetry kosong)");
-                    return;
-                }
+        if (tempatChanged) {
+            syncDefaultTempat();
+            rebuildKecamatanKelurahanOptions();
+            applyFiltersAndRenderTempat();
+        }
+        Log.d(TAG, "cache: " + cached.users.size() + " users, " + cached.tempat.size()
+                + " tempat, " + cached.telemetry.size() + " telemetry");
+    }
 
-                // ✅ FIX UTAMA: gunakan getDoubleSafe, bukan Number.class
-                double tempVal = getDoubleSafe(s, "temp", Double.NaN);
-                double humVal  = getDoubleSafe(s, "hum", Double.NaN);
-                double soilVal = getDoubleSafe(s, "soil", Double.NaN);
-                double rainVal = getDoubleSafe(s, "rain_pct", Double.NaN);
-                double ldrVal  = getDoubleSafe(s, "ldr_adc", Double.NaN);
-
-                String light = "-";
-                if (s.child("bright").exists()) {
-                    boolean bright = parseBoolLike(s.child("bright").getValue());
-                    light = bright ? "Terang" : "Gelap";
-                } else if (!Double.isNaN(ldrVal)) {
-                    light = ((int) Math.round(ldrVal)) + " (adc)";
-                }
+    private void cacheTelemetry(String deviceId, DataSnapshot s) {
+        Object v = s.getValue();
+        if (!(v instanceof Map)) return;
+        @SuppressWarnings("unchecked")
+        Map<String, Object> fields = (Map<String, Object>) v;
+        pendingCacheWrites.putTelemetry(deviceId, fields);
+        queueCacheFlush();
+    }
 
-                String line =
-                        "Sensor: T=" + (Double.isNaN(tempVal) ? "-" : String.format(Locale.getDefault(),"%.1f°C", tempVal))
-                                + " | H=" + (Double.isNaN(humVal) ? "-" : String.format(Locale.getDefault(),"%.1f%%", humVal))
-                                + " | Soil=" + (Double.isNaN(soilVal) ? "-" : ((int)Math.round(soilVal))+"%")
-                                + " | Rain=" + (Double.isNaN(rainVal) ? "-" : ((int)Math.round(rainVal))+"%")
-                                + " | Light=" + light;
+    private void queueCacheFlush() {
+        if (cacheFlushQueued || pendingCacheWrites.isEmpty()) return;
+        cacheFlushQueued = true;
+        uiHandler.postDelayed(flushCache, CACHE_FLUSH_MS);
+    }
 
-                tvSensor.setText(line);
-            }
+    /** Kirim batch yang terkumpul ke cacheExecutor (satu transaksi SQLite). */
+    private void flushCacheWrites() {
+        uiHandler.removeCallbacks(flushCache);
+        cacheFlushQueued = false;
+        if (dashboardCache == null || pendingCacheWrites.isEmpty()) return;
+        DashboardCache.Batch batch = pendingCacheWrites;
+        pendingCacheWrites = new DashboardCache.Batch();
+        DashboardCache cache = dashboardCache;
+        cacheExecutor.execute(() -> cache.write(batch));
+    }
 
-            @Override public void onCancelled(@NonNull DatabaseError error) {
-                tvSensor.setText("Sensor: error " + error.getMessage());
-            }
-        };
-        tRef.addValueEventListener(tl);
-        liveListeners.add(new LiveListener(tRef, tl));
-
-        DatabaseReference pRef = db.getReference("kontrol_pompa").child(deviceId);
-        ValueEventListener pl = new ValueEventListener() {
-            @Override public void onDataChange(@NonNull DataSnapshot s) {
-                String mode = s.child("mode").getValue(String.class);
-                Object raw = s.child("status").getValue();
-                boolean isOn = parseBoolLike(raw);
-
-                String m = TextUtils.isEmpty(mode) ? "-" : (mode.equalsIgnoreCase("manual") ? "Manual" : "Otomatis");
-                tvPump.setText("Pompa: " + (isOn ? "Menyala" : "Mati") + " | Mode: " + m);
+    // ===================== RINGKASAN ARMADA =====================
+    /** onStart: pasang lagi telemetry ringkasan untuk semua device yang dipakai tempat. */
+    private void attachFleetTelemetry() {
+        for (String deviceId : fleetSummary.deviceIds()) subscribeFleetTelemetry(deviceId);
+    }
+
+    /** Satu subscription ringkasan per device; node sama dengan card → listener Firebase tetap satu. */
+    private void subscribeFleetTelemetry(String deviceId) {
+        // Saat stop tidak ada subscription; attachFleetTelemetry() memasang semuanya di onStart
+        if (!started || fleetTelemetrySubs.containsKey(deviceId)) return;
+        fleetTelemetrySubs.put(deviceId, liveHub.subscribeTelemetry(deviceId, new DeviceLiveHub.Observer() {
+            @Override public void onValue(@NonNull DataSnapshot s) {
+                double soil = getDoubleSafe(s, "soil", Double.NaN);
+                long updatedAt = (long) getDoubleSafe(s, "updatedAt", 0);
+                if (fleetSummary.onTelemetry(deviceId, soil, updatedAt, System.currentTimeMillis())) queueFleetRender();
+                cacheTelemetry(deviceId, s);
             }
 
-            @Override public void onCancelled(@NonNull DatabaseError error) {
-                tvPump.setText("Pompa: error " + error.getMessage());
+            @Override public void onError(@NonNull DatabaseError error) {
+                Log.w(TAG, "telemetry " + deviceId + ": " + error.getMessage());
             }
-        };
-        pRef.addValueEventListener(pl);
-        liveListeners.add(new LiveListener(pRef, pl));
+        }));
     }
 
-    private boolean parseBoolLike(Object v) {
-        if (v == null) return false;
-        if (v instanceof Boolean) return (Boolean) v;
-        if (v instanceof Number) return ((Number) v).intValue() != 0;
-        if (v instanceof String) {
-            String s = ((String) v).trim().toLowerCase(Locale.getDefault());
-            return s.equals("true") || s.equals("1") || s.equals("on") || s.equals("yes");
-        }
-        return false;
+    private void releaseFleetTelemetryIfUnused(String deviceId) {
+        if (fleetSummary.isDeviceUsed(deviceId)) return;
+        DeviceLiveHub.Subscription sub = fleetTelemetrySubs.remove(deviceId);
+        if (sub != null) sub.cancel();
     }
 
-    // ✅ helper aman untuk angka (FIX crash)
-    private double getDoubleSafe(@NonNull DataSnapshot parent, @NonNull String key, double def) {
-        Object v = parent.child(key).getValue();
-        if (v == null) return def;
+    private void onPumpSnapshot(DataSnapshot child) {
+        String deviceId = child.getKey();
+        if (deviceId == null) return;
+
+        String mode = child.child("mode").getValue(String.class);
+        boolean isOn = parseBoolLike(child.child("status").getValue());
+        // Sama dengan label card: selain "manual" = Otomatis
+        boolean isAuto = !TextUtils.isEmpty(mode) && !mode.equalsIgnoreCase("manual");
+        if (fleetSummary.onPump(deviceId, isOn, isAuto)) queueFleetRender();
+
+        // cmdSeq untuk perintah massal berikutnya + ack perintah massal yang sudah dikirim
+        long cmdSeq = (long) TelemetryValues.toDouble(child.child("cmdSeq").getValue(), -1);
+        if (cmdSeq >= 0) CommandTracker.get().observeSeq(deviceId, cmdSeq);
+        CommandTracker.get().onAck(deviceId, child.child("ackId").getValue(String.class),
+                (long) TelemetryValues.toDouble(child.child("ackSeq").getValue(), -1),
+                SystemClock.elapsedRealtime());
+    }
 
-        if (v instanceof Double) return (Double) v;
-        if (v instanceof Long) return ((Long) v).doubleValue();
-        if (v instanceof Integer) return ((Integer) v).doubleValue();
-        if (v instanceof Float) return ((Float) v).doubleValue();
-        if (v instanceof Number) return ((Number) v).doubleValue();
+    private void queueFleetRender() {
+        if (fleetRenderQueued) return;
+        fleetRenderQueued = true;
+        uiHandler.postDelayed(renderFleet, FLEET_RENDER_MS);
+    }
 
-        if (v instanceof String) {
-            try {
-                String s = ((String) v).trim();
-                if (s.isEmpty()) return def;
-                return Double.parseDouble(s);
-            } catch (Exception ignored) {
-                return def;
-            }
+    /** Header ringkasan sesuai filter kecamatan/kelurahan yang dipilih (lookup O(1)). */
+    private void renderFleetSummary() {
+        uiHandler.removeCallbacks(renderFleet);
+        fleetRenderQueued = false;
+        if (tvFleetSummary == null) return;
+
+        String kec = spinnerKecamatan != null && spinnerKecamatan.getSelectedItem() != null
+                ? String.valueOf(spinnerKecamatan.getSelectedItem()) : "Semua";
+        String kel = spinnerKelurahan != null && spinnerKelurahan.getSelectedItem() != null
+                ? String.valueOf(spinnerKelurahan.getSelectedItem()) : "Semua";
+
+        FleetSummary.Stats st;
+        String scope;
+        if ("Semua".equalsIgnoreCase(kec)) {
+            st = fleetSummary.fleet();
+            scope = "Semua lokasi";
+        } else if ("Semua".equalsIgnoreCase(kel)) {
+            st = fleetSummary.kecamatan(kec);
+            scope = kec;
+        } else {
+            st = fleetSummary.kelurahan(kec, kel);
+            scope = kec + " - " + kel;
         }
-        return def;
+
+        if (st == null || st.sites() == 0) {
+            tvFleetSummary.setText("Ringkasan " + scope + ": belum ada tempat");
+            return;
+        }
+
+        double mean = st.meanSoil();
+        String soil = Double.isNaN(mean) ? "-"
+                : Math.round(mean) + "% (min " + st.minSoil() + "%)";
+        tvFleetSummary.setText("Ringkasan " + scope + ": " + st.sites() + " tempat"
+                + "\nPompa ON " + st.pumpsOn() + " | Otomatis " + st.auto()
+                + " | Soil rata2 " + soil
+                + " | Tidak update " + st.stale());
     }
 
-    private String resolveUserLabel(String uid) {
-        if (TextUtils.isEmpty(uid)) return "-";
-        for (UserItem u : allUsers) {
-            if (uid.equals(u.uid)) {
-                if (!TextUtils.isEmpty(u.name)) return u.name;
-                if (!TextUtils.isEmpty(u.email)) return u.email;
-                break;
+    // ===================== KONTROL MASSAL =====================
+    private void setupBulkControl() {
+        if (btnBulkOff != null) btnBulkOff.setOnClickListener(v ->
+                confirmBulk(BulkControl.Request.emergencyOff("admin_bulk_off"), "Matikan semua pompa"));
+        if (btnBulkAuto != null) btnBulkAuto.setOnClickListener(v ->
+                confirmBulk(BulkControl.Request.switchToAuto("admin_bulk_auto"), "Ubah semua ke mode otomatis"));
+    }
+
+    /** Device di lokasi terpilih → konfirmasi → satu updateChildren multi-lokasi. */
+    private void confirmBulk(BulkControl.Request request, String title) {
+        String kec = selectedOrAll(spinnerKecamatan);
+        String kel = selectedOrAll(spinnerKelurahan);
+        String scope = "Semua".equalsIgnoreCase(kec) ? "semua lokasi"
+                : ("Semua".equalsIgnoreCase(kel) ? kec : kec + " - " + kel);
+
+        collectScopeDevices(kec, kel, deviceIds -> {
+            if (isFinishing() || isDestroyed()) return;
+            if (deviceIds.isEmpty()) {
+                Toast.makeText(this, "Tidak ada device di " + scope, Toast.LENGTH_SHORT).show();
+                return;
             }
-        }
-        return uid;
+            new MaterialAlertDialogBuilder(this)
+                    .setTitle(title)
+                    .setMessage(deviceIds.size() + " device di " + scope + " akan diubah sekaligus.")
+                    .setNegativeButton("Batal", (d, w) -> d.dismiss())
+                    .setPositiveButton("Lanjutkan", (d, w) -> runBulk(request, deviceIds, scope))
+                    .show();
+        });
     }
 
-    private TextView cell(String text, float weight, boolean alignEnd) {
-        TextView tv = new TextView(this);
-        tv.setText(text);
-        tv.setTextSize(TypedValue.COMPLEX_UNIT_SP, 13);
-        tv.setTextColor(Color.parseColor("#111827"));
-        tv.setPadding(dp(2), 0, dp(2), 0);
-        tv.setSingleLine(true);
-        tv.setEllipsize(TextUtils.TruncateAt.END);
+    /**
+     * deviceId semua tempat di kecamatan / kelurahan terpilih. Halaman /tempat yang belum
+     * dimuat tidak boleh terlewat (matikan darurat), jadi kalau masih ada halaman berikutnya
+     * /tempat dibaca utuh sekali dan di-decode di decodeExecutor.
+     */
+    private void collectScopeDevices(String kec, String kel, DeviceIdsCallback cb) {
+        String kecQ = "Semua".equalsIgnoreCase(kec) ? null : kec;
+        String kelQ = "Semua".equalsIgnoreCase(kel) ? null : kel;
+
+        if (!hasMoreTempat() || tempatRef == null) {
+            cb.onDeviceIds(deviceIdsOf(locationIndex.query(kecQ, kelQ)));
+            return;
+        }
+        Toast.makeText(this, "Memuat semua tempat...", Toast.LENGTH_SHORT).show();
+        tempatRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                try {
+                    decodeExecutor.execute(() -> {
+                        LocationIndex all = new LocationIndex();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            all.put(SnapshotDecoder.tempat(child.getKey(), child.getValue()));
+                        }
+                        Set<String> ids = deviceIdsOf(all.query(kecQ, kelQ));
+                        uiHandler.post(() -> cb.onDeviceIds(ids));
+                    });
+                } catch (RejectedExecutionException ignored) {
+                    // activity sudah destroy
+                }
+            }
 
-        TableRow.LayoutParams lp = new TableRow.LayoutParams(0, TableRow.LayoutParams.WRAP_CONTENT, weight);
-        tv.setLayoutParams(lp);
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Toast.makeText(AdminDashboardActivity.this,
+                        "Gagal memuat tempat: " + error.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-        if (alignEnd) tv.setGravity(Gravity.END);
-        return tv;
+    private interface DeviceIdsCallback {
+        void onDeviceIds(Set<String> deviceIds);
     }
 
-    private int dp(int v) {
-        return Math.round(getResources().getDisplayMetrics().density * v);
+    private static Set<String> deviceIdsOf(List<TempatItem> items) {
+        Set<String> ids = new TreeSet<>();
+        for (TempatItem t : items) {
+            if (!TextUtils.isEmpty(t.deviceId)) ids.add(t.deviceId);
+        }
+        return ids;
     }
 
-    // ===================== MODEL =====================
-    static class UserItem {
-        final String uid, name, email, role, wa;
-        final boolean approved;
+    private void runBulk(BulkControl.Request request, Set<String> deviceIds, String scope) {
+        BulkPumpControl.apply(deviceIds, request, (plan, error) -> {
+            int invalid = plan.count(BulkControl.Outcome.INVALID_ID);
+            if (error != null) {
+                Toast.makeText(this, "Kontrol massal gagal: " + error, Toast.LENGTH_LONG).show();
+                return;
+            }
+            Toast.makeText(this, "Terkirim ke " + plan.written() + " device di " + scope
+                    + (invalid > 0 ? " (" + invalid + " id tidak valid)" : ""), Toast.LENGTH_LONG).show();
+            // Service berhenti sendiri kalau tadi tidak ada device otomatis
+            if ("auto".equals(request.mode)) AutoDecisionService.start(this);
+
+            // Hasil per device: tunggu ack ESP32 sampai timeout CommandTracker
+            if (request.status != null) {
+                uiHandler.postDelayed(() -> reportBulkAcks(plan), CommandTracker.get().timeoutMs());
+            }
+        });
+    }
 
-        UserItem(String uid, String name, String email, String role, String wa, boolean approved) {
-            this.uid = uid; this.name = name; this.email = email; this.role = role; this.wa = wa; this.approved = approved;
+    private void reportBulkAcks(BulkControl.Plan plan) {
+        CommandTracker tracker = CommandTracker.get();
+        tracker.sweep(SystemClock.elapsedRealtime());
+
+        StringBuilder missing = new StringBuilder();
+        for (BulkControl.Result r : plan.results) {
+            if (r.command == null) continue;
+            CommandTracker.State st = r.command.state();
+            if (st == CommandTracker.State.ACKED) continue;
+            if (missing.length() > 0) missing.append(", ");
+            missing.append(r.deviceId).append(" (").append(st.name().toLowerCase(Locale.ROOT)).append(')');
         }
+        int acked = plan.count(CommandTracker.State.ACKED);
+        Log.i(TAG, "bulk ack " + acked + "/" + plan.written() + (missing.length() > 0 ? " belum: " + missing : ""));
+        if (isFinishing() || isDestroyed()) return;
+        Toast.makeText(this, "Dikonfirmasi perangkat: " + acked + "/" + plan.written(), Toast.LENGTH_LONG).show();
     }
 
-    static class TempatItem {
-        final String tempatId, nama, kecamatan, kelurahan, createdBy, operatorId, operatorName, deviceId;
+    private void renderTempatList(List<TempatItem> items) {
+        tempatAdapter.submitList(items, () -> {
+            boolean empty = tempatAdapter.getItemCount() == 0;
+            tvTempatEmpty.setVisibility(empty ? View.VISIBLE : View.GONE);
+            if (empty) tvTempatEmpty.setText(hasMoreTempat() ? "Memuat tempat..." : "Belum ada tempat");
+            maybeLoadMoreTempat();
+        });
+    }
 
-        TempatItem(String tempatId, String nama, String kecamatan, String kelurahan,
-                   String createdBy, String operatorId, String operatorName, String deviceId) {
-            this.tempatId = tempatId;
-            this.nama = nama;
-            this.kecamatan = kecamatan;
-            this.kelurahan = kelurahan;
-            this.createdBy = createdBy;
-            this.operatorId = operatorId;
-            this.operatorName = operatorName;
-            this.deviceId = deviceId;
+    private boolean parseBoolLike(Object v) {
+        return TelemetryValues.parseBoolLike(v);
+    }
+
+    // ✅ helper aman untuk angka (FIX crash)
+    private double getDoubleSafe(@NonNull DataSnapshot parent, @NonNull String key, double def) {
+        return TelemetryValues.toDouble(parent.child(key).getValue(), def);
+    }
+
+    private String resolveUserLabel(String uid) {
+        if (TextUtils.isEmpty(uid)) return "-";
+        UserItem u = userStore.get(uid);
+        if (u != null) {
+            if (!TextUtils.isEmpty(u.name)) return u.name;
+            if (!TextUtils.isEmpty(u.email)) return u.email;
         }
+        return uid;
     }
 
+    // ===================== MODEL =====================
     static class SimpleItemSelectedListener implements android.widget.AdapterView.OnItemSelectedListener {
         private final Runnable onChange;
         SimpleItemSelectedListener(Runnable onChange) { this.onChange = onChange; }
@@ -0,0 +1,62 @@
+package com.example.hydro_guard;
+
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Aturan keputusan pompa dari hasil AI + field ai_* di kontrol_pompa/{deviceId}.
+ * Dipakai bersama ManualControlActivity (tombol / ganti mode) dan AutoDecisionService,
+ * supaya keputusan dari layar dan dari background tertulis dengan bentuk yang sama.
+ */
+final class AiDecision {
+
+    private AiDecision() {}
+
+    /**
+     * Probabilitas pompa ON di bawah 50% → tanah kering → siram; hasil aturan
+     * cadangan dipakai apa adanya (lihat PumpDecision).
+     * Mengisi ulang pumpLabel / pumpStatus / probabilityOn; return true = pompa ON.
+     */
+    static boolean applyRule(SmartIrrigationApi.PredictResult result) {
+        boolean shouldWater = PumpDecision.shouldWater(
+                result.usedFormat, result.probabilityOn, result.pumpStatus);
+        if (!PumpDecision.FORMAT_RULE.equals(result.usedFormat)) {
+            result.probabilityOn = PumpDecision.probOn(result.probabilityOn, result.pumpStatus);
+        }
+        result.pumpLabel = shouldWater
+                ? "Tanah kering, perlu disiram"
+                : "Tanah lembab, tidak perlu disiram";
+        result.pumpStatus = shouldWater ? 1 : 0;
+        return shouldWater;
+    }
+
+    /** Field ai_* untuk updateChildren / transaksi kontrol_pompa/{deviceId}. */
+    static Map<String, Object> aiFields(SmartIrrigationApi.PredictResult result) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("ai_label", result.pumpLabel);
+        data.put("ai_prob_on", result.probabilityOn);
+        data.put("ai_http", result.httpCode);
+        data.put("ai_used_url", result.usedUrl);
+        data.put("ai_used_format", result.usedFormat);
+        data.put("ai_fallback", result.fallback);
+        data.put("ai_breaker", result.breakerState);
+        data.put("ai_decidedAt", ServerValue.TIMESTAMP);
+
+        // Latensi per fase (ms); null = fase tidak terjadi (cache / lokal / fallback)
+        PredictMetrics.Timing t = result.timing;
+        data.put("ai_ms_total", t != null ? toMs(t.totalNs) : null);
+        data.put("ai_ms_queue", t != null ? toMs(t.queueNs) : null);
+        data.put("ai_ms_connect", t != null ? toMs(t.connectNs) : null);
+        data.put("ai_ms_write", t != null ? toMs(t.writeNs) : null);
+        data.put("ai_ms_ttfb", t != null ? toMs(t.ttfbNs) : null);
+        data.put("ai_ms_read", t != null ? toMs(t.readNs) : null);
+        data.put("ai_ms_parse", t != null ? toMs(t.parseNs) : null);
+        return data;
+    }
+
+    private static Double toMs(long ns) {
+        return ns < 0 ? null : Math.round(ns / 10_000.0) / 100.0;
+    }
+}
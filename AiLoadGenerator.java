@@ -0,0 +1,334 @@
+package com.example.hydro_guard;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator untuk SmartIrrigationApi (jalan di device/emulator, target
+ * standin_server.py). Open-loop: request dikirim pada laju tetap tanpa menunggu
+ * jawaban sebelumnya, jadi antrean & timeout terlihat seperti beban sungguhan.
+ *
+ * Pool, timeout, batching, deadline dll. diatur lewat SmartIrrigationApi.configure*
+ * sebelum start(); generator hanya memindah endpoint (dikembalikan setelah selesai).
+ * Matikan cache / model lokal dulu kalau ingin mengukur jalur HTTP murni.
+ *
+ * Android 9+: base URL http:// butuh cleartext diizinkan (network security config debug).
+ */
+public final class AiLoadGenerator {
+
+    private static final String TAG = "AI_LOADGEN";
+    private static final String EP = "loadgen";
+
+    public static final class Config {
+        public String baseUrl = "http://10.0.2.2:8000";
+        public double targetRps = 20.0;
+        public long durationMs = 30_000L;
+        /** Waktu tunggu request yang masih jalan setelah durasi habis. */
+        public long drainMs = 10_000L;
+        public long progressEveryMs = 1_000L;
+        public long seed = 42L;
+    }
+
+    public interface Listener {
+        void onProgress(Report partial);
+        void onFinished(Report report);
+    }
+
+    public static final class Report {
+        public boolean finished;
+        public String abortReason;
+        public String health;
+
+        public long sent, completed, ok, fromCache, local, fallback, errors, inFlight;
+        public long elapsedMs;
+        public double targetRps, achievedRps, throughputRps, errorRate;
+        public String breakerState;
+        public Map<String, Long> outcomes;
+        public String latencyTable;
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            if (abortReason != null) sb.append("DIBATALKAN: ").append(abortReason).append('\n');
+            sb.append(String.format(Locale.US,
+                    "%.1f dtk | target %.1f rps | kirim %.1f rps | selesai %.1f rps%n",
+                    elapsedMs / 1000.0, targetRps, achievedRps, throughputRps));
+            sb.append(String.format(Locale.US,
+                    "sent=%d completed=%d ok=%d cache=%d local=%d fallback=%d error=%d inFlight=%d errorRate=%.2f%%%n",
+                    sent, completed, ok, fromCache, local, fallback, errors, inFlight, errorRate * 100));
+            sb.append("breaker=").append(breakerState).append(" outcomes=").append(outcomes).append('\n');
+            if (latencyTable != null) sb.append(latencyTable);
+            return sb.toString();
+        }
+    }
+
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+    private static Run current;
+
+    private AiLoadGenerator() {}
+
+    /** false kalau masih ada run yang berjalan. */
+    public static synchronized boolean start(Config config, Listener listener) {
+        if (current != null) return false;
+        if (!(config.targetRps > 0)) throw new IllegalArgumentException("targetRps harus > 0");
+        if (config.durationMs <= 0) throw new IllegalArgumentException("durationMs harus > 0");
+
+        current = new Run(config, listener);
+        current.begin();
+        return true;
+    }
+
+    /** Hentikan pengiriman; request yang sudah jalan tetap ditunggu (drain). */
+    public static synchronized void stop() {
+        if (current != null) current.stopSending();
+    }
+
+    private static synchronized void finished(Run run) {
+        if (current == run) current = null;
+    }
+
+    // ===============================
+    // SATU RUN
+    // ===============================
+    private static final class Run {
+        final Config cfg;
+        final Listener listener;
+        final Random rnd;
+        final PredictMetrics metrics = new PredictMetrics();   // registry terpisah dari metrik app
+        final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hg-loadgen");
+            t.setDaemon(true);
+            return t;
+        });
+
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong ok = new AtomicLong();
+        final AtomicLong fromCache = new AtomicLong();
+        final AtomicLong local = new AtomicLong();
+        final AtomicLong fallback = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final ConcurrentHashMap<String, AtomicLong> outcomes = new ConcurrentHashMap<>();
+
+        String previousEndpoint;
+        String health;
+        long startNs;
+        long sendEndNs;
+        volatile boolean sending;
+        ScheduledFuture<?> ticker;
+        ScheduledFuture<?> progress;
+
+        Run(Config cfg, Listener listener) {
+            this.cfg = cfg;
+            this.listener = listener;
+            this.rnd = new Random(cfg.seed);
+        }
+
+        void begin() {
+            timer.execute(() -> {
+                try {
+                    health = fetchHealth(cfg.baseUrl);
+                } catch (IOException e) {
+                    finish("health gagal: " + e.getMessage());
+                    return;
+                }
+
+                previousEndpoint = SmartIrrigationApi.getEndpoint();
+                SmartIrrigationApi.configureEndpoint(cfg.baseUrl);
+                Log.i(TAG, "Mulai " + cfg.targetRps + " rps selama " + cfg.durationMs + " ms → " + cfg.baseUrl);
+
+                startNs = System.nanoTime();
+                sending = true;
+                long periodUs = Math.max(1L, Math.round(1_000_000.0 / cfg.targetRps));
+                ticker = timer.scheduleAtFixedRate(this::tick, 0, periodUs, TimeUnit.MICROSECONDS);
+                if (cfg.progressEveryMs > 0) {
+                    progress = timer.scheduleAtFixedRate(() -> {
+                        Report r = report(false, null);
+                        MAIN.post(() -> listener.onProgress(r));
+                    }, cfg.progressEveryMs, cfg.progressEveryMs, TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+
+        void tick() {
+            if (!sending) return;
+            if (System.nanoTime() - startNs >= TimeUnit.MILLISECONDS.toNanos(cfg.durationMs)) {
+                stopSending();
+                return;
+            }
+            fire();
+        }
+
+        void stopSending() {
+            try {
+                timer.execute(() -> {
+                    if (!sending) return;
+                    sending = false;
+                    sendEndNs = System.nanoTime();
+                    if (ticker != null) ticker.cancel(false);
+                    drain(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cfg.drainMs));
+                });
+            } catch (RejectedExecutionException ignored) {
+                // run sudah selesai
+            }
+        }
+
+        void drain(long untilNs) {
+            if (inFlight.get() == 0 || System.nanoTime() >= untilNs) {
+                finish(null);
+                return;
+            }
+            timer.schedule(() -> drain(untilNs), 50, TimeUnit.MILLISECONDS);
+        }
+
+        void fire() {
+            // Vektor fitur acak, rentang realistis telemetry ESP32
+            double humidity = 20 + rnd.nextInt(7501) / 100.0;
+            int rainfall = rnd.nextInt(5) == 0 ? 1 : 0;
+            int sunlight = rnd.nextInt(2);
+            double soil = 5 + rnd.nextInt(9001) / 100.0;
+
+            long t0 = System.nanoTime();
+            sent.incrementAndGet();
+            inFlight.incrementAndGet();
+
+            SmartIrrigationApi.predict(humidity, rainfall, sunlight, soil, new SmartIrrigationApi.PredictCallback() {
+                @Override
+                public void onSuccess(SmartIrrigationApi.PredictResult result) {
+                    String outcome;
+                    if (result.fallback) {
+                        fallback.incrementAndGet();
+                        outcome = "fallback_" + result.fallbackReason;
+                    } else if (result.fromCache) {
+                        fromCache.incrementAndGet();
+                        outcome = "cache";
+                    } else if (SmartIrrigationApi.LOCAL_URL.equals(result.usedUrl)) {
+                        local.incrementAndGet();
+                        outcome = "local";
+                    } else {
+                        ok.incrementAndGet();
+                        outcome = PredictMetrics.OUT_OK;
+                    }
+                    done(t0, outcome, result.timing);
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    errors.incrementAndGet();
+                    done(t0, PredictMetrics.OUT_ERROR, null);
+                }
+            });
+        }
+
+        void done(long t0, String outcome, PredictMetrics.Timing phases) {
+            // total = end-to-end sampai callback di main thread (termasuk antre di Handler)
+            PredictMetrics.Timing t = (phases != null) ? phases.copy() : new PredictMetrics.Timing();
+            t.totalNs = System.nanoTime() - t0;
+            metrics.record(EP, outcome, t);
+
+            AtomicLong c = outcomes.get(outcome);
+            if (c == null) {
+                AtomicLong created = new AtomicLong();
+                c = outcomes.putIfAbsent(outcome, created);
+                if (c == null) c = created;
+            }
+            c.incrementAndGet();
+
+            completed.incrementAndGet();
+            inFlight.decrementAndGet();
+        }
+
+        void finish(String abortReason) {
+            if (progress != null) progress.cancel(false);
+            if (ticker != null) ticker.cancel(false);
+            sending = false;
+            if (previousEndpoint != null) {
+                SmartIrrigationApi.configureEndpoint(
+                        previousEndpoint.equals(SmartIrrigationApi.AI_URL) ? null : baseOf(previousEndpoint));
+            }
+
+            Report r = report(true, abortReason);
+            Log.i(TAG, "Selesai\n" + r);
+            timer.shutdown();
+            AiLoadGenerator.finished(this);
+            MAIN.post(() -> listener.onFinished(r));
+        }
+
+        Report report(boolean finished, String abortReason) {
+            Report r = new Report();
+            r.finished = finished;
+            r.abortReason = abortReason;
+            r.health = health;
+            r.targetRps = cfg.targetRps;
+
+            long now = System.nanoTime();
+            long sendWindowNs = (sendEndNs > 0 ? sendEndNs : now) - startNs;
+            r.elapsedMs = startNs > 0 ? TimeUnit.NANOSECONDS.toMillis(now - startNs) : 0;
+
+            r.sent = sent.get();
+            r.completed = completed.get();
+            r.ok = ok.get();
+            r.fromCache = fromCache.get();
+            r.local = local.get();
+            r.fallback = fallback.get();
+            r.errors = errors.get();
+            r.inFlight = inFlight.get();
+
+            double sendSec = sendWindowNs / 1e9;
+            double totalSec = r.elapsedMs / 1000.0;
+            r.achievedRps = sendSec > 0 ? r.sent / sendSec : 0;
+            r.throughputRps = totalSec > 0 ? r.completed / totalSec : 0;
+            r.errorRate = r.completed > 0 ? (double) (r.errors + r.fallback) / r.completed : 0;
+
+            r.breakerState = SmartIrrigationApi.getBreakerState().name();
+            Map<String, Long> o = new TreeMap<>();
+            for (Map.Entry<String, AtomicLong> e : outcomes.entrySet()) o.put(e.getKey(), e.getValue().get());
+            r.outcomes = o;
+            r.latencyTable = metrics.dump();
+            return r;
+        }
+    }
+
+    private static String baseOf(String predictUrl) {
+        String suffix = "/api/predict";
+        return predictUrl.endsWith(suffix) ? predictUrl.substring(0, predictUrl.length() - suffix.length()) : predictUrl;
+    }
+
+    /** GET /health (isi body, maks 500 karakter); gagal → IOException. */
+    private static String fetchHealth(String baseUrl) throws IOException {
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        HttpURLConnection conn = (HttpURLConnection) new URL(base + "/health").openConnection();
+        try {
+            conn.setConnectTimeout(5000);
+            conn.setReadTimeout(5000);
+            int code = conn.getResponseCode();
+            InputStream is = (code >= 200 && code < 300) ? conn.getInputStream() : conn.getErrorStream();
+            PredictCodec.Buffer buf = new PredictCodec.Buffer(512);
+            if (is != null) buf.readFully(is);
+            String body = buf.preview(500);
+            if (code != 200) throw new IOException("HTTP " + code + ": " + body);
+            return body;
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
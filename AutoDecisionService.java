@@ -0,0 +1,323 @@
+package com.example.hydro_guard;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ServiceInfo;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mesin keputusan mode otomatis di background (foreground service, tanpa activity).
+ *
+ * Memantau kontrol_pompa: untuk tiap device ber-mode otomatis dipasang listener
+ * telemetry/{id}/latest. Telemetry yang fiturnya berubah berarti masuk antrean
+ * AutoDecisionScheduler (rate limit per device + antrean terbatas), lalu hasil AI
+ * ditulis ke field ai_* yang sama dengan ManualControlActivity.
+ *
+ * Keputusan ditulis lewat transaksi yang mengecek mode masih otomatis, jadi pindah ke
+ * manual saat prediksi sedang jalan tidak ditimpa balik.
+ *
+ * Kalau tidak ada lagi device ber-mode otomatis, service berhenti sendiri (notifikasi
+ * hilang); layar yang mengubah mode ke otomatis memanggil start() lagi.
+ * Manifest butuh <service android:foregroundServiceType="dataSync"> dan izin
+ * FOREGROUND_SERVICE + FOREGROUND_SERVICE_DATA_SYNC (wajib di API 34+).
+ */
+public class AutoDecisionService extends Service {
+
+    private static final String TAG = "AutoDecision";
+    private static final String CH_ID = "hydro_auto_mode";
+    private static final String CH_NAME = "Hydro Guard Mode Otomatis";
+    private static final int NOTIF_ID = 4201;
+    private static final String LOCAL_MODEL_ASSET = "forest_model.bin";
+
+    /** Aman dipanggil berulang; service hanya dibuat sekali. */
+    public static void start(Context context) {
+        ContextCompat.startForegroundService(context, new Intent(context, AutoDecisionService.class));
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final AutoDecisionScheduler scheduler = new AutoDecisionScheduler();
+    private final TelemetryFeatureStream features = new TelemetryFeatureStream();
+    private final Map<String, DeviceLiveHub.Subscription> telemetrySubs = new HashMap<>();
+    private final Runnable drain = this::drainQueue;
+    private final CommandTracker commands = CommandTracker.get();
+
+    private DeviceLiveHub hub;
+    private DatabaseReference pumpsRef;
+    private ChildEventListener modeListener;
+    private boolean initialLoaded = false;   // semua child awal kontrol_pompa sudah masuk
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        createChannelIfNeeded();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            startForeground(NOTIF_ID, buildNotification(0), ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC);
+        } else {
+            startForeground(NOTIF_ID, buildNotification(0));
+        }
+
+        FirebaseDatabase db = HelperClass.db();
+        hub = new DeviceLiveHub(db);
+        pumpsRef = db.getReference("kontrol_pompa");
+        ensureLocalModel();
+
+        modeListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot child, String previousChildName) {
+                onModeSnapshot(child);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot child, String previousChildName) {
+                onModeSnapshot(child);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot child) {
+                if (child.getKey() != null) setAuto(child.getKey(), false);
+            }
+
+            @Override public void onChildMoved(@NonNull DataSnapshot child, String previousChildName) {}
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "kontrol_pompa listener cancelled: " + error.getMessage());
+            }
+        };
+        pumpsRef.addChildEventListener(modeListener);
+
+        // Event value selalu datang setelah semua onChildAdded awal di lokasi yang sama
+        pumpsRef.addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                initialLoaded = true;
+                stopIfIdle();
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.w(TAG, "kontrol_pompa awal: " + error.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_STICKY;
+    }
+
+    @Nullable
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(drain);
+        if (pumpsRef != null && modeListener != null) pumpsRef.removeEventListener(modeListener);
+        for (DeviceLiveHub.Subscription sub : telemetrySubs.values()) sub.cancel();
+        telemetrySubs.clear();
+        if (hub != null) hub.shutdown();
+        Log.i(TAG, "stop: " + scheduler + " " + features);
+    }
+
+    // ===================== MODE =====================
+    // Sama dengan dashboard / ManualControlActivity: selain "manual" = otomatis
+    private static boolean isAutoMode(String mode) {
+        return !TextUtils.isEmpty(mode) && !mode.equalsIgnoreCase("manual");
+    }
+
+    private void onModeSnapshot(DataSnapshot child) {
+        String deviceId = child.getKey();
+        if (deviceId == null) return;
+        setAuto(deviceId, isAutoMode(child.child("mode").getValue(String.class)));
+
+        // Ack ESP32 untuk perintah yang ditulis service (lihat CommandTracker)
+        long cmdSeq = (long) TelemetryValues.toDouble(child.child("cmdSeq").getValue(), -1);
+        if (cmdSeq >= 0) commands.observeSeq(deviceId, cmdSeq);
+        String ackId = child.child("ackId").getValue(String.class);
+        long ackSeq = (long) TelemetryValues.toDouble(child.child("ackSeq").getValue(), -1);
+        long rttMs = commands.onAck(deviceId, ackId, ackSeq, SystemClock.elapsedRealtime());
+        if (rttMs >= 0) Log.i(TAG, "ACK " + deviceId + " " + ackId + " rtt=" + rttMs + "ms");
+    }
+
+    private void setAuto(String deviceId, boolean auto) {
+        if (auto == scheduler.isAuto(deviceId)) return;
+        scheduler.setAuto(deviceId, auto);
+
+        if (auto) {
+            telemetrySubs.put(deviceId, hub.subscribeTelemetry(deviceId, new DeviceLiveHub.Observer() {
+                @Override public void onValue(@NonNull DataSnapshot s) {
+                    onTelemetry(deviceId, s);
+                }
+
+                @Override public void onError(@NonNull DatabaseError error) {
+                    Log.w(TAG, "telemetry " + deviceId + ": " + error.getMessage());
+                }
+            }));
+        } else {
+            DeviceLiveHub.Subscription sub = telemetrySubs.remove(deviceId);
+            if (sub != null) sub.cancel();
+            features.remove(deviceId);
+        }
+        if (!stopIfIdle()) updateNotification();
+    }
+
+    /** Tidak ada device mode otomatis → hentikan service + notifikasinya. true kalau berhenti. */
+    private boolean stopIfIdle() {
+        if (!initialLoaded || scheduler.autoCount() > 0) return false;
+        Log.i(TAG, "Tidak ada device mode otomatis, service berhenti");
+        stopForeground(true);
+        stopSelf();
+        return true;
+    }
+
+    // ===================== KEPUTUSAN =====================
+    private void onTelemetry(String deviceId, DataSnapshot s) {
+        if (!s.exists()) return;
+        // Fitur dari EMA + hysteresis semua update, bukan satu sampel (TelemetryFeatureStream)
+        if (!features.offer(deviceId, k -> s.child(k).getValue(), System.currentTimeMillis())) return;
+        if (!SmartIrrigationApi.isConfigured()) return;   // termasuk model lokal
+        AutoDecisionScheduler.Features f = features.features(deviceId);
+        if (scheduler.offer(deviceId, f, SystemClock.elapsedRealtime())) drainQueue();
+    }
+
+    /** Jalankan job yang sudah boleh jalan; sisanya dijadwalkan saat rate limit lewat. */
+    private void drainQueue() {
+        handler.removeCallbacks(drain);
+
+        long now = SystemClock.elapsedRealtime();
+        if (commands.sweep(now) > 0) Log.w(TAG, "Perintah tanpa ack:\n" + commands.dump());
+
+        AutoDecisionScheduler.Job job;
+        while ((job = scheduler.poll(now)) != null) run(job);
+
+        long due = scheduler.nextDueInMs(now);
+        if (due > 0) handler.postDelayed(drain, due);
+    }
+
+    private void run(AutoDecisionScheduler.Job job) {
+        String deviceId = job.deviceId;
+        AutoDecisionScheduler.Features f = job.features;
+        Log.i(TAG, "AI " + deviceId + " " + f + " | " + features.stats(deviceId));
+
+        SmartIrrigationApi.Admission admission = SmartIrrigationApi.predictForDevice(
+                deviceId, f.humidity, f.rainfall, f.sunlight, f.soilMoisture, false,
+                new SmartIrrigationApi.PredictCallback() {
+                    @Override
+                    public void onSuccess(SmartIrrigationApi.PredictResult result) {
+                        writeDecision(deviceId, AiDecision.applyRule(result), result);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "AI " + deviceId + " gagal: " + e.getMessage());
+                        finish(deviceId, false);
+                    }
+                });
+
+        // Baru saja ada prediksi lain untuk device ini (mis. dari ManualControlActivity)
+        if (admission == SmartIrrigationApi.Admission.COOLDOWN) finish(deviceId, false);
+    }
+
+    private void writeDecision(String deviceId, boolean pumpOn, SmartIrrigationApi.PredictResult result) {
+        Map<String, Object> ai = AiDecision.aiFields(result);
+        CommandTracker.Command cmd = commands.issue(deviceId, pumpOn, SystemClock.elapsedRealtime());
+        pumpsRef.child(deviceId).runTransaction(new Transaction.Handler() {
+            @NonNull
+            @Override
+            public Transaction.Result doTransaction(@NonNull MutableData current) {
+                // Cache lokal kosong → commit apa adanya, server mengulang dengan data asli
+                if (current.getValue() == null) return Transaction.success(current);
+                if (!isAutoMode(current.child("mode").getValue(String.class))) return Transaction.abort();
+
+                current.child("status").setValue(pumpOn);
+                current.child("updatedBy").setValue("service_ai");
+                current.child("updatedAt").setValue(ServerValue.TIMESTAMP);
+                current.child("cmdId").setValue(cmd.id);
+                current.child("cmdSeq").setValue(cmd.seq);
+                for (Map.Entry<String, Object> e : ai.entrySet()) current.child(e.getKey()).setValue(e.getValue());
+                return Transaction.success(current);
+            }
+
+            @Override
+            public void onComplete(DatabaseError error, boolean committed, DataSnapshot snapshot) {
+                if (error != null) Log.w(TAG, "tulis keputusan " + deviceId + ": " + error.getMessage());
+                if (!committed || error != null) commands.cancel(cmd);
+                finish(deviceId, committed && error == null);
+            }
+        });
+    }
+
+    private void finish(String deviceId, boolean decided) {
+        scheduler.complete(deviceId, decided, SystemClock.elapsedRealtime());
+        drainQueue();
+    }
+
+    // ===================== SETUP =====================
+    private void ensureLocalModel() {
+        if (SmartIrrigationApi.getLocalModel() != null) return;
+        try {
+            SmartIrrigationApi.loadLocalModelAsync(getAssets().open(LOCAL_MODEL_ASSET), true);
+        } catch (IOException e) {
+            Log.i(TAG, "Model lokal tidak ada (" + LOCAL_MODEL_ASSET + "), pakai API");
+        }
+    }
+
+    private void createChannelIfNeeded() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager nm = getSystemService(NotificationManager.class);
+            if (nm == null) return;
+
+            NotificationChannel ch = new NotificationChannel(CH_ID, CH_NAME, NotificationManager.IMPORTANCE_LOW);
+            ch.setDescription("Status sistem cerdas yang berjalan di background");
+            nm.createNotificationChannel(ch);
+        }
+    }
+
+    private Notification buildNotification(int autoDevices) {
+        return new NotificationCompat.Builder(this, CH_ID)
+                .setSmallIcon(R.drawable.ic_stat_notif)
+                .setContentTitle("Sistem cerdas aktif")
+                .setContentText(autoDevices + " device mode otomatis dipantau")
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setOngoing(true)
+                .build();
+    }
+
+    private void updateNotification() {
+        NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
+        if (nm != null) nm.notify(NOTIF_ID, buildNotification(scheduler.autoCount()));
+    }
+}
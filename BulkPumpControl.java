@@ -0,0 +1,60 @@
+package com.example.hydro_guard;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.database.ServerValue;
+
+import java.util.Collection;
+
+/**
+ * Kontrol pompa massal di atas HelperClass.db(): satu updateChildren multi-lokasi
+ * untuk semua device (lihat BulkControl), bukan N tulis terpisah.
+ *
+ * Hasil tulis atomik (semua / tidak sama sekali); konfirmasi per device datang
+ * belakangan lewat ack ESP32 di CommandTracker (Result.command.state()).
+ */
+public final class BulkPumpControl {
+
+    private static final String TAG = "BulkPumpControl";
+
+    public interface Callback {
+        /** error null = semua device WRITTEN tertulis. */
+        void onComplete(@NonNull BulkControl.Plan plan, @Nullable String error);
+    }
+
+    private BulkPumpControl() {}
+
+    public static BulkControl.Plan apply(
+            @NonNull Collection<String> deviceIds,
+            @NonNull BulkControl.Request request,
+            @NonNull Callback cb
+    ) {
+        CommandTracker tracker = CommandTracker.get();
+        BulkControl.Plan plan = BulkControl.plan(deviceIds, request, tracker,
+                ServerValue.TIMESTAMP, SystemClock.elapsedRealtime());
+
+        if (plan.written() == 0) {
+            cb.onComplete(plan, "Tidak ada device yang valid");
+            return plan;
+        }
+
+        Log.i(TAG, "bulk mode=" + request.mode + " status=" + request.status
+                + " devices=" + plan.written() + " paths=" + plan.updates.size());
+
+        HelperClass.db().getReference().updateChildren(plan.updates)
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        cb.onComplete(plan, null);
+                        return;
+                    }
+                    plan.markFailed(tracker);
+                    Exception e = task.getException();
+                    cb.onComplete(plan, (e == null || e.getMessage() == null) ? "unknown" : e.getMessage());
+                });
+        return plan;
+    }
+}
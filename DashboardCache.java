@@ -0,0 +1,254 @@
+package com.example.hydro_guard;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache lokal dashboard admin (SQLite): users, tempat dan telemetry terakhir per device.
+ *
+ * Dipakai untuk cold start: tabel langsung dirender dari sini, lalu dikoreksi oleh
+ * delta dari server. Isinya hanya salinan → skema beda versi cukup dibuang dan diisi
+ * ulang (DB_VERSION), dan tiap tabel dibatasi jumlah barisnya (yang paling lama
+ * tidak ditulis dibuang lebih dulu).
+ *
+ * Semua method blocking: panggil dari thread background, bukan main thread.
+ */
+public final class DashboardCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "DashboardCache";
+
+    private static final String DB_NAME = "hydroguard_dashboard_cache.db";
+    // Naikkan kalau kolom / arti data berubah: cache lama dibuang, bukan dimigrasi
+    private static final int DB_VERSION = 1;
+
+    public static final int MAX_USERS = 5000;
+    public static final int MAX_TEMPAT = 5000;
+    public static final int MAX_TELEMETRY = 1000;
+
+    private static final String T_USERS = "users";
+    private static final String T_TEMPAT = "tempat";
+    private static final String T_TELEMETRY = "telemetry";
+
+    /** Isi cache saat dibaca (cold start). */
+    public static final class Snapshot {
+        public final List<UserItem> users = new ArrayList<>();
+        public final List<TempatItem> tempat = new ArrayList<>();
+        // deviceId → field telemetry/{id}/latest (nilai primitif saja)
+        public final Map<String, Map<String, Object>> telemetry = new LinkedHashMap<>();
+    }
+
+    /** Perubahan yang dikumpulkan di main thread lalu ditulis dalam satu transaksi. null = hapus. */
+    public static final class Batch {
+        final Map<String, UserItem> users = new HashMap<>();
+        final Map<String, TempatItem> tempat = new HashMap<>();
+        final Map<String, Map<String, Object>> telemetry = new HashMap<>();
+
+        public void putUser(String uid, UserItem u) { users.put(uid, u); }
+        public void putTempat(String tempatId, TempatItem t) { tempat.put(tempatId, t); }
+        public void putTelemetry(String deviceId, Map<String, Object> fields) { telemetry.put(deviceId, fields); }
+
+        public boolean isEmpty() {
+            return users.isEmpty() && tempat.isEmpty() && telemetry.isEmpty();
+        }
+    }
+
+    public DashboardCache(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_USERS + " ("
+                + "uid TEXT PRIMARY KEY, name TEXT, email TEXT, role TEXT, wa TEXT,"
+                + " approved INTEGER NOT NULL, written_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + T_TEMPAT + " ("
+                + "tempat_id TEXT PRIMARY KEY, nama TEXT, kecamatan TEXT, kelurahan TEXT,"
+                + " created_by TEXT, operator_id TEXT, operator_name TEXT, device_id TEXT,"
+                + " written_at INTEGER NOT NULL)");
+        db.execSQL("CREATE TABLE " + T_TELEMETRY + " ("
+                + "device_id TEXT PRIMARY KEY, fields TEXT NOT NULL, written_at INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        dropAll(db);
+        onCreate(db);
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        dropAll(db);
+        onCreate(db);
+    }
+
+    private static void dropAll(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + T_USERS);
+        db.execSQL("DROP TABLE IF EXISTS " + T_TEMPAT);
+        db.execSQL("DROP TABLE IF EXISTS " + T_TELEMETRY);
+    }
+
+    // ===================== BACA =====================
+    /** Snapshot kosong kalau cache belum ada / rusak (dashboard tetap jalan dari server). */
+    public Snapshot load() {
+        Snapshot out = new Snapshot();
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+
+            try (Cursor c = db.query(T_USERS,
+                    new String[] {"uid", "name", "email", "role", "wa", "approved"},
+                    null, null, null, null, null, String.valueOf(MAX_USERS))) {
+                while (c.moveToNext()) {
+                    out.users.add(new UserItem(c.getString(0), c.getString(1), c.getString(2),
+                            c.getString(3), c.getString(4), c.getInt(5) != 0));
+                }
+            }
+
+            try (Cursor c = db.query(T_TEMPAT,
+                    new String[] {"tempat_id", "nama", "kecamatan", "kelurahan",
+                            "created_by", "operator_id", "operator_name", "device_id"},
+                    null, null, null, null, "tempat_id", String.valueOf(MAX_TEMPAT))) {
+                while (c.moveToNext()) {
+                    out.tempat.add(new TempatItem(c.getString(0), c.getString(1), c.getString(2),
+                            c.getString(3), c.getString(4), c.getString(5), c.getString(6), c.getString(7)));
+                }
+            }
+
+            try (Cursor c = db.query(T_TELEMETRY, new String[] {"device_id", "fields"},
+                    null, null, null, null, null, String.valueOf(MAX_TELEMETRY))) {
+                while (c.moveToNext()) {
+                    Map<String, Object> fields = decodeFields(c.getString(1));
+                    if (fields != null) out.telemetry.put(c.getString(0), fields);
+                }
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "load gagal, mulai tanpa cache: " + e.getMessage());
+        }
+        return out;
+    }
+
+    // ===================== TULIS =====================
+    public void write(Batch b) {
+        if (b == null || b.isEmpty()) return;
+        long now = System.currentTimeMillis();
+        SQLiteDatabase db;
+        try {
+            db = getWritableDatabase();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "write gagal: " + e.getMessage());
+            return;
+        }
+
+        db.beginTransaction();
+        try {
+            for (Map.Entry<String, UserItem> e : b.users.entrySet()) {
+                UserItem u = e.getValue();
+                if (u == null) {
+                    db.delete(T_USERS, "uid = ?", new String[] {e.getKey()});
+                    continue;
+                }
+                ContentValues v = new ContentValues();
+                v.put("uid", u.uid);
+                v.put("name", u.name);
+                v.put("email", u.email);
+                v.put("role", u.role);
+                v.put("wa", u.wa);
+                v.put("approved", u.approved ? 1 : 0);
+                v.put("written_at", now);
+                db.replace(T_USERS, null, v);
+            }
+
+            for (Map.Entry<String, TempatItem> e : b.tempat.entrySet()) {
+                TempatItem t = e.getValue();
+                if (t == null) {
+                    db.delete(T_TEMPAT, "tempat_id = ?", new String[] {e.getKey()});
+                    continue;
+                }
+                ContentValues v = new ContentValues();
+                v.put("tempat_id", t.tempatId);
+                v.put("nama", t.nama);
+                v.put("kecamatan", t.kecamatan);
+                v.put("kelurahan", t.kelurahan);
+                v.put("created_by", t.createdBy);
+                v.put("operator_id", t.operatorId);
+                v.put("operator_name", t.operatorName);
+                v.put("device_id", t.deviceId);
+                v.put("written_at", now);
+                db.replace(T_TEMPAT, null, v);
+            }
+
+            for (Map.Entry<String, Map<String, Object>> e : b.telemetry.entrySet()) {
+                if (e.getValue() == null) {
+                    db.delete(T_TELEMETRY, "device_id = ?", new String[] {e.getKey()});
+                    continue;
+                }
+                ContentValues v = new ContentValues();
+                v.put("device_id", e.getKey());
+                v.put("fields", encodeFields(e.getValue()));
+                v.put("written_at", now);
+                db.replace(T_TELEMETRY, null, v);
+            }
+
+            trim(db, T_USERS, MAX_USERS);
+            trim(db, T_TEMPAT, MAX_TEMPAT);
+            trim(db, T_TELEMETRY, MAX_TELEMETRY);
+            db.setTransactionSuccessful();
+        } catch (RuntimeException e) {
+            Log.w(TAG, "write gagal: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Buang baris yang paling lama tidak ditulis sampai jumlahnya <= max. */
+    private static void trim(SQLiteDatabase db, String table, int max) {
+        long n = DatabaseUtils.queryNumEntries(db, table);
+        if (n <= max) return;
+        db.execSQL("DELETE FROM " + table + " WHERE rowid IN (SELECT rowid FROM " + table
+                + " ORDER BY written_at ASC LIMIT " + (n - max) + ")");
+    }
+
+    // ===================== TELEMETRY (JSON) =====================
+    private static String encodeFields(Map<String, Object> fields) {
+        JSONObject o = new JSONObject();
+        for (Map.Entry<String, Object> e : fields.entrySet()) {
+            Object v = e.getValue();
+            if (!(v instanceof String || v instanceof Number || v instanceof Boolean)) continue;
+            try {
+                o.put(e.getKey(), v);
+            } catch (JSONException ignored) {
+                // NaN / Infinity: lewati field ini saja
+            }
+        }
+        return o.toString();
+    }
+
+    private static Map<String, Object> decodeFields(String json) {
+        try {
+            JSONObject o = new JSONObject(json);
+            Map<String, Object> out = new HashMap<>();
+            Iterator<String> keys = o.keys();
+            while (keys.hasNext()) {
+                String k = keys.next();
+                out.put(k, o.get(k));
+            }
+            return out;
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.hydro_guard;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Listener realtime per device yang dipakai bersama oleh banyak view.
+ *
+ * - Satu ValueEventListener per node (telemetry/{id}/latest, kontrol_pompa/{id}),
+ *   berapa pun card yang menampilkan device itu; nilai di-fan-out ke semua observer.
+ * - Ref-count: listener dilepas setelah observer terakhir cancel DAN grace period
+ *   lewat, jadi render ulang (ganti filter / update /tempat) tidak subscribe ulang.
+ * - Observer baru langsung menerima snapshot terakhir (tanpa "memuat..." ulang).
+ *
+ * Semua method dipanggil dari main thread (callback Firebase juga di main thread).
+ */
+public final class DeviceLiveHub {
+
+    private static final String TAG = "DeviceLiveHub";
+
+    public static final long DEFAULT_GRACE_MS = 5000L;
+
+    public interface Observer {
+        void onValue(@NonNull DataSnapshot s);
+        void onError(@NonNull DatabaseError error);
+    }
+
+    /** Handle satu observer; cancel() boleh dipanggil berkali-kali. */
+    public final class Subscription {
+        private final Node node;
+        private final Observer observer;
+        private boolean cancelled = false;
+
+        private Subscription(Node node, Observer observer) {
+            this.node = node;
+            this.observer = observer;
+        }
+
+        public void cancel() {
+            if (cancelled) return;
+            cancelled = true;
+            release(node, observer);
+        }
+    }
+
+    /** Satu node RTDB + listener-nya + observer yang sedang terpasang. */
+    private final class Node implements ValueEventListener {
+        final String path;
+        final DatabaseReference ref;
+        final List<Observer> observers = new ArrayList<>();
+        DataSnapshot last;
+        DatabaseError lastError;
+        final Runnable teardown = this::teardownIfIdle;
+
+        Node(String path) {
+            this.path = path;
+            this.ref = db.getReference(path);
+        }
+
+        @Override public void onDataChange(@NonNull DataSnapshot s) {
+            last = s;
+            lastError = null;
+            // Salin: observer boleh cancel / subscribe di dalam callback
+            for (Observer o : observers.toArray(new Observer[0])) o.onValue(s);
+        }
+
+        @Override public void onCancelled(@NonNull DatabaseError error) {
+            lastError = error;
+            for (Observer o : observers.toArray(new Observer[0])) o.onError(error);
+        }
+
+        private void teardownIfIdle() {
+            if (!observers.isEmpty() || nodes.get(path) != this) return;
+            ref.removeEventListener(this);
+            nodes.remove(path);
+            Log.d(TAG, "detach " + path);
+        }
+    }
+
+    private final FirebaseDatabase db;
+    private final long graceMs;
+    private final Handler main = new Handler(Looper.getMainLooper());
+    private final Map<String, Node> nodes = new HashMap<>();
+
+    public DeviceLiveHub(@NonNull FirebaseDatabase db) {
+        this(db, DEFAULT_GRACE_MS);
+    }
+
+    public DeviceLiveHub(@NonNull FirebaseDatabase db, long graceMs) {
+        this.db = db;
+        this.graceMs = Math.max(0L, graceMs);
+    }
+
+    // ===================== API =====================
+    public Subscription subscribeTelemetry(@NonNull String deviceId, @NonNull Observer o) {
+        return subscribe("telemetry/" + deviceId + "/latest", o);
+    }
+
+    public Subscription subscribePump(@NonNull String deviceId, @NonNull Observer o) {
+        return subscribe("kontrol_pompa/" + deviceId, o);
+    }
+
+    public Subscription subscribe(@NonNull String path, @NonNull Observer o) {
+        Node node = nodes.get(path);
+        if (node == null) {
+            node = new Node(path);
+            nodes.put(path, node);
+            node.ref.addValueEventListener(node);
+            Log.d(TAG, "attach " + path);
+        } else {
+            main.removeCallbacks(node.teardown);
+        }
+        node.observers.add(o);
+
+        // Replay nilai terakhir ke observer baru
+        if (node.last != null) o.onValue(node.last);
+        else if (node.lastError != null) o.onError(node.lastError);
+
+        return new Subscription(node, o);
+    }
+
+    /** Jumlah node yang listener-nya masih terpasang (termasuk yang menunggu grace). */
+    public int activeNodeCount() {
+        return nodes.size();
+    }
+
+    /** Lepas semua listener sekarang juga (onDestroy). */
+    public void shutdown() {
+        for (Node n : nodes.values()) {
+            main.removeCallbacks(n.teardown);
+            n.ref.removeEventListener(n);
+            n.observers.clear();
+        }
+        nodes.clear();
+    }
+
+    // ===================== internal =====================
+    private void release(Node node, Observer o) {
+        node.observers.remove(o);
+        if (node.observers.isEmpty() && nodes.get(node.path) == node) {
+            main.removeCallbacks(node.teardown);
+            main.postDelayed(node.teardown, graceMs);
+        }
+    }
+}
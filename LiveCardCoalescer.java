@@ -0,0 +1,75 @@
+package com.example.hydro_guard;
+
+import android.view.Choreographer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Penampung update live untuk card dashboard: hanya nilai terbaru per key (deviceId)
+ * yang disimpan, lalu semuanya diterapkan sekaligus di frame berikutnya, paling sering
+ * sekali per minIntervalMs. Telemetry yang masuk beruntun di antara dua flush cukup
+ * dirender sekali (satu setText / layout pass, bukan satu per event).
+ *
+ * Dipanggil dari main thread saja.
+ */
+public final class LiveCardCoalescer<V> {
+
+    public interface Sink<V> {
+        void apply(String key, V value);
+    }
+
+    private final Sink<V> sink;
+    private final long minIntervalNs;
+    private Map<String, V> pending = new LinkedHashMap<>();
+    private Map<String, V> flushing = new LinkedHashMap<>();
+    private final Choreographer.FrameCallback frame = this::flush;
+
+    private boolean scheduled = false;
+    private long lastFlushNs = 0L;
+
+    /** @param minIntervalMs 0 = tiap frame */
+    public LiveCardCoalescer(Sink<V> sink, long minIntervalMs) {
+        this.sink = sink;
+        this.minIntervalNs = Math.max(0L, minIntervalMs) * 1_000_000L;
+    }
+
+    /** Simpan nilai terbaru; nilai lama untuk key yang sama (belum dirender) dibuang. */
+    public void offer(String key, V value) {
+        pending.put(key, value);
+        if (scheduled) return;
+        scheduled = true;
+
+        long waitNs = lastFlushNs + minIntervalNs - System.nanoTime();
+        if (lastFlushNs == 0L || waitNs <= 0) {
+            Choreographer.getInstance().postFrameCallback(frame);
+        } else {
+            Choreographer.getInstance().postFrameCallbackDelayed(frame, waitNs / 1_000_000L + 1);
+        }
+    }
+
+    /** Buang nilai yang belum dirender untuk key ini (mis. error sudah ditampilkan langsung). */
+    public void drop(String key) {
+        pending.remove(key);
+    }
+
+    /** Buang semua nilai tertunda + batalkan frame (onStop / card tidak live). */
+    public void clear() {
+        pending.clear();
+        if (scheduled) Choreographer.getInstance().removeFrameCallback(frame);
+        scheduled = false;
+    }
+
+    private void flush(long frameTimeNanos) {
+        scheduled = false;
+        lastFlushNs = System.nanoTime();
+        if (pending.isEmpty()) return;
+
+        // Tukar buffer: sink boleh memanggil offer() lagi (masuk ke flush berikutnya)
+        Map<String, V> batch = pending;
+        pending = flushing;
+        flushing = batch;
+        for (Map.Entry<String, V> e : batch.entrySet()) sink.apply(e.getKey(), e.getValue());
+        batch.clear();
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.hydro_guard;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
@@ -21,6 +24,7 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -29,6 +33,7 @@ public class ManualControlActivity extends AppCompatActivity {
 
     private static final String DEFAULT_DEVICE_ID = "HG-01";
     private static final String TAG = "AI_CALL";
+    private static final String LOCAL_MODEL_ASSET = "forest_model.bin";
 
     private ImageView btnBack;
     private RadioGroup modeGroup;
@@ -45,11 +50,25 @@ public class ManualControlActivity extends AppCompatActivity {
     private DatabaseReference telemetryRef;
     private ValueEventListener pumpListener;
 
+    // Semua update telemetry/{id}/latest masuk ke sini; keputusan memakai fitur yang
+    // sudah dihaluskan tanpa baca ulang node (lihat TelemetryFeatureStream)
+    private final TelemetryFeatureStream featureStream = new TelemetryFeatureStream();
+    private ValueEventListener telemetryListener;
+
     private boolean suppressModeWrite = false;
 
+    // Status tombol saja; dedup & cooldown per device ada di SmartIrrigationApi.predictForDevice
     private boolean aiInFlight = false;
-    private long lastAiCallMs = 0L;
-    private static final long AI_COOLDOWN_MS = 1500L;
+
+    // Perintah pompa → ack ESP32 (cmdId / ackId); UI "menunggu perangkat" selama pending
+    private final CommandTracker commands = CommandTracker.get();
+    private final Handler uiHandler = new Handler(Looper.getMainLooper());
+    private final Runnable ackTimeout = this::onAckTimeout;
+
+    // Tap beruntun digabung: hanya niat terakhir dalam CONTROL_WINDOW_MS yang ditulis
+    private static final long CONTROL_WINDOW_MS = 350L;
+    private final OptimisticControl control = new OptimisticControl();
+    private final Runnable controlFlush = this::flushControl;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,9 +87,12 @@ public class ManualControlActivity extends AppCompatActivity {
         pumpRef = db.getReference("kontrol_pompa").child(deviceId);
         telemetryRef = db.getReference("telemetry").child(deviceId).child("latest");
 
+        ensureLocalModel();
+
         setupModeToggle();
         setupActions();
         attachPumpListener();
+        attachTelemetryListener();
 
         ensureControlNodeExists();
 
@@ -90,6 +112,17 @@ public class ManualControlActivity extends AppCompatActivity {
         btnPumpAction = findViewById(R.id.btnPumpAction);
     }
 
+    // Model RandomForest lokal (assets/forest_model.bin dari export_forest.py).
+    // Kalau asset tidak ada, tetap pakai API seperti biasa.
+    private void ensureLocalModel() {
+        if (SmartIrrigationApi.getLocalModel() != null) return;
+        try {
+            SmartIrrigationApi.loadLocalModelAsync(getAssets().open(LOCAL_MODEL_ASSET), true);
+        } catch (IOException e) {
+            Log.i(TAG, "Model lokal tidak ada (" + LOCAL_MODEL_ASSET + "), pakai API");
+        }
+    }
+
     private void ensureControlNodeExists() {
         pumpRef.get().addOnSuccessListener(s -> {
             if (s.exists()) return;
@@ -112,8 +145,12 @@ public class ManualControlActivity extends AppCompatActivity {
             if (modeManual.isChecked()) {
                 saveModeOnly("manual", "mobile_mode_manual");
             } else {
+                // Niat manual yang masih di jendela ditulis dulu, baru pindah mode
+                flushControl();
                 saveModeOnly("auto", "mobile_mode_auto");
                 runAiAndWriteDecision(true);
+                // Keputusan berikutnya diambil AutoDecisionService walau layar ini ditutup
+                AutoDecisionService.start(this);
             }
         });
 
@@ -135,9 +172,9 @@ public class ManualControlActivity extends AppCompatActivity {
 
         btnPumpAction.setOnClickListener(v -> {
             if (modeManual.isChecked()) {
-                pumpOn = !pumpOn;
+                if (control.toggle()) uiHandler.postDelayed(controlFlush, CONTROL_WINDOW_MS);
+                pumpOn = control.displayed();
                 updatePumpUI();
-                saveControlToFirebase("manual", pumpOn, "mobile_manual", null);
             } else {
                 runAiAndWriteDecision(true);
             }
@@ -155,13 +192,13 @@ public class ManualControlActivity extends AppCompatActivity {
     }
 
     private void updatePumpUI() {
-        if (pumpOn) {
-            tvPumpState.setText("Status pompa: Menyala");
-            dotState.setBackgroundResource(R.drawable.shape_dot_green);
+        String state = pumpOn ? "Menyala" : "Mati";
+        if (control.isPending() || commands.pending(deviceId) != null) {
+            tvPumpState.setText("Status pompa: " + state + " (menunggu perangkat...)");
         } else {
-            tvPumpState.setText("Status pompa: Mati");
-            dotState.setBackgroundResource(R.drawable.shape_dot_red);
+            tvPumpState.setText("Status pompa: " + state);
         }
+        dotState.setBackgroundResource(pumpOn ? R.drawable.shape_dot_green : R.drawable.shape_dot_red);
         refreshButtonByMode();
     }
 
@@ -177,14 +214,16 @@ public class ManualControlActivity extends AppCompatActivity {
             return;
         }
 
-        long now = System.currentTimeMillis();
-        if (!force && (now - lastAiCallMs) < AI_COOLDOWN_MS) return;
-        lastAiCallMs = now;
-
         aiInFlight = true;
         refreshButtonByMode();
         Toast.makeText(this, "Memproses sistem cerdas...", Toast.LENGTH_SHORT).show();
 
+        // Listener telemetry sudah mengisi featureStream → tidak perlu baca ulang node
+        if (featureStream.has(deviceId)) {
+            callAi(featureStream.features(deviceId), force);
+            return;
+        }
+
         telemetryRef.addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot s) {
@@ -199,116 +238,9 @@ public class ManualControlActivity extends AppCompatActivity {
                     return;
                 }
 
-                // ===== INPUT (dari Firebase telemetry) =====
-                double humidity = getDoubleAny(s, "hum", "humidity", "Humidity");
-                double soilMoisture = getDoubleAny(s, "soil", "soil_moisture", "Soil_Moisture");
-                double rainPct = getDoubleAny(s, "rain_pct", "rainPct", "rain");
-
-                // clamp nilai supaya aman
-                humidity = clamp(humidity, 0, 100);
-                soilMoisture = clamp(soilMoisture, 0, 100);
-                rainPct = clamp(rainPct, 0, 100);
-
-                // validasi NaN/Infinity
-                if (Double.isNaN(humidity) || Double.isInfinite(humidity)
-                        || Double.isNaN(soilMoisture) || Double.isInfinite(soilMoisture)
-                        || Double.isNaN(rainPct) || Double.isInfinite(rainPct)) {
-                    aiInFlight = false;
-                    refreshButtonByMode();
-                    Toast.makeText(ManualControlActivity.this, "Telemetry tidak valid (NaN/Infinity).", Toast.LENGTH_LONG).show();
-                    return;
-                }
-
-                // rainfall bin (0/1)
-                int rainfallBin = (rainPct >= 50.0) ? 1 : 0;
-
-                // sunlight bin (0/1) - PASTI INT supaya tidak ada error lossy conversion
-                int sunlightBin = 0;
-                if (s.child("bright").exists()) {
-                    sunlightBin = parseBoolLike(s.child("bright").getValue()) ? 1 : 0;
-                } else if (s.child("ldr_adc").exists()) {
-                    double ldr = getDoubleAny(s, "ldr_adc", "LDR_ADC");
-                    sunlightBin = (ldr >= 2000.0) ? 1 : 0;
-                } else {
-                    // jika tidak ada field cahaya, tetap 0 (default)
-                    sunlightBin = 0;
-                }
-
-                Log.i(TAG, "CALL AI hum=" + humidity
-                        + " soil=" + soilMoisture
-                        + " rainPct=" + rainPct
-                        + " rainBin=" + rainfallBin
-                        + " sunBin=" + sunlightBin);
-
-                // ===== CALL AI =====
-                SmartIrrigationApi.predict(
-                        humidity,
-                        rainfallBin,
-                        sunlightBin,
-                        soilMoisture,
-                        new SmartIrrigationApi.PredictCallback() {
-                            @Override
-                            public void onSuccess(SmartIrrigationApi.PredictResult result) {
-                                aiInFlight = false;
-                                refreshButtonByMode();
-
-                                // Ambil probability (0..1)
-                                double probOn = result.probabilityOn;
-
-                                // fallback kalau API tidak mengirim probability
-                                if (Double.isNaN(probOn) || Double.isInfinite(probOn) || probOn < 0) {
-                                    if (result.pumpStatus == 0 || result.pumpStatus == 1) {
-                                        probOn = (result.pumpStatus == 1) ? 1.0 : 0.0;
-                                    } else {
-                                        probOn = 0.5; // netral
-                                    }
-                                }
-
-                                double percent = probOn * 100.0;
-
-                                // ===== ATURAN YANG KAMU MINTA =====
-                                // di bawah 50% => harus disiram (tanah kering)
-                                boolean shouldWater = (percent < 50.0);
-
-                                String decisionText = shouldWater
-                                        ? "Tanah kering, perlu disiram"
-                                        : "Tanah lembab, tidak perlu disiram";
-
-                                // set output yang konsisten untuk disimpan
-                                result.pumpLabel = decisionText;
-                                result.pumpStatus = shouldWater ? 1 : 0;
-                                result.probabilityOn = probOn;
-
-                                pumpOn = shouldWater;
-                                updatePumpUI();
-
-                                // simpan ke Firebase
-                                saveControlToFirebase("auto", shouldWater, "mobile_ai", result);
-
-                                Toast.makeText(
-                                        ManualControlActivity.this,
-                                        "AI OK (" + result.usedFormat + ")\n" +
-                                                decisionText + " | Prob=" + String.format(Locale.getDefault(), "%.1f%%", percent),
-                                        Toast.LENGTH_LONG
-                                ).show();
-                            }
-
-                            @Override
-                            public void onError(Exception e) {
-                                aiInFlight = false;
-                                refreshButtonByMode();
-
-                                String msg = (e.getMessage() == null) ? "unknown" : e.getMessage();
-                                Log.e(TAG, "AI ERROR: " + msg, e);
-
-                                Toast.makeText(
-                                        ManualControlActivity.this,
-                                        "Gagal panggil AI: " + msg + "\nLihat Logcat tag=AI_CALL",
-                                        Toast.LENGTH_LONG
-                                ).show();
-                            }
-                        }
-                );
+                // ===== INPUT (EMA semua update telemetry; sama dengan AutoDecisionService) =====
+                featureStream.offer(deviceId, k -> s.child(k).getValue(), System.currentTimeMillis());
+                callAi(featureStream.features(deviceId), force);
             }
 
             @Override
@@ -324,25 +256,88 @@ public class ManualControlActivity extends AppCompatActivity {
         });
     }
 
-    // ==========================
-    // Helpers (tetap)
-    // ==========================
-    private static double clamp(double v, double lo, double hi) {
-        if (Double.isNaN(v) || Double.isInfinite(v)) return lo;
-        return Math.max(lo, Math.min(hi, v));
+    /** Panggil AI dengan fitur yang sudah dihaluskan lalu tulis keputusan. */
+    private void callAi(AutoDecisionScheduler.Features f, boolean force) {
+        double humidity = f.humidity;
+        double soilMoisture = f.soilMoisture;
+        int rainfallBin = f.rainfall;
+        int sunlightBin = f.sunlight;
+
+        Log.i(TAG, "CALL AI " + featureStream.stats(deviceId) + " | hum=" + humidity
+                + " soil=" + soilMoisture
+                + " rainBin=" + rainfallBin
+                + " sunBin=" + sunlightBin);
+
+        // ===== CALL AI (single-flight per device) =====
+        SmartIrrigationApi.Admission admission = SmartIrrigationApi.predictForDevice(
+                deviceId,
+                humidity,
+                rainfallBin,
+                sunlightBin,
+                soilMoisture,
+                force,
+                new SmartIrrigationApi.PredictCallback() {
+                    @Override
+                    public void onSuccess(SmartIrrigationApi.PredictResult result) {
+                        aiInFlight = false;
+                        refreshButtonByMode();
+
+                        // di bawah 50% => harus disiram (tanah kering); lihat AiDecision
+                        boolean shouldWater = AiDecision.applyRule(result);
+                        String decisionText = result.pumpLabel;
+                        double percent = result.probabilityOn * 100.0;
+
+                        // simpan ke Firebase (tampilan lewat OptimisticControl)
+                        saveControlToFirebase("auto", shouldWater, "mobile_ai", result);
+
+                        Toast.makeText(
+                                ManualControlActivity.this,
+                                "AI OK (" + result.usedFormat + ")\n" +
+                                        decisionText + " | Prob=" + String.format(Locale.getDefault(), "%.1f%%", percent),
+                                Toast.LENGTH_LONG
+                        ).show();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        aiInFlight = false;
+                        refreshButtonByMode();
+
+                        String msg = (e.getMessage() == null) ? "unknown" : e.getMessage();
+                        Log.e(TAG, "AI ERROR: " + msg, e);
+
+                        Toast.makeText(
+                                ManualControlActivity.this,
+                                "Gagal panggil AI: " + msg + "\nLihat Logcat tag=AI_CALL",
+                                Toast.LENGTH_LONG
+                        ).show();
+                    }
+                }
+        );
+
+        if (admission == SmartIrrigationApi.Admission.COOLDOWN) {
+            aiInFlight = false;
+            refreshButtonByMode();
+            Log.i(TAG, "AI dilewati: device " + deviceId + " masih cooldown");
+        }
     }
 
-    private double getDoubleAny(DataSnapshot s, String... keys) {
-        for (String k : keys) {
-            Object v = s.child(k).getValue();
-            if (v instanceof Number) return ((Number) v).doubleValue();
-            if (v instanceof String) {
-                try { return Double.parseDouble(((String) v).trim()); } catch (Exception ignored) {}
+    /** Listener telemetry selama layar terbuka → TelemetryFeatureStream. */
+    private void attachTelemetryListener() {
+        telemetryListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot s) {
+                if (s.exists()) featureStream.offer(deviceId, k -> s.child(k).getValue(), System.currentTimeMillis());
             }
-        }
-        return 0.0;
+
+            @Override public void onCancelled(@NonNull DatabaseError error) { }
+        };
+        telemetryRef.addValueEventListener(telemetryListener);
     }
 
+    // ==========================
+    // Helpers (tetap)
+    // ==========================
     private void saveModeOnly(String mode, String updatedBy) {
         Map<String, Object> data = new HashMap<>();
         data.put("mode", mode);
@@ -355,24 +350,72 @@ public class ManualControlActivity extends AppCompatActivity {
     }
 
     private void saveControlToFirebase(String mode, boolean status, String updatedBy, SmartIrrigationApi.PredictResult result) {
+        CommandTracker.Command cmd = commands.issue(deviceId, status, SystemClock.elapsedRealtime());
+
         Map<String, Object> data = new HashMap<>();
         data.put("mode", mode);
         data.put("status", status);
         data.put("updatedBy", updatedBy);
         data.put("updatedAt", ServerValue.TIMESTAMP);
+        data.put("cmdId", cmd.id);
+        data.put("cmdSeq", cmd.seq);
+
+        if (result != null) data.putAll(AiDecision.aiFields(result));
+
+        control.onSent(status, cmd.seq);
+        pumpOn = control.displayed();
+        pumpRef.updateChildren(data).addOnFailureListener(e -> {
+            commands.cancel(cmd);
+            control.onFailed(cmd.seq);
+            pumpOn = control.displayed();
+            updatePumpUI();
+            Toast.makeText(this, "Gagal simpan kontrol: " + safeMsg(e), Toast.LENGTH_LONG).show();
+        });
+        updatePumpUI();
+        scheduleAckTimeout();
+    }
 
-        if (result != null) {
-            data.put("ai_label", result.pumpLabel);
-            data.put("ai_prob_on", result.probabilityOn);
-            data.put("ai_http", result.httpCode);
-            data.put("ai_used_url", result.usedUrl);
-            data.put("ai_used_format", result.usedFormat);
-            data.put("ai_decidedAt", ServerValue.TIMESTAMP);
+    /** Akhir jendela tap: tulis niat terakhir (kalau memang beda dari yang berlaku). */
+    private void flushControl() {
+        uiHandler.removeCallbacks(controlFlush);
+        Boolean status = control.takeWrite();
+        if (status != null) {
+            saveControlToFirebase("manual", status, "mobile_manual", null);
+        } else {
+            pumpOn = control.displayed();
+            updatePumpUI();
         }
+    }
 
-        pumpRef.updateChildren(data).addOnFailureListener(e ->
-                Toast.makeText(this, "Gagal simpan kontrol: " + safeMsg(e), Toast.LENGTH_LONG).show()
-        );
+    // ==========================
+    // ACK PERANGKAT
+    // ==========================
+    private void onAckSnapshot(DataSnapshot s) {
+        long now = SystemClock.elapsedRealtime();
+        long cmdSeq = (long) TelemetryValues.toDouble(s.child("cmdSeq").getValue(), -1);
+        if (cmdSeq >= 0) commands.observeSeq(deviceId, cmdSeq);
+
+        String ackId = s.child("ackId").getValue(String.class);
+        long ackSeq = (long) TelemetryValues.toDouble(s.child("ackSeq").getValue(), -1);
+        long rttMs = commands.onAck(deviceId, ackId, ackSeq, now);
+        if (rttMs >= 0) Log.i(TAG, "ACK " + deviceId + " " + ackId + " rtt=" + rttMs + "ms");
+        scheduleAckTimeout();
+    }
+
+    private void scheduleAckTimeout() {
+        uiHandler.removeCallbacks(ackTimeout);
+        if (isFinishing()) return; // layar ditutup: tidak ada yang menampilkan timeout
+        long due = commands.nextTimeoutInMs(deviceId, SystemClock.elapsedRealtime());
+        if (due >= 0) uiHandler.postDelayed(ackTimeout, due);
+    }
+
+    private void onAckTimeout() {
+        if (commands.sweep(SystemClock.elapsedRealtime()) > 0) {
+            Log.w(TAG, "Perintah tanpa ack:\n" + commands.dump());
+            Toast.makeText(this, "Perangkat " + deviceId + " belum mengonfirmasi perintah", Toast.LENGTH_LONG).show();
+        }
+        updatePumpUI();
+        scheduleAckTimeout();
     }
 
     private void attachPumpListener() {
@@ -383,7 +426,10 @@ public class ManualControlActivity extends AppCompatActivity {
                 Object rawStatus = s.child("status").getValue();
                 boolean st = parseBoolLike(rawStatus);
 
-                pumpOn = st;
+                onAckSnapshot(s);
+                // Echo tulis lama (cmdSeq < tulis terakhir) tidak mengubah tampilan
+                long cmdSeq = (long) TelemetryValues.toDouble(s.child("cmdSeq").getValue(), -1);
+                pumpOn = control.onServer(st, cmdSeq);
                 updatePumpUI();
 
                 if (!TextUtils.isEmpty(mode)) {
@@ -404,14 +450,7 @@ public class ManualControlActivity extends AppCompatActivity {
     }
 
     private boolean parseBoolLike(Object v) {
-        if (v == null) return false;
-        if (v instanceof Boolean) return (Boolean) v;
-        if (v instanceof Number) return ((Number) v).intValue() != 0;
-        if (v instanceof String) {
-            String s = ((String) v).trim().toLowerCase(Locale.getDefault());
-            return s.equals("true") || s.equals("1") || s.equals("on") || s.equals("yes");
-        }
-        return false;
+        return TelemetryValues.parseBoolLike(v);
     }
 
     private String safeMsg(Exception e) {
@@ -422,5 +461,10 @@ public class ManualControlActivity extends AppCompatActivity {
     protected void onDestroy() {
         super.onDestroy();
         if (pumpRef != null && pumpListener != null) pumpRef.removeEventListener(pumpListener);
+        if (telemetryRef != null && telemetryListener != null) telemetryRef.removeEventListener(telemetryListener);
+        // Niat yang belum sempat ditulis tetap dikirim saat layar ditutup,
+        // lalu semua callback (flush, ack timeout) dibuang supaya activity tidak tertahan
+        if (pumpRef != null) flushControl();
+        uiHandler.removeCallbacksAndMessages(null);
     }
 }
@@ -22,12 +22,12 @@ import com.google.firebase.database.ValueEventListener;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 
 public class NotifikasiActivity extends AppCompatActivity {
 
@@ -133,7 +133,7 @@ public class NotifikasiActivity extends AppCompatActivity {
                 }
 
                 // SORT: terbaru dulu berdasarkan activityAt (jadi setelah ACC/Reject tetap "naik" dan tidak hilang)
-                Collections.sort(allRequests, (a, b) -> Long.compare(b.activityAt, a.activityAt));
+                NotifikasiSorter.sortNewestFirst(allRequests, r -> r.activityAt);
 
                 renderAll();
             }
@@ -171,37 +171,18 @@ public class NotifikasiActivity extends AppCompatActivity {
         tvLabelToday.setVisibility(View.VISIBLE);
         tvLabelWeek.setVisibility(View.VISIBLE);
 
-        int countToday = 0;
-        int countWeek = 0;
+        // history lama (> 7 hari) tetap tampil di bagian minggu ini
+        NotifikasiSorter.Buckets<OperatorRequest> buckets = NotifikasiSorter.splitToday(
+                allRequests,
+                r -> r.activityAt > 0 ? r.activityAt : r.createdAt,
+                System.currentTimeMillis(),
+                TimeZone.getDefault());
 
-        long now = System.currentTimeMillis();
-        long sevenDaysMs = 7L * 24 * 60 * 60 * 1000;
-
-        for (OperatorRequest req : allRequests) {
-            long ts = req.activityAt > 0 ? req.activityAt : req.createdAt;
-
-            boolean isToday = isSameDay(ts, now);
-            boolean isWithinWeek = (ts > 0 && (now - ts) <= sevenDaysMs);
-
-            if (ts <= 0) isWithinWeek = true;
-
-            View item = buildItemView(req);
-
-            if (isToday) {
-                containerToday.addView(item);
-                countToday++;
-            } else if (isWithinWeek) {
-                containerWeek.addView(item);
-                countWeek++;
-            } else {
-                // history lama tetap tampil
-                containerWeek.addView(item);
-                countWeek++;
-            }
-        }
+        for (OperatorRequest req : buckets.today) containerToday.addView(buildItemView(req));
+        for (OperatorRequest req : buckets.week) containerWeek.addView(buildItemView(req));
 
-        if (countToday == 0) containerToday.addView(buildEmptySectionHint("Tidak ada notifikasi hari ini."));
-        if (countWeek == 0) containerWeek.addView(buildEmptySectionHint("Tidak ada notifikasi minggu ini."));
+        if (buckets.today.isEmpty()) containerToday.addView(buildEmptySectionHint("Tidak ada notifikasi hari ini."));
+        if (buckets.week.isEmpty()) containerWeek.addView(buildEmptySectionHint("Tidak ada notifikasi minggu ini."));
     }
 
     // ================== VIEW ITEM (DINAMIS) ==================
@@ -20,9 +20,6 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.Query;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -149,26 +146,12 @@ public class NotifikasiOpActivity extends AppCompatActivity {
         containerWeek.removeAllViews();
 
         long now = System.currentTimeMillis();
-        long startToday = startOfDayMillis(now);
-        long startWeek  = startToday - (6L * 24 * 60 * 60 * 1000);
-
-        List<NotifItem> todayList = new ArrayList<>();
-        List<NotifItem> weekList  = new ArrayList<>();
-
-        for (NotifItem n : all.values()) {
-            if (n == null || n.ts <= 0) continue;
 
-            if (n.ts >= startToday) {
-                todayList.add(n);
-            } else if (n.ts >= startWeek) {
-                weekList.add(n);
-            }
-        }
-
-        // Sort terbaru di atas
-        Comparator<NotifItem> desc = (a, b) -> Long.compare(b.ts, a.ts);
-        Collections.sort(todayList, desc);
-        Collections.sort(weekList, desc);
+        // Bucket hari ini / 6 hari sebelumnya, masing-masing terbaru di atas
+        NotifikasiSorter.Buckets<NotifItem> buckets =
+                NotifikasiSorter.splitLastWeek(all.values(), n -> n.ts, now, sdf.getTimeZone());
+        List<NotifItem> todayList = buckets.today;
+        List<NotifItem> weekList  = buckets.week;
 
         if (todayList.isEmpty()) {
             addEmptyLabel(containerToday, "Belum ada notifikasi hari ini.");
@@ -184,11 +167,7 @@ public class NotifikasiOpActivity extends AppCompatActivity {
     }
 
     private long startOfDayMillis(long timeMillis) {
-        long offset = sdf.getTimeZone().getOffset(timeMillis);
-        long local  = timeMillis + offset;
-        long day    = local / (24L * 60 * 60 * 1000);
-        long startLocal = day * (24L * 60 * 60 * 1000);
-        return startLocal - offset;
+        return NotifikasiSorter.startOfDayMillis(timeMillis, sdf.getTimeZone());
     }
 
     private void addNotificationView(LinearLayout parent, NotifItem item) {
@@ -242,16 +221,4 @@ public class NotifikasiOpActivity extends AppCompatActivity {
         }
         uiHandler.removeCallbacksAndMessages(null);
     }
-
-    // Model notif (wajib public + constructor kosong untuk Firebase)
-    public static class NotifItem {
-        public String id;
-        public String message;
-        public String level;   // INFO/WARN/ERROR (opsional)
-        public String type;    // IN / ACC / REJECT
-        public String refId;   // id request terkait (opsional)
-        public long ts;        // epoch millis
-
-        public NotifItem() {}
-    }
 }
@@ -0,0 +1,107 @@
+package com.example.hydro_guard;
+
+import android.graphics.Color;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.button.MaterialButton;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Daftar operator di AdminDashboard (pengganti TableRow dinamis).
+ * Hanya baris yang terlihat yang di-bind; DiffUtil (di background thread milik
+ * ListAdapter) menentukan baris mana yang benar-benar berubah.
+ */
+public class OperatorAdapter extends ListAdapter<UserItem, OperatorAdapter.VH> {
+
+    public interface OnApproveListener {
+        void onApprove(String uid);
+    }
+
+    private static final int COLOR_AKTIF = Color.parseColor("#059669");
+    private static final int COLOR_MENUNGGU = Color.parseColor("#B45309");
+
+    private static final DiffUtil.ItemCallback<UserItem> DIFF = new DiffUtil.ItemCallback<UserItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull UserItem a, @NonNull UserItem b) {
+            return a.uid.equals(b.uid);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull UserItem a, @NonNull UserItem b) {
+            return a.sameContent(b);
+        }
+    };
+
+    private final OnApproveListener onApprove;
+
+    // uid → id long stabil (tanpa tabrakan hash); hanya diakses dari main thread
+    private final Map<String, Long> stableIds = new HashMap<>();
+
+    public OperatorAdapter(OnApproveListener onApprove) {
+        super(DIFF);
+        this.onApprove = onApprove;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        String uid = getItem(position).uid;
+        Long id = stableIds.get(uid);
+        if (id == null) {
+            id = (long) stableIds.size();
+            stableIds.put(uid, id);
+        }
+        return id;
+    }
+
+    @NonNull
+    @Override
+    public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_operator_row, parent, false);
+        return new VH(v);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH h, int position) {
+        UserItem u = getItem(position);
+        h.tvName.setText(u.name);
+        h.tvRole.setText(u.role);
+        h.tvWa.setText(u.wa);
+
+        boolean isAktif = u.isAktif();
+        h.tvStatus.setText(isAktif ? "Aktif" : "Menunggu");
+        h.tvStatus.setTextColor(isAktif ? COLOR_AKTIF : COLOR_MENUNGGU);
+
+        if ("operator".equalsIgnoreCase(u.role) && !u.approved) {
+            h.btnApprove.setVisibility(View.VISIBLE);
+            h.btnApprove.setOnClickListener(v -> onApprove.onApprove(u.uid));
+        } else {
+            h.btnApprove.setVisibility(View.GONE);
+            h.btnApprove.setOnClickListener(null);
+        }
+    }
+
+    static class VH extends RecyclerView.ViewHolder {
+        final TextView tvName, tvRole, tvWa, tvStatus;
+        final MaterialButton btnApprove;
+
+        VH(@NonNull View v) {
+            super(v);
+            tvName = v.findViewById(R.id.tvOpName);
+            tvRole = v.findViewById(R.id.tvOpRole);
+            tvWa = v.findViewById(R.id.tvOpWa);
+            tvStatus = v.findViewById(R.id.tvOpStatus);
+            btnApprove = v.findViewById(R.id.btnOpApprove);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.hydro_guard;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache hasil prediksi AI (LRU + TTL).
+ *
+ * Key = vektor fitur yang dikuantisasi: humidity & soil dibulatkan ke bucket
+ * (mis. 2% / 1%), rainfall & sunlight sudah biner. Jadi telemetry yang hanya
+ * bergeser sedikit tidak perlu dikirim ulang ke model.
+ */
+public final class PredictionCache {
+
+    /** Key khusus: input di luar rentang → jangan di-cache. */
+    public static final long NO_KEY = Long.MIN_VALUE;
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final double humidityBucket;
+    private final double soilBucket;
+
+    private final LinkedHashMap<Long, Entry> map;
+
+    private long hits = 0L;
+    private long misses = 0L;
+    private long evictions = 0L;
+
+    private static final class Entry {
+        final SmartIrrigationApi.PredictResult result;
+        final long expiresAtMs;
+
+        Entry(SmartIrrigationApi.PredictResult result, long expiresAtMs) {
+            this.result = result;
+            this.expiresAtMs = expiresAtMs;
+        }
+    }
+
+    public PredictionCache(int maxEntries, long ttlMs, double humidityBucket, double soilBucket) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries harus >= 1");
+        if (ttlMs <= 0) throw new IllegalArgumentException("ttlMs harus > 0");
+        if (!(humidityBucket > 0) || !(soilBucket > 0)) throw new IllegalArgumentException("bucket harus > 0");
+
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.humidityBucket = humidityBucket;
+        this.soilBucket = soilBucket;
+
+        // accessOrder=true → urutan LRU
+        this.map = new LinkedHashMap<Long, Entry>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > PredictionCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Bentuk key dari fitur. Layout bit: humidity bucket (20) | soil bucket (20)
+     * | rainfall (8) | sunlight (16).
+     */
+    public long keyFor(double humidity, int rainfall, int sunlight, double soilMoisture) {
+        if (Double.isNaN(humidity) || Double.isNaN(soilMoisture)) return NO_KEY;
+        if (humidity < 0 || soilMoisture < 0) return NO_KEY;
+        if (rainfall < 0 || rainfall > 0xFF || sunlight < 0 || sunlight > 0xFFFF) return NO_KEY;
+
+        long h = (long) Math.floor(humidity / humidityBucket);
+        long s = (long) Math.floor(soilMoisture / soilBucket);
+        if (h > 0xFFFFF || s > 0xFFFFF) return NO_KEY;
+
+        return (h << 44) | (s << 24) | ((long) rainfall << 16) | sunlight;
+    }
+
+    /** Salinan hasil (caller boleh mengubahnya) atau null kalau miss/kedaluwarsa. */
+    public synchronized SmartIrrigationApi.PredictResult get(long key, long nowMs) {
+        if (key == NO_KEY) return null;
+
+        Entry e = map.get(key);
+        if (e == null) {
+            misses++;
+            return null;
+        }
+        if (nowMs >= e.expiresAtMs) {
+            map.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        SmartIrrigationApi.PredictResult copy = e.result.copy();
+        copy.fromCache = true;
+        return copy;
+    }
+
+    public synchronized void put(long key, SmartIrrigationApi.PredictResult result, long nowMs) {
+        if (key == NO_KEY || result == null) return;
+        map.put(key, new Entry(result.copy(), nowMs + ttlMs));
+    }
+
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    public synchronized double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PredictionCache{size=" + map.size() + "/" + maxEntries
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", ttlMs=" + ttlMs + "}";
+    }
+}
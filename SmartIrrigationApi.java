@@ -2,28 +2,210 @@ package com.example.hydro_guard;
 
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
 
-import org.json.JSONObject;
-
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Smart Irrigation AI API Client
  * FIXED & STABLE
+ *
+ * Semua request jalan di executor bersama (bounded) dan koneksi HTTP
+ * tidak di-disconnect setelah sukses, sehingga socket + sesi TLS ke HF Space
+ * dipakai ulang (keep-alive) oleh pool koneksi bawaan HttpURLConnection.
  */
 public class SmartIrrigationApi {
 
     // 🔴 WAJIB GANTI JIKA BERUBAH
     public static final String AI_URL =
             "https://epaa-smart-irrigation-api.hf.space/api/predict";
+    public static final String AI_BATCH_URL =
+            "https://epaa-smart-irrigation-api.hf.space/api/predict-batch";
+
+    public static final String LOCAL_URL = "local://random-forest";
+
+    // Endpoint aktif (bisa diarahkan ke stand-in lokal untuk load test)
+    private static volatile String aiUrl = AI_URL;
+    private static volatile String aiBatchUrl = AI_BATCH_URL;
+    private static final String TAG = "AI_CALL";
+
+    // Cache prediksi (default ON: 256 entri, TTL 60 dtk, bucket hum 2% / soil 1%)
+    public static final int DEFAULT_CACHE_SIZE = 256;
+    public static final long DEFAULT_CACHE_TTL_MS = 60_000L;
+    public static final double DEFAULT_HUMIDITY_BUCKET = 2.0;
+    public static final double DEFAULT_SOIL_BUCKET = 1.0;
+
+    private static volatile PredictionCache cache = new PredictionCache(
+            DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL_MS, DEFAULT_HUMIDITY_BUCKET, DEFAULT_SOIL_BUCKET);
+
+    // Model lokal (null = selalu lewat API)
+    private static volatile LocalForestModel localModel;
+    private static volatile boolean httpFallback = false;
+
+    // ===============================
+    // CONFIG (pool & timeout)
+    // ===============================
+    public static final int DEFAULT_POOL_SIZE = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    public static final int DEFAULT_CONNECT_TIMEOUT_MS = 15000;
+    public static final int DEFAULT_READ_TIMEOUT_MS = 15000;
+    private static final long KEEP_ALIVE_IDLE_SEC = 30L;
+
+    private static volatile int poolSize = DEFAULT_POOL_SIZE;
+    private static volatile int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+    private static volatile int readTimeoutMs = DEFAULT_READ_TIMEOUT_MS;
+
+    private static ThreadPoolExecutor executor;
+    private static final Handler MAIN = new Handler(Looper.getMainLooper());
+
+    // Batching (default OFF → perilaku lama 1 request = 1 HTTP call)
+    public static final long DEFAULT_BATCH_WINDOW_MS = 30L;
+    public static final int DEFAULT_BATCH_MAX_SIZE = 32;
+
+    private static final Object BATCH_LOCK = new Object();
+    private static volatile boolean batchingEnabled = false;
+    private static long batchWindowMs = DEFAULT_BATCH_WINDOW_MS;
+    private static int batchMaxSize = DEFAULT_BATCH_MAX_SIZE;
+    private static List<PendingPredict> pendingBatch = new ArrayList<>();
+    private static ScheduledFuture<?> flushTask;
+    private static ScheduledExecutorService scheduler;
+    private static volatile boolean closed = false;   // setelah shutdown(): executor tidak dibuat lagi
+
+    // Deadline, hedging & circuit breaker
+    public static final long DEFAULT_DEADLINE_MS = 8000L;
+    public static final long DEFAULT_MIN_HEDGE_DELAY_MS = 300L;
+    public static final int DEFAULT_BREAKER_FAILURES = 5;
+    public static final long DEFAULT_BREAKER_OPEN_MS = 30_000L;
+    private static final int HEDGE_MIN_SAMPLES = 20;
+
+    private static volatile long deadlineMs = DEFAULT_DEADLINE_MS;
+    private static volatile boolean hedgingEnabled = true;
+    private static volatile long minHedgeDelayMs = DEFAULT_MIN_HEDGE_DELAY_MS;
+    private static volatile boolean ruleFallbackEnabled = true;
+    private static volatile CircuitBreaker breaker =
+            new CircuitBreaker(DEFAULT_BREAKER_FAILURES, DEFAULT_BREAKER_OPEN_MS);
+    private static final LatencyWindow LATENCY = new LatencyWindow(128);
 
     public static boolean isConfigured() {
-        return AI_URL != null && AI_URL.startsWith("http");
+        return localModel != null || (aiUrl != null && aiUrl.startsWith("http"));
+    }
+
+    /**
+     * Arahkan client ke server lain dengan path yang sama (mis. standin_server.py di
+     * "http://10.0.2.2:8000" dari emulator). null → kembali ke HF Space.
+     */
+    public static void configureEndpoint(String baseUrl) {
+        if (baseUrl == null) {
+            aiUrl = AI_URL;
+            aiBatchUrl = AI_BATCH_URL;
+            return;
+        }
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        if (!base.startsWith("http")) throw new IllegalArgumentException("baseUrl harus http(s): " + baseUrl);
+        aiUrl = base + "/api/predict";
+        aiBatchUrl = base + "/api/predict-batch";
+    }
+
+    /** URL /api/predict yang sedang dipakai. */
+    public static String getEndpoint() {
+        return aiUrl;
+    }
+
+    /**
+     * Atur ukuran pool thread dan timeout. Boleh dipanggil kapan saja; executor yang
+     * sedang jalan langsung menyesuaikan ukuran pool. Jumlah koneksi keep-alive per host
+     * TIDAK ikut diatur: itu milik HttpURLConnection seluruh proses (http.maxConnections,
+     * default 5, dibaca sekali saat start) dan dipakai juga oleh SDK lain; poolSize di atas
+     * nilai itu tetap jalan, hanya koneksi lebihnya tidak disimpan untuk dipakai ulang.
+     */
+    public static synchronized void configure(int poolSize, int connectTimeoutMs, int readTimeoutMs) {
+        if (poolSize < 1) throw new IllegalArgumentException("poolSize harus >= 1");
+        if (connectTimeoutMs < 0 || readTimeoutMs < 0) throw new IllegalArgumentException("timeout tidak boleh negatif");
+
+        SmartIrrigationApi.poolSize = poolSize;
+        SmartIrrigationApi.connectTimeoutMs = connectTimeoutMs;
+        SmartIrrigationApi.readTimeoutMs = readTimeoutMs;
+
+        if (executor != null && !executor.isShutdown()) {
+            if (poolSize >= executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(poolSize);
+                executor.setCorePoolSize(poolSize);
+            } else {
+                executor.setCorePoolSize(poolSize);
+                executor.setMaximumPoolSize(poolSize);
+            }
+        }
+    }
+
+    /**
+     * Hentikan executor, permanen. Request yang sudah antre di executor (termasuk
+     * batch yang belum terkirim) tetap diselesaikan; hedge / deadline yang belum
+     * jalan dibuang. predict berikutnya yang butuh HTTP gagal dengan
+     * RejectedExecutionException (cache / model lokal tetap menjawab).
+     */
+    public static void shutdown() {
+        // flush di luar lock kelas (urutan lock: BATCH_LOCK → kelas)
+        flushBatch();
+        synchronized (SmartIrrigationApi.class) {
+            closed = true;
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                scheduler = null;
+            }
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor executor() {
+        if (closed) throw new RejectedExecutionException("SmartIrrigationApi sudah shutdown");
+        if (executor == null || executor.isShutdown()) {
+            int n = poolSize;
+            ThreadPoolExecutor ex = new ThreadPoolExecutor(
+                    n, n,
+                    KEEP_ALIVE_IDLE_SEC, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY),
+                    new AiThreadFactory()
+            );
+            ex.allowCoreThreadTimeOut(true);
+            executor = ex;
+        }
+        return executor;
+    }
+
+    private static class AiThreadFactory implements ThreadFactory {
+        private final AtomicInteger seq = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "hg-ai-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
     }
 
     // ===============================
@@ -36,6 +218,36 @@ public class SmartIrrigationApi {
         public int httpCode;
         public String usedUrl;
         public String usedFormat = "json";
+        public boolean fromCache = false;
+
+        // Status ketahanan (deadline / hedging / circuit breaker)
+        public String breakerState = CircuitBreaker.State.CLOSED.name();
+        public boolean fallback = false;
+        public String fallbackReason;
+        public boolean hedged = false;
+        // true = hasil dibagi dari request lain yang identik (single-flight)
+        public boolean shared = false;
+
+        // Durasi per fase (null = tidak diukur, mis. hasil aturan cadangan)
+        public PredictMetrics.Timing timing;
+
+        public PredictResult copy() {
+            PredictResult r = new PredictResult();
+            r.pumpStatus = pumpStatus;
+            r.pumpLabel = pumpLabel;
+            r.probabilityOn = probabilityOn;
+            r.httpCode = httpCode;
+            r.usedUrl = usedUrl;
+            r.usedFormat = usedFormat;
+            r.fromCache = fromCache;
+            r.breakerState = breakerState;
+            r.fallback = fallback;
+            r.fallbackReason = fallbackReason;
+            r.hedged = hedged;
+            r.shared = shared;
+            r.timing = (timing != null) ? timing.copy() : null;
+            return r;
+        }
     }
 
     // ===============================
@@ -56,66 +268,791 @@ public class SmartIrrigationApi {
             double soilMoisture,
             PredictCallback callback
     ) {
+        long startNs = System.nanoTime();
+        PredictionCache c = cache;
+        long cacheKey = (c != null) ? c.keyFor(humidity, rainfall, sunlight, soilMoisture) : PredictionCache.NO_KEY;
+        if (c != null) {
+            PredictResult hit = c.get(cacheKey, SystemClock.elapsedRealtime());
+            if (hit != null) {
+                hit.timing = new PredictMetrics.Timing();
+                hit.timing.totalNs = System.nanoTime() - startNs;
+                // Salinan cache membawa state breaker saat disimpan; pakai state sekarang
+                hit.breakerState = getBreakerState().name();
+                PredictMetrics.get().record(PredictMetrics.EP_CACHE, PredictMetrics.OUT_OK, hit.timing);
+                MAIN.post(() -> callback.onSuccess(hit));
+                return;
+            }
+        }
 
-        new Thread(() -> {
-            HttpURLConnection conn = null;
+        LocalForestModel model = localModel;
+        if (model != null) {
             try {
-                URL url = new URL(AI_URL);
-                conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("POST");
-                conn.setConnectTimeout(15000);
-                conn.setReadTimeout(15000);
-                conn.setRequestProperty("Content-Type", "application/json");
-                conn.setDoOutput(true);
-
-                // ==========================
-                // REQUEST BODY
-                // ==========================
-                JSONObject body = new JSONObject();
-                body.put("Humidity", humidity);
-                body.put("Rainfall", rainfall);
-                body.put("Sunlight", sunlight);
-                body.put("Soil_Moisture", soilMoisture);
-
-                OutputStream os = conn.getOutputStream();
-                os.write(body.toString().getBytes());
-                os.flush();
-                os.close();
-
-                int code = conn.getResponseCode();
-                InputStream is = (code >= 200 && code < 300)
-                        ? conn.getInputStream()
-                        : conn.getErrorStream();
-
-                BufferedReader br = new BufferedReader(new InputStreamReader(is));
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = br.readLine()) != null) {
-                    sb.append(line);
+                PredictResult result = predictLocal(model, humidity, rainfall, sunlight, soilMoisture);
+                result.timing = new PredictMetrics.Timing();
+                result.timing.totalNs = System.nanoTime() - startNs;
+                PredictMetrics.get().record(PredictMetrics.EP_LOCAL, PredictMetrics.OUT_OK, result.timing);
+                MAIN.post(() -> callback.onSuccess(result));
+                return;
+            } catch (Exception e) {
+                PredictMetrics.get().recordTotal(PredictMetrics.EP_LOCAL, PredictMetrics.OUT_ERROR,
+                        System.nanoTime() - startNs);
+                if (!httpFallback) {
+                    MAIN.post(() -> callback.onError(e));
+                    return;
                 }
-                br.close();
+                // lanjut ke HTTP
+            }
+        }
+
+        if (closed) {
+            MAIN.post(() -> callback.onError(new RejectedExecutionException("SmartIrrigationApi sudah shutdown")));
+            return;
+        }
 
-                JSONObject json = new JSONObject(sb.toString());
+        long now = SystemClock.elapsedRealtime();
+        PendingPredict p = new PendingPredict(
+                humidity, rainfall, sunlight, soilMoisture, cacheKey, now + deadlineMs, startNs, callback);
 
-                PredictResult result = new PredictResult();
-                result.httpCode = code;
-                result.usedUrl = AI_URL;
+        // Endpoint sedang tidak sehat → gagal cepat / aturan cadangan
+        if (!breaker.allowRequest(now)) {
+            fail(p, new IOException("Circuit breaker OPEN: endpoint AI sedang gagal"), "circuit_open",
+                    batchingEnabled ? PredictMetrics.EP_BATCH : PredictMetrics.EP_PREDICT);
+            return;
+        }
+        try {
+            armDeadline(p);
 
-                result.pumpStatus = json.optInt("pump_status", 0);
-                result.pumpLabel = json.optString("pump_label", "-");
-                result.probabilityOn = json.optDouble("probability_on", 0);
+            if (batchingEnabled) {
+                enqueueBatch(p);
+                return;
+            }
+            dispatchSingle(p);
+        } catch (RejectedExecutionException e) {
+            // shutdown() berjalan bersamaan
+            breaker.onAbandoned();
+            fail(p, e, "shutdown", batchingEnabled ? PredictMetrics.EP_BATCH : PredictMetrics.EP_PREDICT);
+        }
+    }
 
-                new Handler(Looper.getMainLooper()).post(() ->
-                        callback.onSuccess(result)
-                );
+    // ===============================
+    // SINGLE-FLIGHT PER DEVICE
+    // ===============================
+    public enum Admission {
+        /** Request baru dikirim. */
+        STARTED,
+        /** Ada request identik (device + fitur) yang sedang jalan; callback ikut hasilnya. */
+        JOINED,
+        /** Device masih dalam cooldown; callback TIDAK dipanggil. */
+        COOLDOWN
+    }
 
-            } catch (Exception e) {
-                new Handler(Looper.getMainLooper()).post(() ->
-                        callback.onError(e)
-                );
-            } finally {
-                if (conn != null) conn.disconnect();
+    public static final long DEFAULT_DEVICE_COOLDOWN_MS = 1500L;
+
+    private static final Object FLIGHT_LOCK = new Object();
+    private static final HashMap<FlightKey, List<PredictCallback>> flights = new HashMap<>();
+    // Hanya device yang masih dalam cooldown (entri lama dibuang saat insert)
+    private static final HashMap<String, Long> lastStartByDevice = new HashMap<>();
+    private static volatile long deviceCooldownMs = DEFAULT_DEVICE_COOLDOWN_MS;
+
+    /** Jeda minimum antar prediksi baru untuk device yang sama (0 = tanpa cooldown). */
+    public static void configureDeviceCooldown(long cooldownMs) {
+        if (cooldownMs < 0) throw new IllegalArgumentException("cooldownMs tidak boleh negatif");
+        deviceCooldownMs = cooldownMs;
+    }
+
+    /**
+     * predict() dengan dedup per device: pemanggil yang datang saat request dengan
+     * device + fitur yang sama masih jalan ikut menunggu hasil yang sama (tiap
+     * callback dapat salinan sendiri, shared=true). Prediksi baru untuk device yang
+     * sama ditolak selama cooldown kecuali force=true.
+     *
+     * Kalau hasilnya COOLDOWN, callback TIDAK pernah dipanggil: pemanggil harus
+     * menutup sendiri status loading / antreannya saat itu juga.
+     */
+    public static Admission predictForDevice(
+            String deviceId,
+            double humidity,
+            int rainfall,
+            int sunlight,
+            double soilMoisture,
+            boolean force,
+            PredictCallback callback
+    ) {
+        FlightKey key = new FlightKey(deviceId, humidity, rainfall, sunlight, soilMoisture);
+        synchronized (FLIGHT_LOCK) {
+            List<PredictCallback> waiters = flights.get(key);
+            if (waiters != null) {
+                waiters.add(callback);
+                return Admission.JOINED;
+            }
+
+            long now = SystemClock.elapsedRealtime();
+            Long last = lastStartByDevice.get(deviceId);
+            if (!force && last != null && now - last < deviceCooldownMs) return Admission.COOLDOWN;
+            pruneCooldownsLocked(now);
+            lastStartByDevice.put(deviceId, now);
+
+            waiters = new ArrayList<>(2);
+            waiters.add(callback);
+            flights.put(key, waiters);
+        }
+
+        predict(humidity, rainfall, sunlight, soilMoisture, new PredictCallback() {
+            @Override
+            public void onSuccess(PredictResult result) {
+                List<PredictCallback> all = land(key);
+                for (int i = 0; i < all.size(); i++) {
+                    // caller boleh mengubah hasilnya → yang ikut dapat salinan
+                    PredictResult r = (i == 0) ? result : result.copy();
+                    if (i > 0) r.shared = true;
+                    all.get(i).onSuccess(r);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                for (PredictCallback cb : land(key)) cb.onError(e);
+            }
+        });
+        return Admission.STARTED;
+    }
+
+    /** Buang device yang cooldown-nya sudah lewat supaya map tidak tumbuh per deviceId. */
+    private static void pruneCooldownsLocked(long now) {
+        long cooldown = deviceCooldownMs;
+        for (Iterator<Long> it = lastStartByDevice.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() >= cooldown) it.remove();
+        }
+    }
+
+    /** true kalau ada prediksi yang sedang jalan untuk device ini. */
+    public static boolean isInFlight(String deviceId) {
+        synchronized (FLIGHT_LOCK) {
+            for (FlightKey k : flights.keySet()) {
+                if (k.deviceId.equals(deviceId)) return true;
             }
-        }).start();
+            return false;
+        }
+    }
+
+    private static List<PredictCallback> land(FlightKey key) {
+        synchronized (FLIGHT_LOCK) {
+            List<PredictCallback> all = flights.remove(key);
+            return (all != null) ? all : Collections.<PredictCallback>emptyList();
+        }
+    }
+
+    private static final class FlightKey {
+        final String deviceId;
+        final long humidityBits;
+        final int rainfall;
+        final int sunlight;
+        final long soilBits;
+
+        FlightKey(String deviceId, double humidity, int rainfall, int sunlight, double soilMoisture) {
+            this.deviceId = (deviceId != null) ? deviceId : "";
+            this.humidityBits = Double.doubleToLongBits(humidity);
+            this.rainfall = rainfall;
+            this.sunlight = sunlight;
+            this.soilBits = Double.doubleToLongBits(soilMoisture);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FlightKey)) return false;
+            FlightKey k = (FlightKey) o;
+            return humidityBits == k.humidityBits && soilBits == k.soilBits
+                    && rainfall == k.rainfall && sunlight == k.sunlight
+                    && deviceId.equals(k.deviceId);
+        }
+
+        @Override
+        public int hashCode() {
+            int h = deviceId.hashCode();
+            h = 31 * h + (int) (humidityBits ^ (humidityBits >>> 32));
+            h = 31 * h + (int) (soilBits ^ (soilBits >>> 32));
+            h = 31 * h + rainfall;
+            return 31 * h + sunlight;
+        }
+    }
+
+    // ===============================
+    // PREDICTION CACHE
+    // ===============================
+
+    /**
+     * Atur cache prediksi. humidityBucket/soilBucket = lebar bucket (persen)
+     * untuk kuantisasi key. enabled=false mematikan & membuang isi cache.
+     */
+    public static void configureCache(boolean enabled, int maxEntries, long ttlMs,
+                                      double humidityBucket, double soilBucket) {
+        cache = enabled ? new PredictionCache(maxEntries, ttlMs, humidityBucket, soilBucket) : null;
+    }
+
+    /** Cache aktif (untuk baca hit/miss), atau null kalau dimatikan. */
+    public static PredictionCache getCache() {
+        return cache;
+    }
+
+    // ===============================
+    // LOCAL MODEL (RandomForest on-device)
+    // ===============================
+
+    /**
+     * Pakai model lokal (hasil export_forest.py) untuk semua prediksi.
+     * httpFallback=true → kalau evaluasi lokal gagal, request diteruskan ke API;
+     * false → error langsung dikirim ke callback. model=null kembali ke mode API.
+     */
+    public static void setLocalModel(LocalForestModel model, boolean httpFallback) {
+        SmartIrrigationApi.httpFallback = httpFallback;
+        SmartIrrigationApi.localModel = model;
+    }
+
+    public static LocalForestModel getLocalModel() {
+        return localModel;
+    }
+
+    /** Muat model lokal di executor AI (stream ditutup setelah dibaca). */
+    public static void loadLocalModelAsync(InputStream in, boolean httpFallback) {
+        try {
+            executor().execute(() -> {
+                try {
+                    setLocalModel(LocalForestModel.load(in), httpFallback);
+                    Log.i(TAG, "Model lokal aktif: " + localModel.treeCount() + " pohon");
+                } catch (IOException e) {
+                    Log.w(TAG, "Model lokal gagal dimuat, tetap pakai API: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Model lokal tidak dimuat: antrean penuh");
+        }
+    }
+
+    private static PredictResult predictLocal(
+            LocalForestModel model,
+            double humidity,
+            int rainfall,
+            int sunlight,
+            double soilMoisture
+    ) {
+        if (Double.isNaN(humidity) || Double.isInfinite(humidity)
+                || Double.isNaN(soilMoisture) || Double.isInfinite(soilMoisture)) {
+            throw new IllegalArgumentException("Fitur tidak valid (NaN/Infinity)");
+        }
+
+        double probOn = model.predictProbaOn(humidity, rainfall, sunlight, soilMoisture);
+        int status = LocalForestModel.statusFor(probOn);
+
+        PredictResult result = new PredictResult();
+        result.httpCode = 0;
+        result.usedUrl = LOCAL_URL;
+        result.usedFormat = "local-rf";
+        result.pumpStatus = status;
+        result.pumpLabel = status == 1 ? "ON" : "OFF";
+        result.probabilityOn = probOn;
+        return result;
+    }
+
+    // ===============================
+    // MICRO-BATCHING (/api/predict-batch)
+    // ===============================
+
+    /**
+     * Aktifkan mode batch: request yang datang dalam windowMs (atau sampai maxBatchSize)
+     * dikirim sekali ke /api/predict-batch lalu hasilnya dibagi ke tiap callback.
+     */
+    public static void configureBatching(boolean enabled, long windowMs, int maxBatchSize) {
+        if (windowMs < 0) throw new IllegalArgumentException("windowMs tidak boleh negatif");
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize harus >= 1");
+
+        List<PendingPredict> leftover;
+        synchronized (BATCH_LOCK) {
+            batchWindowMs = windowMs;
+            batchMaxSize = maxBatchSize;
+            batchingEnabled = enabled;
+            leftover = enabled ? null : takeBatchLocked();
+        }
+        if (leftover != null && !leftover.isEmpty()) dispatchBatch(leftover);
+    }
+
+    private static final class PendingPredict {
+        final double humidity;
+        final int rainfall;
+        final int sunlight;
+        final double soilMoisture;
+        final long cacheKey;
+        final long deadlineAtMs;
+        final long startNs;
+        final PredictCallback callback;
+
+        // Callback dipanggil tepat sekali (hasil pertama menang: asli / hedge / timeout)
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final AtomicInteger attempts = new AtomicInteger(0);
+        // Ada attempt yang sudah sampai HTTP (hasilnya dilaporkan ke breaker)
+        volatile boolean sent;
+        volatile ScheduledFuture<?> deadlineTask;
+
+        PendingPredict(double humidity, int rainfall, int sunlight, double soilMoisture,
+                       long cacheKey, long deadlineAtMs, long startNs, PredictCallback callback) {
+            this.humidity = humidity;
+            this.rainfall = rainfall;
+            this.sunlight = sunlight;
+            this.soilMoisture = soilMoisture;
+            this.cacheKey = cacheKey;
+            this.deadlineAtMs = deadlineAtMs;
+            this.startNs = startNs;
+            this.callback = callback;
+        }
+    }
+
+    private static void enqueueBatch(PendingPredict p) {
+        List<PendingPredict> ready = null;
+        synchronized (BATCH_LOCK) {
+            pendingBatch.add(p);
+            if (pendingBatch.size() >= batchMaxSize) {
+                ready = takeBatchLocked();
+            } else if (flushTask == null) {
+                flushTask = scheduler().schedule(SmartIrrigationApi::flushBatch, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) dispatchBatch(ready);
+    }
+
+    private static void flushBatch() {
+        List<PendingPredict> ready;
+        synchronized (BATCH_LOCK) {
+            ready = takeBatchLocked();
+        }
+        if (!ready.isEmpty()) dispatchBatch(ready);
+    }
+
+    private static List<PendingPredict> takeBatchLocked() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        List<PendingPredict> out = pendingBatch;
+        pendingBatch = new ArrayList<>();
+        return out;
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (closed) throw new RejectedExecutionException("SmartIrrigationApi sudah shutdown");
+        if (scheduler == null || scheduler.isShutdown()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "hg-ai-timer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return scheduler;
+    }
+
+    private static void dispatchBatch(List<PendingPredict> items) {
+        if (items.size() == 1) {
+            dispatchSingle(items.get(0));
+            return;
+        }
+        for (PendingPredict p : items) p.attempts.incrementAndGet();
+        try {
+            executor().execute(() -> {
+                if (allDone(items)) {
+                    // Semua item sudah lewat deadline: jangan kirim, lepas probe breaker
+                    for (PendingPredict p : items) p.attempts.decrementAndGet();
+                    breaker.onAbandoned();
+                    return;
+                }
+                for (PendingPredict p : items) p.sent = true;
+                long t0 = SystemClock.elapsedRealtime();
+                long sentNs = System.nanoTime();
+                PredictMetrics.Timing timing = new PredictMetrics.Timing();
+                try {
+                    List<PredictResult> results = postBatch(items, remainingMs(items, t0), timing);
+                    onHttpOk(SystemClock.elapsedRealtime() - t0);
+                    for (int i = 0; i < items.size(); i++) {
+                        // fase HTTP dipakai bersama, antrean dihitung per item
+                        PredictMetrics.Timing own = timing.copy();
+                        own.queueNs = sentNs - items.get(i).startNs;
+                        results.get(i).timing = own;
+                        complete(items.get(i), results.get(i), PredictMetrics.EP_BATCH);
+                    }
+                } catch (Exception e) {
+                    onHttpFailed(e);
+                    for (PendingPredict p : items) attemptFailed(p, e, PredictMetrics.EP_BATCH);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // antrean penuh → laporkan, jangan blok pemanggil
+            onHttpFailed(e);
+            for (PendingPredict p : items) attemptFailed(p, e, PredictMetrics.EP_BATCH);
+        }
+    }
+
+    private static boolean allDone(List<PendingPredict> items) {
+        for (PendingPredict p : items) if (!p.done.get()) return false;
+        return true;
+    }
+
+    private static void dispatchSingle(PendingPredict p) {
+        submitAttempt(p, false);
+
+        long hedgeDelay = hedgeDelayMs();
+        if (hedgeDelay > 0 && hedgeDelay < p.deadlineAtMs - SystemClock.elapsedRealtime()) {
+            try {
+                scheduler().schedule(() -> {
+                    // hedge hanya kalau request pertama belum selesai & breaker sehat
+                    if (p.done.get()) return;
+                    if (breaker.state(SystemClock.elapsedRealtime()) != CircuitBreaker.State.CLOSED) return;
+                    submitAttempt(p, true);
+                }, hedgeDelay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // sedang shutdown → tanpa hedge
+            }
+        }
+    }
+
+    private static void submitAttempt(PendingPredict p, boolean hedge) {
+        p.attempts.incrementAndGet();
+        try {
+            executor().execute(() -> {
+                if (p.done.get()) {
+                    // Deadline lebih dulu: attempt terakhir yang batal melepas probe breaker
+                    if (p.attempts.decrementAndGet() == 0 && !p.sent) breaker.onAbandoned();
+                    return;
+                }
+                p.sent = true;
+                long t0 = SystemClock.elapsedRealtime();
+                PredictMetrics.Timing timing = new PredictMetrics.Timing();
+                timing.queueNs = System.nanoTime() - p.startNs;
+                try {
+                    PredictResult r = postPredict(p, remainingMs(Collections.singletonList(p), t0), timing);
+                    onHttpOk(SystemClock.elapsedRealtime() - t0);
+                    r.hedged = hedge;
+                    r.timing = timing;
+                    complete(p, r, PredictMetrics.EP_PREDICT);
+                } catch (Exception e) {
+                    onHttpFailed(e);
+                    attemptFailed(p, e, PredictMetrics.EP_PREDICT);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            onHttpFailed(e);
+            attemptFailed(p, e, PredictMetrics.EP_PREDICT);
+        }
+    }
+
+    // ===============================
+    // DEADLINE, HEDGING & CIRCUIT BREAKER
+    // ===============================
+
+    /** Batas waktu total satu predict (antre + koneksi + baca). 0 = tanpa batas (timeout koneksi saja). */
+    public static void configureDeadline(long totalDeadlineMs) {
+        if (totalDeadlineMs < 0) throw new IllegalArgumentException("deadline tidak boleh negatif");
+        deadlineMs = totalDeadlineMs == 0 ? Long.MAX_VALUE / 4 : totalDeadlineMs;
+    }
+
+    /**
+     * Hedged request: kalau belum ada jawaban setelah max(p95 latensi, minDelayMs),
+     * kirim request kedua; jawaban pertama yang dipakai.
+     */
+    public static void configureHedging(boolean enabled, long minDelayMs) {
+        if (minDelayMs < 0) throw new IllegalArgumentException("minDelayMs tidak boleh negatif");
+        hedgingEnabled = enabled;
+        minHedgeDelayMs = minDelayMs;
+    }
+
+    public static void configureCircuitBreaker(int failureThreshold, long openMs) {
+        breaker = new CircuitBreaker(failureThreshold, openMs);
+    }
+
+    /** true → saat breaker OPEN / timeout / error, kembalikan hasil aturan lokal (bukan onError). */
+    public static void setRuleFallback(boolean enabled) {
+        ruleFallbackEnabled = enabled;
+    }
+
+    public static CircuitBreaker.State getBreakerState() {
+        return breaker.state(SystemClock.elapsedRealtime());
+    }
+
+    /** Histogram latensi per endpoint/outcome/fase (lihat PredictMetrics). */
+    public static PredictMetrics metrics() {
+        return PredictMetrics.get();
+    }
+
+    /** Tulis tabel p50/p95/p99 ke logcat. */
+    public static void logMetrics() {
+        Log.i(TAG, "Latensi AI:\n" + PredictMetrics.get().dump());
+    }
+
+    private static long hedgeDelayMs() {
+        if (!hedgingEnabled) return 0L;
+        long p95 = LATENCY.percentile(0.95, HEDGE_MIN_SAMPLES);
+        if (p95 < 0) return 0L; // data latensi belum cukup
+        return Math.max(minHedgeDelayMs, p95);
+    }
+
+    private static int remainingMs(List<PendingPredict> items, long now) throws TimeoutException {
+        long deadline = Long.MAX_VALUE;
+        for (PendingPredict p : items) deadline = Math.min(deadline, p.deadlineAtMs);
+        long left = deadline - now;
+        if (left <= 0) throw new TimeoutException("Deadline AI habis sebelum request dikirim");
+        return (int) Math.min(Integer.MAX_VALUE, left);
+    }
+
+    private static void armDeadline(PendingPredict p) {
+        long delay = p.deadlineAtMs - SystemClock.elapsedRealtime();
+        if (delay > Integer.MAX_VALUE) return;
+        p.deadlineTask = scheduler().schedule(() -> {
+            if (p.done.get()) return;
+            fail(p, new TimeoutException("Deadline AI " + deadlineMs + " ms terlewati"), "deadline",
+                    batchingEnabled ? PredictMetrics.EP_BATCH : PredictMetrics.EP_PREDICT);
+        }, Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    private static void onHttpOk(long elapsedMs) {
+        LATENCY.add(elapsedMs);
+        breaker.onSuccess();
+    }
+
+    private static void onHttpFailed(Exception e) {
+        breaker.onFailure(SystemClock.elapsedRealtime());
+        Log.w(TAG, "AI HTTP gagal (" + breaker.state(SystemClock.elapsedRealtime()) + "): " + e.getMessage());
+    }
+
+    private static void attemptFailed(PendingPredict p, Exception e, String endpoint) {
+        // masih ada attempt lain (hedge) yang jalan → tunggu dia
+        if (p.attempts.decrementAndGet() > 0) return;
+        fail(p, e, (e instanceof TimeoutException) ? "deadline" : "http_error", endpoint);
+    }
+
+    private static void complete(PendingPredict p, PredictResult r, String endpoint) {
+        if (!p.done.compareAndSet(false, true)) return;
+        cancelDeadline(p);
+
+        if (r.timing == null) r.timing = new PredictMetrics.Timing();
+        r.timing.totalNs = System.nanoTime() - p.startNs;
+        PredictMetrics.get().record(endpoint, PredictMetrics.OUT_OK, r.timing);
+
+        r.breakerState = getBreakerState().name();
+        // Hanya respons 2xx yang layak di-cache
+        PredictionCache c = cache;
+        if (c != null && r.httpCode >= 200 && r.httpCode < 300) c.put(p.cacheKey, r, SystemClock.elapsedRealtime());
+
+        PredictCallback cb = p.callback;
+        MAIN.post(() -> cb.onSuccess(r));
+    }
+
+    private static void fail(PendingPredict p, Exception e, String reason, String endpoint) {
+        if (!p.done.compareAndSet(false, true)) return;
+        cancelDeadline(p);
+
+        String outcome = "deadline".equals(reason) ? PredictMetrics.OUT_TIMEOUT
+                : "circuit_open".equals(reason) ? PredictMetrics.OUT_CIRCUIT_OPEN
+                : PredictMetrics.OUT_ERROR;
+        PredictMetrics.get().recordTotal(endpoint, outcome, System.nanoTime() - p.startNs);
+
+        PredictCallback cb = p.callback;
+        if (!ruleFallbackEnabled) {
+            MAIN.post(() -> cb.onError(e));
+            return;
+        }
+
+        PredictResult r = fallbackResult(p, reason);
+        Log.w(TAG, "AI fallback (" + reason + "): " + e.getMessage());
+        MAIN.post(() -> cb.onSuccess(r));
+    }
+
+    private static void cancelDeadline(PendingPredict p) {
+        ScheduledFuture<?> t = p.deadlineTask;
+        if (t != null) t.cancel(false);
+    }
+
+    /** Model lokal kalau ada, kalau tidak aturan ESP32: tanah kering & tidak hujan → ON. */
+    private static PredictResult fallbackResult(PendingPredict p, String reason) {
+        PredictResult r = null;
+        LocalForestModel model = localModel;
+        if (model != null) {
+            try {
+                r = predictLocal(model, p.humidity, p.rainfall, p.sunlight, p.soilMoisture);
+            } catch (Exception ignored) {
+                r = null;
+            }
+        }
+        if (r == null) {
+            // Aturan auto lokal ESP32 (SOIL_ON_THRESHOLD, hujan → OFF); server tidak terlibat
+            boolean on = PumpDecision.ruleOn(p.soilMoisture, p.rainfall);
+            r = new PredictResult();
+            r.httpCode = 0;
+            r.usedUrl = PumpDecision.RULE_URL;
+            r.usedFormat = PumpDecision.FORMAT_RULE;
+            r.pumpStatus = on ? 1 : 0;
+            r.pumpLabel = on ? "ON" : "OFF";
+            r.probabilityOn = on ? 1.0 : 0.0;
+        }
+        r.fallback = true;
+        r.fallbackReason = reason;
+        r.breakerState = getBreakerState().name();
+        return r;
+    }
+
+    /** Ring buffer latensi sukses terakhir untuk estimasi p95 (delay hedge). */
+    private static final class LatencyWindow {
+        private final long[] ring;
+        private int next = 0;
+        private int count = 0;
+
+        LatencyWindow(int size) {
+            ring = new long[size];
+        }
+
+        synchronized void add(long ms) {
+            ring[next] = ms;
+            next = (next + 1) % ring.length;
+            if (count < ring.length) count++;
+        }
+
+        /** -1 kalau sampel < minSamples. */
+        synchronized long percentile(double q, int minSamples) {
+            if (count < minSamples) return -1L;
+            long[] copy = Arrays.copyOf(ring, count);
+            Arrays.sort(copy);
+            int idx = (int) Math.ceil(q * count) - 1;
+            return copy[Math.max(0, Math.min(count - 1, idx))];
+        }
+    }
+
+    // ===============================
+    // HTTP
+    // ===============================
+
+    // Buffer request/response dipakai ulang per thread worker
+    private static final ThreadLocal<PredictCodec.Buffer> IO_BUFFER =
+            ThreadLocal.withInitial(() -> new PredictCodec.Buffer(1024));
+    private static final ThreadLocal<PredictCodec.Prediction> DECODED =
+            ThreadLocal.withInitial(PredictCodec.Prediction::new);
+
+    private static PredictResult postPredict(PendingPredict p, int budgetMs, PredictMetrics.Timing timing) throws Exception {
+        PredictCodec.Buffer buf = IO_BUFFER.get().reset();
+        PredictCodec.encodeRequest(buf, p.humidity, p.rainfall, p.sunlight, p.soilMoisture);
+
+        String url = aiUrl;
+        int code = post(url, buf, budgetMs, timing);
+        // 5xx (cold start / model belum siap) = endpoint tidak sehat
+        if (code >= 500) throw new IOException("HTTP " + code + ": " + buf.preview(300));
+
+        long parseStart = System.nanoTime();
+        PredictCodec.Prediction decoded = DECODED.get();
+        PredictCodec.readPrediction(new PredictCodec.Reader(buf), decoded);
+        PredictResult r = toResult(decoded, code, url);
+        timing.parseNs = System.nanoTime() - parseStart;
+        return r;
+    }
+
+    private static List<PredictResult> postBatch(List<PendingPredict> items, int budgetMs,
+                                                 PredictMetrics.Timing timing) throws Exception {
+        PredictCodec.Buffer buf = IO_BUFFER.get().reset();
+        buf.append((byte) '[');
+        for (int i = 0; i < items.size(); i++) {
+            PendingPredict p = items.get(i);
+            if (i > 0) buf.append((byte) ',');
+            PredictCodec.encodeRequest(buf, p.humidity, p.rainfall, p.sunlight, p.soilMoisture);
+        }
+        buf.append((byte) ']');
+
+        String url = aiBatchUrl;
+        int code = post(url, buf, budgetMs, timing);
+        if (code < 200 || code >= 300) {
+            throw new IOException("Batch HTTP " + code + ": " + buf.preview(300));
+        }
+
+        long parseStart = System.nanoTime();
+        PredictCodec.Reader reader = new PredictCodec.Reader(buf);
+        PredictCodec.Prediction decoded = DECODED.get();
+        List<PredictResult> out = new ArrayList<>(items.size());
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            PredictCodec.readPrediction(reader, decoded);
+            PredictResult r = toResult(decoded, code, url);
+            r.usedFormat = "json-batch";
+            out.add(r);
+        }
+        reader.endArray();
+        timing.parseNs = System.nanoTime() - parseStart;
+
+        if (out.size() != items.size()) {
+            throw new IOException("Batch response " + out.size() + " item, diharapkan " + items.size());
+        }
+        return out;
+    }
+
+    private static PredictResult toResult(PredictCodec.Prediction decoded, int code, String usedUrl) {
+        PredictResult result = new PredictResult();
+        result.httpCode = code;
+        result.usedUrl = usedUrl;
+
+        result.pumpStatus = decoded.pumpStatus;
+        result.pumpLabel = decoded.pumpLabel;
+        result.probabilityOn = decoded.probabilityOn;
+        return result;
+    }
+
+    /**
+     * Kirim isi buf (JSON UTF-8) lalu isi ulang buf dengan body response.
+     * Timeout koneksi/baca tidak melebihi sisa deadline (budgetMs).
+     * Mengembalikan HTTP status code; durasi connect/write/ttfb/read diisi ke timing.
+     */
+    private static int post(String target, PredictCodec.Buffer buf, int budgetMs,
+                            PredictMetrics.Timing timing) throws IOException {
+        HttpURLConnection conn = null;
+        boolean reusable = false;
+        try {
+            URL url = new URL(target);
+            conn = (HttpURLConnection) url.openConnection();
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(Math.max(1, Math.min(connectTimeoutMs, budgetMs)));
+            conn.setReadTimeout(Math.max(1, Math.min(readTimeoutMs, budgetMs)));
+            conn.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+            conn.setRequestProperty("Connection", "keep-alive");
+            conn.setDoOutput(true);
+            // Panjang body sudah diketahui → tanpa buffering/chunking internal
+            conn.setFixedLengthStreamingMode(buf.length());
+
+            // connect() eksplisit agar fase koneksi (DNS/TCP/TLS) terukur terpisah;
+            // socket dari pool keep-alive → mendekati 0
+            long t = System.nanoTime();
+            conn.connect();
+            long now = System.nanoTime();
+            timing.connectNs = now - t;
+            t = now;
+
+            OutputStream os = conn.getOutputStream();
+            buf.writeTo(os);
+            os.close();
+            now = System.nanoTime();
+            timing.writeNs = now - t;
+            t = now;
+
+            int code = conn.getResponseCode();
+            now = System.nanoTime();
+            timing.ttfbNs = now - t;
+            t = now;
+
+            InputStream is = (code >= 200 && code < 300)
+                    ? conn.getInputStream()
+                    : conn.getErrorStream();
+            if (is == null) throw new IOException("HTTP " + code + " tanpa body");
+
+            // Body harus dibaca habis + di-close agar socket kembali ke pool
+            buf.readFully(is);
+            timing.readNs = System.nanoTime() - t;
+
+            reusable = true; // sukses → biarkan koneksi keep-alive di pool
+            return code;
+        } finally {
+            // Hanya putus koneksi kalau gagal (socket mungkin rusak)
+            if (!reusable && conn != null) conn.disconnect();
+        }
     }
 }
@@ -0,0 +1,282 @@
+package com.example.hydro_guard;
+
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Card tempat di Kelola Tempat (pengganti card LinearLayout dinamis).
+ *
+ * Listener telemetry / pompa hanya dipasang selama card ter-attach ke RecyclerView
+ * (terlihat atau di dekat viewport) dan dilepas saat card digulir keluar.
+ * Listener-nya sendiri dipakai bersama per device lewat DeviceLiveHub, jadi scroll
+ * bolak-balik dalam grace period tidak attach ulang ke Firebase.
+ *
+ * Nilai live tidak langsung di-setText: snapshot terbaru per device ditampung di
+ * LiveCardCoalescer, diformat sekali per flush, dan TextView yang teksnya sama dilewati.
+ * Teks sensor terakhir per device disimpan, jadi card yang di-bind ulang (atau diisi dari
+ * DashboardCache saat cold start) tidak kembali ke "memuat...".
+ */
+public class TempatAdapter extends ListAdapter<TempatItem, TempatAdapter.VH> {
+
+    public interface LabelResolver {
+        String label(String uid);
+    }
+
+    private static final String DEFAULT_DEVICE_ID = "HG-01";
+
+    private static final DiffUtil.ItemCallback<TempatItem> DIFF = new DiffUtil.ItemCallback<TempatItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull TempatItem a, @NonNull TempatItem b) {
+            return a.tempatId.equals(b.tempatId);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull TempatItem a, @NonNull TempatItem b) {
+            return a.sameContent(b);
+        }
+    };
+
+    private final DeviceLiveHub hub;
+    private final LabelResolver labels;
+    private final LiveCardCoalescer<DataSnapshot> sensorUpdates;
+    private final LiveCardCoalescer<DataSnapshot> pumpUpdates;
+
+    // Teks sensor terakhir per device (live atau dari cache)
+    private final Map<String, String> lastSensorText = new HashMap<>();
+
+    // Card yang sedang ter-attach; live = false (activity stop) → tidak ada subscription
+    private final Set<VH> attached = new HashSet<>();
+    private boolean live = true;
+
+    /** @param liveMinIntervalMs jarak minimum antar render nilai live (0 = tiap frame) */
+    public TempatAdapter(DeviceLiveHub hub, LabelResolver labels, long liveMinIntervalMs) {
+        super(DIFF);
+        this.hub = hub;
+        this.labels = labels;
+        this.sensorUpdates = new LiveCardCoalescer<>(this::applySensor, liveMinIntervalMs);
+        this.pumpUpdates = new LiveCardCoalescer<>(this::applyPump, liveMinIntervalMs);
+    }
+
+    /** false: lepas semua subscription card (onStop); true: pasang lagi untuk card yang terlihat. */
+    public void setLive(boolean live) {
+        if (this.live == live) return;
+        this.live = live;
+        if (!live) {
+            sensorUpdates.clear();
+            pumpUpdates.clear();
+        }
+        for (VH h : attached) {
+            if (live) h.subscribe();
+            else h.unsubscribe();
+        }
+    }
+
+    /** Telemetry dari cache lokal; diabaikan kalau device sudah punya nilai live. */
+    public void seedSensor(String deviceId, Map<String, Object> fields) {
+        if (lastSensorText.containsKey(deviceId)) return;
+        String text = formatSensor(fields);
+        lastSensorText.put(deviceId, text);
+        for (VH h : attached) {
+            if (deviceId.equals(h.deviceId)) h.setSensor(text);
+        }
+    }
+
+    /** Jumlah card yang sedang memegang subscription (untuk log / debug). */
+    public int liveCardCount() {
+        int n = 0;
+        for (VH h : attached) if (h.subscribed()) n++;
+        return n;
+    }
+
+    @NonNull
+    @Override
+    public VH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_tempat_card, parent, false);
+        return new VH(v);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull VH h, int position) {
+        TempatItem t = getItem(position);
+        h.tvNama.setText(t.nama);
+        h.tvLokasi.setText("Lokasi: " + t.kecamatan + " - " + t.kelurahan);
+        h.tvBy.setText("Diinput oleh: " + labels.label(t.createdBy));
+        String opLabel = !TextUtils.isEmpty(t.operatorName) ? t.operatorName : "-";
+        h.tvOperator.setText("Operator: " + opLabel);
+
+        String deviceId = TextUtils.isEmpty(t.deviceId) ? DEFAULT_DEVICE_ID : t.deviceId;
+        if (!deviceId.equals(h.deviceId)) {
+            h.unsubscribe();
+            h.deviceId = deviceId;
+            String known = lastSensorText.get(deviceId);
+            h.setSensor(known != null ? known : "Sensor: memuat...");
+            h.setPump("Pompa: memuat...");
+            if (live && attached.contains(h)) h.subscribe();
+        }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(@NonNull VH h) {
+        attached.add(h);
+        if (live) h.subscribe();
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull VH h) {
+        attached.remove(h);
+        h.unsubscribe();
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull VH h) {
+        h.unsubscribe();
+        h.deviceId = null;
+    }
+
+    // ===================== FLUSH NILAI LIVE =====================
+    // Satu format per device per flush, dibagi ke semua card yang menampilkan device itu
+    private void applySensor(String deviceId, DataSnapshot s) {
+        String text = formatSensor(s);
+        lastSensorText.put(deviceId, text);
+        for (VH h : attached) {
+            if (deviceId.equals(h.deviceId) && h.subscribed()) h.setSensor(text);
+        }
+    }
+
+    private void applyPump(String deviceId, DataSnapshot s) {
+        String text = null;
+        for (VH h : attached) {
+            if (!deviceId.equals(h.deviceId) || !h.subscribed()) continue;
+            if (text == null) text = formatPump(s);
+            h.setPump(text);
+        }
+    }
+
+    // ===================== VIEW HOLDER =====================
+    final class VH extends RecyclerView.ViewHolder {
+        final TextView tvNama, tvLokasi, tvBy, tvOperator, tvSensor, tvPump;
+        String deviceId;
+        private String sensorText, pumpText;   // teks terakhir yang di-set (skip setText kalau sama)
+        DeviceLiveHub.Subscription telemetrySub, pumpSub;
+
+        VH(@NonNull View v) {
+            super(v);
+            tvNama = v.findViewById(R.id.tvTempatNama);
+            tvLokasi = v.findViewById(R.id.tvTempatLokasi);
+            tvBy = v.findViewById(R.id.tvTempatBy);
+            tvOperator = v.findViewById(R.id.tvTempatOperator);
+            tvSensor = v.findViewById(R.id.tvTempatSensor);
+            tvPump = v.findViewById(R.id.tvTempatPompa);
+        }
+
+        boolean subscribed() {
+            return telemetrySub != null;
+        }
+
+        void setSensor(String text) {
+            if (text.equals(sensorText)) return;
+            sensorText = text;
+            tvSensor.setText(text);
+        }
+
+        void setPump(String text) {
+            if (text.equals(pumpText)) return;
+            pumpText = text;
+            tvPump.setText(text);
+        }
+
+        void subscribe() {
+            if (deviceId == null || telemetrySub != null) return;
+
+            String id = deviceId;
+            telemetrySub = hub.subscribeTelemetry(id, new DeviceLiveHub.Observer() {
+                @Override public void onValue(@NonNull DataSnapshot s) {
+                    sensorUpdates.offer(id, s);
+                }
+
+                @Override public void onError(@NonNull DatabaseError error) {
+                    sensorUpdates.drop(id);
+                    setSensor("Sensor: error " + error.getMessage());
+                }
+            });
+
+            pumpSub = hub.subscribePump(id, new DeviceLiveHub.Observer() {
+                @Override public void onValue(@NonNull DataSnapshot s) {
+                    pumpUpdates.offer(id, s);
+                }
+
+                @Override public void onError(@NonNull DatabaseError error) {
+                    pumpUpdates.drop(id);
+                    setPump("Pompa: error " + error.getMessage());
+                }
+            });
+        }
+
+        void unsubscribe() {
+            if (telemetrySub != null) telemetrySub.cancel();
+            if (pumpSub != null) pumpSub.cancel();
+            telemetrySub = null;
+            pumpSub = null;
+        }
+    }
+
+    // Dulu: AdminDashboardActivity.attachLiveStatusToCard
+    static String formatSensor(DataSnapshot s) {
+        if (!s.exists()) return "Sensor: (telemetry kosong)";
+        Object v = s.getValue();
+        return formatSensor(v instanceof Map ? (Map<?, ?>) v : Collections.emptyMap());
+    }
+
+    /** Dari field telemetry/{id}/latest (snapshot live atau cache lokal). */
+    static String formatSensor(Map<?, ?> s) {
+        double tempVal = num(s, "temp");
+        double humVal  = num(s, "hum");
+        double soilVal = num(s, "soil");
+        double rainVal = num(s, "rain_pct");
+        double ldrVal  = num(s, "ldr_adc");
+
+        String light = "-";
+        if (s.get("bright") != null) {
+            boolean bright = TelemetryValues.parseBoolLike(s.get("bright"));
+            light = bright ? "Terang" : "Gelap";
+        } else if (!Double.isNaN(ldrVal)) {
+            light = ((int) Math.round(ldrVal)) + " (adc)";
+        }
+
+        return "Sensor: T=" + (Double.isNaN(tempVal) ? "-" : String.format(Locale.getDefault(), "%.1f°C", tempVal))
+                + " | H=" + (Double.isNaN(humVal) ? "-" : String.format(Locale.getDefault(), "%.1f%%", humVal))
+                + " | Soil=" + (Double.isNaN(soilVal) ? "-" : ((int) Math.round(soilVal)) + "%")
+                + " | Rain=" + (Double.isNaN(rainVal) ? "-" : ((int) Math.round(rainVal)) + "%")
+                + " | Light=" + light;
+    }
+
+    static String formatPump(DataSnapshot s) {
+        String mode = s.child("mode").getValue(String.class);
+        boolean isOn = TelemetryValues.parseBoolLike(s.child("status").getValue());
+
+        String m = TextUtils.isEmpty(mode) ? "-" : (mode.equalsIgnoreCase("manual") ? "Manual" : "Otomatis");
+        return "Pompa: " + (isOn ? "Menyala" : "Mati") + " | Mode: " + m;
+    }
+
+    private static double num(Map<?, ?> s, String key) {
+        return TelemetryValues.toDouble(s.get(key), Double.NaN);
+    }
+}
@@ -0,0 +1,168 @@
+"""
+Export RandomForest (joblib) -> format flat-array biner untuk LocalForestModel.java
+
+Usage:
+    python export_forest.py [MODEL_PATH] [OUT_PATH]
+
+Default:
+    MODEL_PATH = env MODEL_PATH / FiksModel_RandomForest_Evabenir.joblib
+    OUT_PATH   = forest_model.bin   (taruh di app/src/main/assets/)
+
+Format (big-endian, dibaca DataInputStream):
+    magic        4 byte  "HGRF"
+    version      int32   1
+    n_features   int32
+    feature[i]   uint16 len + UTF-8   (urutan fitur, harus sama dengan main.py)
+    n_trees      int32
+    n_nodes      int32   (total node semua pohon)
+    root[t]      int32 * n_trees      (offset node akar tiap pohon)
+    per node (array terpisah, masing-masing n_nodes):
+        feature    int32    (-1 = leaf)
+        threshold  float64  (ke kiri jika x <= threshold)
+        left       int32    (offset absolut anak kiri, -1 untuk leaf)
+        right      int32    (offset absolut anak kanan, -1 untuk leaf)
+        prob_on    float64  (P(class=1) di leaf, 0 untuk node internal)
+
+Mendukung:
+- dict bundle {'model': ..., 'feature_order': [...]} (sama seperti main.py)
+- Pipeline dengan langkah StandardScaler / MinMaxScaler sebelum forest
+  (scaling dilipat ke threshold sehingga evaluator Java cukup pakai nilai mentah)
+"""
+
+from __future__ import annotations
+
+import os
+import struct
+import sys
+from typing import List, Optional, Tuple
+
+import joblib
+import numpy as np
+
+MAGIC = b"HGRF"
+VERSION = 1
+DEFAULT_FEATURE_ORDER = os.getenv(
+    "FEATURE_ORDER", "Humidity,Rainfall,Sunlight,Soil_Moisture"
+).split(",")
+
+
+def _unwrap(obj) -> Tuple[object, List[str]]:
+    if isinstance(obj, dict) and "model" in obj:
+        fo = obj.get("feature_order") or DEFAULT_FEATURE_ORDER
+        return obj["model"], [c.strip() for c in fo]
+    return obj, [c.strip() for c in DEFAULT_FEATURE_ORDER]
+
+
+def _split_pipeline(model) -> Tuple[object, Optional[np.ndarray], Optional[np.ndarray]]:
+    """Kembalikan (forest, mul, add) dengan x_model = x_raw * mul + add."""
+    steps = getattr(model, "steps", None)
+    if steps is None:
+        return model, None, None
+
+    mul: Optional[np.ndarray] = None
+    add: Optional[np.ndarray] = None
+    for name, step in steps[:-1]:
+        if step is None or step == "passthrough":
+            continue
+        cls = type(step).__name__
+        if cls == "StandardScaler":
+            nf = step.n_features_in_
+            scale = step.scale_ if step.scale_ is not None else np.ones(nf)
+            mean = step.mean_ if step.mean_ is not None else np.zeros(nf)
+            s_mul, s_add = 1.0 / scale, -mean / scale
+        elif cls == "MinMaxScaler":
+            s_mul, s_add = step.scale_, step.min_
+        else:
+            raise SystemExit(f"Langkah pipeline '{name}' ({cls}) belum didukung exporter.")
+
+        if mul is None:
+            mul, add = s_mul.astype(float), s_add.astype(float)
+        else:
+            mul, add = mul * s_mul, add * s_mul + s_add
+
+    return steps[-1][1], mul, add
+
+
+def _export_tree(est, class_on: int, mul, add, base: int):
+    t = est.tree_
+    n = t.node_count
+    feature = np.full(n, -1, dtype=np.int64)
+    threshold = np.zeros(n, dtype=np.float64)
+    left = np.full(n, -1, dtype=np.int64)
+    right = np.full(n, -1, dtype=np.int64)
+    prob_on = np.zeros(n, dtype=np.float64)
+
+    for i in range(n):
+        if t.children_left[i] == t.children_right[i]:  # leaf
+            v = t.value[i][0]
+            total = float(v.sum())
+            prob_on[i] = float(v[class_on]) / total if total > 0 else 0.0
+            continue
+
+        f = int(t.feature[i])
+        thr = float(t.threshold[i])
+        if mul is not None:
+            # x*mul + add <= thr  <=>  x <= (thr - add) / mul   (mul > 0)
+            if mul[f] <= 0:
+                raise SystemExit(f"Skala fitur {f} <= 0, tidak bisa dilipat ke threshold.")
+            thr = (thr - add[f]) / mul[f]
+
+        feature[i] = f
+        threshold[i] = thr
+        left[i] = base + int(t.children_left[i])
+        right[i] = base + int(t.children_right[i])
+
+    return feature, threshold, left, right, prob_on
+
+
+def export(model_path: str, out_path: str) -> None:
+    model, feature_order = _unwrap(joblib.load(model_path))
+    forest, mul, add = _split_pipeline(model)
+
+    estimators = getattr(forest, "estimators_", None)
+    if not estimators:
+        raise SystemExit(f"Model {type(forest).__name__} bukan ensemble pohon (estimators_ kosong).")
+
+    classes = [int(c) for c in forest.classes_]
+    if 1 not in classes:
+        raise SystemExit(f"classes_ {classes} tidak mengandung label 1 (ON).")
+    class_on = classes.index(1)
+
+    roots: List[int] = []
+    parts = []
+    base = 0
+    for est in estimators:
+        roots.append(base)
+        parts.append(_export_tree(est, class_on, mul, add, base))
+        base += est.tree_.node_count
+
+    feature = np.concatenate([p[0] for p in parts])
+    threshold = np.concatenate([p[1] for p in parts])
+    left = np.concatenate([p[2] for p in parts])
+    right = np.concatenate([p[3] for p in parts])
+    prob_on = np.concatenate([p[4] for p in parts])
+
+    with open(out_path, "wb") as f:
+        f.write(MAGIC)
+        f.write(struct.pack(">i", VERSION))
+        f.write(struct.pack(">i", len(feature_order)))
+        for name in feature_order:
+            b = name.encode("utf-8")
+            f.write(struct.pack(">H", len(b)))
+            f.write(b)
+        f.write(struct.pack(">i", len(roots)))
+        f.write(struct.pack(">i", base))
+        f.write(np.asarray(roots, dtype=">i4").tobytes())
+        f.write(feature.astype(">i4").tobytes())
+        f.write(threshold.astype(">f8").tobytes())
+        f.write(left.astype(">i4").tobytes())
+        f.write(right.astype(">i4").tobytes())
+        f.write(prob_on.astype(">f8").tobytes())
+
+    print(f"OK: {len(roots)} pohon, {base} node, fitur={feature_order} -> {out_path}")
+
+
+if __name__ == "__main__":
+    src = sys.argv[1] if len(sys.argv) > 1 else os.getenv("MODEL_PATH", "FiksModel_RandomForest_Evabenir.joblib")
+    dst = sys.argv[2] if len(sys.argv) > 2 else "forest_model.bin"
+    export(src, dst)
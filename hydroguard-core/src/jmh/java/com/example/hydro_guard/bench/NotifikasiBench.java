@@ -0,0 +1,75 @@
+package com.example.hydro_guard.bench;
+
+import com.example.hydro_guard.NotifItem;
+import com.example.hydro_guard.NotifikasiSorter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Urut + bucket notifikasi (NotifikasiActivity.renderAll / NotifikasiOpActivity.render).
+ * Timestamp tersebar 10 hari terakhir, sebagian tanpa ts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NotifikasiBench {
+
+    private static final TimeZone TZ = TimeZone.getTimeZone("Asia/Makassar");
+
+    @Param({"100000"})
+    public int notifications;
+
+    private long now;
+    private Map<String, NotifItem> byId;
+    private List<NotifItem> unsorted;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(11);
+        now = 1_760_000_000_000L;
+        byId = new HashMap<>(notifications * 2);
+        unsorted = new ArrayList<>(notifications);
+
+        for (int i = 0; i < notifications; i++) {
+            NotifItem n = new NotifItem();
+            n.id = "n" + i;
+            n.message = "Operator " + i + " ingin bergabung";
+            n.type = "IN";
+            n.ts = (i % 100 == 0) ? 0L : now - (long) (rnd.nextDouble() * 10 * NotifikasiSorter.DAY_MS);
+            byId.put(n.id, n);
+            unsorted.add(n);
+        }
+    }
+
+    /** Operator: filter 7 hari + sort per bucket (dari map id → item). */
+    @Benchmark
+    public int splitLastWeek() {
+        NotifikasiSorter.Buckets<NotifItem> b =
+                NotifikasiSorter.splitLastWeek(byId.values(), n -> n.ts, now, TZ);
+        return b.today.size() + b.week.size();
+    }
+
+    /** Admin: sort semua lalu bagi hari ini vs sisanya. */
+    @Benchmark
+    public int sortThenSplitToday() {
+        List<NotifItem> copy = new ArrayList<>(unsorted);
+        NotifikasiSorter.sortNewestFirst(copy, n -> n.ts);
+        NotifikasiSorter.Buckets<NotifItem> b = NotifikasiSorter.splitToday(copy, n -> n.ts, now, TZ);
+        return b.today.size() + b.week.size();
+    }
+}
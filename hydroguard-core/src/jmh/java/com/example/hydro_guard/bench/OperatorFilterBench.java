@@ -0,0 +1,67 @@
+package com.example.hydro_guard.bench;
+
+import com.example.hydro_guard.OperatorFilter;
+import com.example.hydro_guard.UserItem;
+import com.example.hydro_guard.UserStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Filter tabel operator dashboard admin (1 ketikan / ganti spinner): scan vs UserStore.search. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class OperatorFilterBench {
+
+    private static final String[] NAMES = {"budi", "siti", "andi", "dewi", "rahmat", "nur", "agus", "putri"};
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"", "budi", "0812", "tidak-ada"})
+    public String query;
+
+    @Param({"Semua", "Menunggu"})
+    public String status;
+
+    private List<UserItem> all;
+    private UserStore store;
+    private OperatorFilter.Criteria criteria;
+
+    @Setup
+    public void setup() {
+        Random rnd = new Random(7);
+        all = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String name = NAMES[rnd.nextInt(NAMES.length)] + " " + i;
+            String email = "user" + i + "@hydroguard.id";
+            String wa = "08" + (1000000000L + rnd.nextInt(999999999));
+            String role = (i % 50 == 0) ? "admin" : "operator";
+            all.add(new UserItem("uid" + i, name, email, role, wa, rnd.nextInt(4) != 0));
+        }
+        store = new UserStore();
+        for (UserItem u : all) store.upsert(u);
+        criteria = new OperatorFilter.Criteria(query, "operator", status);
+    }
+
+    @Benchmark
+    public int filter() {
+        return OperatorFilter.filter(all, query, "operator", status).size();
+    }
+
+    @Benchmark
+    public int indexed() {
+        return store.search(criteria).size();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.hydro_guard.bench;
+
+import com.example.hydro_guard.PredictCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/** Encode request / decode response /api/predict dan /api/predict-batch (32 item). */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PredictCodecBench {
+
+    private static final int BATCH = 32;
+
+    private final PredictCodec.Buffer buf = new PredictCodec.Buffer(1024);
+    private final PredictCodec.Prediction decoded = new PredictCodec.Prediction();
+
+    private byte[] single;
+    private byte[] batch;
+
+    @Setup
+    public void setup() {
+        String one = "{\"pump_status\":1,\"pump_label\":\"ON\",\"probability_on\":0.8734,"
+                + "\"input\":{\"Humidity\":61.5,\"Rainfall\":0,\"Sunlight\":1,\"Soil_Moisture\":32.0},"
+                + "\"model\":\"RandomForest\"}";
+        single = one.getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < BATCH; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(one);
+        }
+        batch = sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int encodeSingle() {
+        buf.reset();
+        PredictCodec.encodeRequest(buf, 61.5, 0, 1, 32.25);
+        return buf.length();
+    }
+
+    @Benchmark
+    public int encodeBatch() {
+        buf.reset();
+        buf.append((byte) '[');
+        for (int i = 0; i < BATCH; i++) {
+            if (i > 0) buf.append((byte) ',');
+            PredictCodec.encodeRequest(buf, 40.0 + i, i & 1, 1, 20.5 + i);
+        }
+        buf.append((byte) ']');
+        return buf.length();
+    }
+
+    @Benchmark
+    public double decodeSingle() throws IOException {
+        PredictCodec.readPrediction(new PredictCodec.Reader(single, single.length), decoded);
+        return decoded.probabilityOn;
+    }
+
+    @Benchmark
+    public double decodeBatch() throws IOException {
+        PredictCodec.Reader r = new PredictCodec.Reader(batch, batch.length);
+        double sum = 0;
+        r.beginArray();
+        while (r.hasNext()) {
+            PredictCodec.readPrediction(r, decoded);
+            sum += decoded.probabilityOn;
+        }
+        r.endArray();
+        return sum;
+    }
+}
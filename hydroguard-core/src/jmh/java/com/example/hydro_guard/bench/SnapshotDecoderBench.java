@@ -0,0 +1,85 @@
+package com.example.hydro_guard.bench;
+
+import com.example.hydro_guard.SnapshotDecoder;
+import com.example.hydro_guard.TempatItem;
+import com.example.hydro_guard.UserItem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode node /tempat dan /users (campuran alias lama / baru) menjadi item immutable,
+ * seperti yang dijalankan thread "hg-decode" di dashboard admin.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SnapshotDecoderBench {
+
+    private static final int N = 1024;
+
+    private Map<String, Object>[] tempat;
+    private Map<String, Object>[] users;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Random rnd = new Random(42);
+        tempat = new Map[N];
+        users = new Map[N];
+
+        for (int i = 0; i < N; i++) {
+            boolean legacy = i % 3 == 0;   // data lama pakai snake_case / "name"
+            Map<String, Object> t = new HashMap<>();
+            t.put(legacy ? "name" : "nama", "Kebun " + i);
+            t.put("kecamatan", "Kec " + rnd.nextInt(12));
+            t.put("kelurahan", "Kel " + rnd.nextInt(60));
+            t.put(legacy ? "created_by" : "createdBy", "uid" + rnd.nextInt(50));
+            t.put(legacy ? "operator_id" : "operatorId", "uid" + rnd.nextInt(50));
+            t.put(legacy ? "operator_name" : "operatorName", "Operator " + rnd.nextInt(50));
+            if (i % 4 != 0) t.put(legacy ? "device_id" : "deviceId", "HG-" + rnd.nextInt(100));
+            t.put("createdAt", 1_700_000_000_000L + i);
+            tempat[i] = t;
+
+            Map<String, Object> u = new HashMap<>();
+            u.put("name", "User " + i);
+            u.put("email", "user" + i + "@mail.com");
+            u.put("role", i % 5 == 0 ? "admin" : "operator");
+            String[] waKeys = {"no_wa", "hp", "phone", "wa"};
+            u.put(waKeys[i % 4], "0812" + (1_000_000 + rnd.nextInt(9_000_000)));
+            u.put("approved", i % 2 == 0 ? Boolean.TRUE : "false");
+            u.put("lastLoginAt", 1_700_000_000_000L + i);
+            users[i] = u;
+        }
+    }
+
+    @Benchmark
+    public int tempat() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            TempatItem t = SnapshotDecoder.tempat("t" + i, tempat[i]);
+            n += t.deviceId.length();
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int user() {
+        int n = 0;
+        for (int i = 0; i < N; i++) {
+            UserItem u = SnapshotDecoder.user("u" + i, users[i]);
+            if (u != null && u.approved) n++;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.hydro_guard.bench;
+
+import com.example.hydro_guard.TelemetryFeatureStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Update telemetry satu armada (500 device, tiap ~2.5 dtk) ke TelemetryFeatureStream,
+ * seperti yang dijalankan AutoDecisionService di main thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TelemetryFeatureStreamBench {
+
+    private static final int DEVICES = 500;
+
+    private String[] ids;
+    private Map<String, Object>[] samples;
+    private TelemetryFeatureStream stream;
+    private long t;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Random rnd = new Random(42);
+        ids = new String[DEVICES];
+        samples = new Map[DEVICES];
+        stream = new TelemetryFeatureStream();
+        for (int i = 0; i < DEVICES; i++) {
+            ids[i] = "HG-" + i;
+            Map<String, Object> s = new HashMap<>();
+            s.put("hum", rnd.nextDouble() * 100);
+            s.put("soil", (long) rnd.nextInt(100));
+            s.put("rain_pct", (long) rnd.nextInt(100));
+            if (i % 2 == 0) s.put("bright", rnd.nextBoolean());
+            else s.put("ldr_adc", (long) rnd.nextInt(4096));
+            samples[i] = s;
+        }
+        for (int k = 0; k < 300; k++) offerAll();
+    }
+
+    private int offerAll() {
+        t += 2_500L;
+        int n = 0;
+        for (int i = 0; i < DEVICES; i++) {
+            Map<String, Object> s = samples[i];
+            if (stream.offer(ids[i], s::get, t)) n++;
+        }
+        return n;
+    }
+
+    /** Satu putaran update seluruh armada (EMA + laju soil + hysteresis). */
+    @Benchmark
+    public int offerFleet() {
+        return offerAll();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.hydro_guard.bench;
+
+import com.example.hydro_guard.TelemetryValues;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode nilai telemetry campuran (Long / Double / String / null) seperti
+ * yang dikirim firmware berbeda ke /devices/{id}/telemetry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TelemetryValuesBench {
+
+    private static final int N = 1024;
+
+    private Object[] numbers;
+    private Object[] bools;
+    private Map<String, Object>[] snapshots;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        Random rnd = new Random(42);
+        numbers = new Object[N];
+        bools = new Object[N];
+        snapshots = new Map[N];
+
+        for (int i = 0; i < N; i++) {
+            switch (i % 5) {
+                case 0: numbers[i] = (long) rnd.nextInt(100); break;
+                case 1: numbers[i] = rnd.nextDouble() * 100; break;
+                case 2: numbers[i] = String.valueOf(rnd.nextInt(4096)); break;
+                case 3: numbers[i] = " " + (rnd.nextDouble() * 100) + " "; break;
+                default: numbers[i] = null; break;
+            }
+            switch (i % 4) {
+                case 0: bools[i] = Boolean.TRUE; break;
+                case 1: bools[i] = 1L; break;
+                case 2: bools[i] = "ON"; break;
+                default: bools[i] = "false"; break;
+            }
+
+            // alias key beda-beda seperti di ManualControlActivity
+            Map<String, Object> s = new HashMap<>();
+            if (i % 3 == 0) s.put("hum", rnd.nextDouble() * 100);
+            else if (i % 3 == 1) s.put("humidity", String.valueOf(rnd.nextInt(100)));
+            else s.put("Humidity", (long) rnd.nextInt(100));
+            snapshots[i] = s;
+        }
+    }
+
+    @Benchmark
+    public double toDouble() {
+        double sum = 0;
+        for (Object v : numbers) sum += TelemetryValues.toDouble(v, 0.0);
+        return sum;
+    }
+
+    @Benchmark
+    public double firstDouble() {
+        double sum = 0;
+        for (Map<String, Object> s : snapshots) {
+            sum += TelemetryValues.firstDouble(s::get, 0.0, "hum", "humidity", "Humidity");
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int parseBoolLike() {
+        int on = 0;
+        for (Object v : bools) if (TelemetryValues.parseBoolLike(v)) on++;
+        return on;
+    }
+}
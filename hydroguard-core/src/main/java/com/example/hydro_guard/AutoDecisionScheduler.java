@@ -0,0 +1,234 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Penjadwal keputusan AI untuk device mode otomatis (dipakai AutoDecisionService).
+ *
+ * Telemetry baru hanya memicu prediksi kalau fiturnya berubah cukup jauh dari
+ * keputusan terakhir, tanah mulai / berhenti cepat kering (dryingFast), atau
+ * keputusan sudah lewat refreshMs. Tiap device paling
+ * sering sekali per minIntervalMs, antrean kerja dibatasi queueCapacity (device
+ * yang sudah antre cukup diganti fiturnya), dan yang berjalan bersamaan paling
+ * banyak maxInFlight.
+ *
+ * Tidak thread-safe; dipanggil dari main thread.
+ */
+public final class AutoDecisionScheduler {
+
+    public static final long DEFAULT_MIN_INTERVAL_MS = 30_000L;
+    public static final long DEFAULT_REFRESH_MS = 10 * 60_000L;
+    public static final double DEFAULT_SOIL_DELTA = 2.0;
+    public static final double DEFAULT_HUMIDITY_DELTA = 3.0;
+    public static final int DEFAULT_QUEUE_CAPACITY = 128;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    /** Fitur input model (dari TelemetryFeatureStream), sama dengan yang dikirim ManualControlActivity. */
+    public static final class Features {
+        public final double humidity, soilMoisture;
+        public final int rainfall, sunlight;   // biner 0/1
+        /** Hanya pemicu keputusan ulang, tidak dikirim ke model. */
+        public final boolean dryingFast;
+
+        public Features(double humidity, int rainfall, int sunlight, double soilMoisture) {
+            this(humidity, rainfall, sunlight, soilMoisture, false);
+        }
+
+        public Features(double humidity, int rainfall, int sunlight, double soilMoisture, boolean dryingFast) {
+            this.humidity = humidity;
+            this.rainfall = rainfall;
+            this.sunlight = sunlight;
+            this.soilMoisture = soilMoisture;
+            this.dryingFast = dryingFast;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "hum=%.1f soil=%.1f rain=%d sun=%d%s",
+                    humidity, soilMoisture, rainfall, sunlight, dryingFast ? " cepat-kering" : "");
+        }
+    }
+
+    /** Satu prediksi yang boleh dijalankan sekarang. */
+    public static final class Job {
+        public final String deviceId;
+        public final Features features;
+
+        Job(String deviceId, Features features) {
+            this.deviceId = deviceId;
+            this.features = features;
+        }
+    }
+
+    private static final class Device {
+        final String id;
+        Features decided;          // fitur keputusan terakhir yang berhasil ditulis
+        long decidedAt;
+        Features pending;          // != null → sedang di antrean
+        Features running;          // != null → prediksi sedang jalan
+        boolean started = false;
+        long lastStartAt;
+
+        Device(String id) { this.id = id; }
+    }
+
+    private final long minIntervalMs, refreshMs;
+    private final double soilDelta, humidityDelta;
+    private final int queueCapacity, maxInFlight;
+
+    private final Map<String, Device> devices = new HashMap<>();   // hanya device mode otomatis
+    private final ArrayDeque<Device> queue = new ArrayDeque<>();
+    private final Set<String> inFlight = new HashSet<>();
+
+    private long offered, unchanged, coalesced, dropped, startedJobs, decidedJobs;
+
+    public AutoDecisionScheduler() {
+        this(DEFAULT_MIN_INTERVAL_MS, DEFAULT_REFRESH_MS, DEFAULT_SOIL_DELTA, DEFAULT_HUMIDITY_DELTA,
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public AutoDecisionScheduler(long minIntervalMs, long refreshMs, double soilDelta, double humidityDelta,
+                                 int queueCapacity, int maxInFlight) {
+        if (minIntervalMs < 0 || refreshMs <= 0) throw new IllegalArgumentException("interval tidak valid");
+        if (queueCapacity < 1 || maxInFlight < 1) throw new IllegalArgumentException("kapasitas harus >= 1");
+        this.minIntervalMs = minIntervalMs;
+        this.refreshMs = refreshMs;
+        this.soilDelta = soilDelta;
+        this.humidityDelta = humidityDelta;
+        this.queueCapacity = queueCapacity;
+        this.maxInFlight = maxInFlight;
+    }
+
+    // ===================== MODE =====================
+    /** Device masuk / keluar mode otomatis. Keluar → antrean & riwayat keputusan dibuang. */
+    public void setAuto(String deviceId, boolean auto) {
+        if (auto) {
+            if (!devices.containsKey(deviceId)) devices.put(deviceId, new Device(deviceId));
+            return;
+        }
+        Device d = devices.remove(deviceId);
+        if (d != null && d.pending != null) queue.remove(d);
+    }
+
+    public boolean isAuto(String deviceId) {
+        return devices.containsKey(deviceId);
+    }
+
+    public int autoCount() {
+        return devices.size();
+    }
+
+    // ===================== TELEMETRY =====================
+    /**
+     * Telemetry baru. true kalau device (masih / baru) ada di antrean; false kalau
+     * bukan mode otomatis, fitur tidak berubah berarti, atau antrean penuh.
+     */
+    public boolean offer(String deviceId, Features f, long nowMs) {
+        Device d = devices.get(deviceId);
+        if (d == null) return false;
+        offered++;
+
+        if (d.pending != null) {           // sudah antre: cukup pakai fitur terbaru
+            d.pending = f;
+            coalesced++;
+            return true;
+        }
+        Features base = (d.running != null) ? d.running : d.decided;
+        boolean due = base == null || (d.running == null && nowMs - d.decidedAt >= refreshMs);
+        if (!due && !changed(base, f)) {
+            unchanged++;
+            return false;
+        }
+        if (queue.size() >= queueCapacity) {
+            dropped++;
+            return false;
+        }
+        d.pending = f;
+        queue.addLast(d);
+        return true;
+    }
+
+    private boolean changed(Features a, Features b) {
+        return Math.abs(a.soilMoisture - b.soilMoisture) >= soilDelta
+                || Math.abs(a.humidity - b.humidity) >= humidityDelta
+                || a.rainfall != b.rainfall || a.sunlight != b.sunlight
+                || a.dryingFast != b.dryingFast;
+    }
+
+    // ===================== JALANKAN =====================
+    /** Job berikutnya yang boleh jalan sekarang (urut antre), atau null. */
+    public Job poll(long nowMs) {
+        if (inFlight.size() >= maxInFlight) return null;
+        for (Iterator<Device> it = queue.iterator(); it.hasNext(); ) {
+            Device d = it.next();
+            if (d.running != null || eligibleAt(d) > nowMs) continue;
+            it.remove();
+            Job job = new Job(d.id, d.pending);
+            d.running = d.pending;
+            d.pending = null;
+            d.started = true;
+            d.lastStartAt = nowMs;
+            inFlight.add(d.id);
+            startedJobs++;
+            return job;
+        }
+        return null;
+    }
+
+    /**
+     * Prediksi selesai. decided = keputusan berhasil ditulis (jadi acuan perubahan
+     * berikutnya); false = gagal / dilewati, telemetry berikutnya boleh mencoba lagi.
+     */
+    public void complete(String deviceId, boolean decided, long nowMs) {
+        inFlight.remove(deviceId);
+        Device d = devices.get(deviceId);
+        if (d == null || d.running == null) return;
+        if (decided) {
+            d.decided = d.running;
+            d.decidedAt = nowMs;
+            decidedJobs++;
+        }
+        d.running = null;
+    }
+
+    /**
+     * ms sampai ada job antre yang lepas dari rate limit (0 = sudah ada), -1 = antrean kosong.
+     * Job yang tertahan maxInFlight dijalankan lagi lewat complete() → poll().
+     */
+    public long nextDueInMs(long nowMs) {
+        long best = -1;
+        for (Device d : queue) {
+            if (d.running != null) continue;
+            long wait = Math.max(0, eligibleAt(d) - nowMs);
+            if (best < 0 || wait < best) best = wait;
+        }
+        return best;
+    }
+
+    private long eligibleAt(Device d) {
+        return d.started ? d.lastStartAt + minIntervalMs : Long.MIN_VALUE;
+    }
+
+    // ===================== STATISTIK =====================
+    public int queued() {
+        return queue.size();
+    }
+
+    public int running() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return "AutoDecisionScheduler{auto=" + devices.size() + ", queued=" + queue.size()
+                + ", running=" + inFlight.size() + ", offered=" + offered + ", unchanged=" + unchanged
+                + ", coalesced=" + coalesced + ", dropped=" + dropped
+                + ", started=" + startedJobs + ", decided=" + decidedJobs + "}";
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Kontrol pompa banyak device sekaligus (mis. semua tempat di satu kecamatan).
+ *
+ * plan() menyusun satu map multi-lokasi "kontrol_pompa/{id}/{field}" untuk
+ * updateChildren di root: satu round trip dan atomik (semua device tertulis
+ * atau tidak sama sekali). Field yang tidak diminta tidak disentuh, jadi ai_* dan
+ * ack device tetap utuh. Tiap device dengan perubahan status membawa cmdId /
+ * cmdSeq dari CommandTracker, jadi hasil per device bisa dipantau sampai ack ESP32.
+ */
+public final class BulkControl {
+
+    public static final String NODE = "kontrol_pompa";
+
+    /** Perubahan yang diterapkan ke semua device; null = field tidak diubah. */
+    public static final class Request {
+        public final String mode;
+        public final Boolean status;
+        public final String updatedBy;
+
+        public Request(String mode, Boolean status, String updatedBy) {
+            if (mode == null && status == null) throw new IllegalArgumentException("mode / status kosong");
+            this.mode = mode;
+            this.status = status;
+            this.updatedBy = updatedBy;
+        }
+
+        /** Matikan darurat: mode manual supaya ESP32 tidak menyalakan lagi lewat rule lokal. */
+        public static Request emergencyOff(String updatedBy) {
+            return new Request("manual", Boolean.FALSE, updatedBy);
+        }
+
+        public static Request switchToAuto(String updatedBy) {
+            return new Request("auto", null, updatedBy);
+        }
+    }
+
+    public enum Outcome { WRITTEN, INVALID_ID, FAILED }
+
+    /** Hasil satu device. command null kalau request tanpa status (tidak ada ack yang ditunggu). */
+    public static final class Result {
+        public final String deviceId;
+        public final CommandTracker.Command command;
+        Outcome outcome;
+
+        Result(String deviceId, Outcome outcome, CommandTracker.Command command) {
+            this.deviceId = deviceId;
+            this.outcome = outcome;
+            this.command = command;
+        }
+
+        public Outcome outcome() {
+            return outcome;
+        }
+    }
+
+    public static final class Plan {
+        public final Request request;
+        /** Untuk updateChildren di root database. */
+        public final Map<String, Object> updates;
+        /** Urut deviceId, sudah tanpa duplikat (beberapa tempat bisa memakai device yang sama). */
+        public final List<Result> results;
+
+        Plan(Request request, Map<String, Object> updates, List<Result> results) {
+            this.request = request;
+            this.updates = Collections.unmodifiableMap(updates);
+            this.results = Collections.unmodifiableList(results);
+        }
+
+        public int written() {
+            return count(Outcome.WRITTEN);
+        }
+
+        public int count(Outcome o) {
+            int n = 0;
+            for (Result r : results) if (r.outcome == o) n++;
+            return n;
+        }
+
+        /** Jumlah device per state ack (hanya request dengan status). */
+        public int count(CommandTracker.State s) {
+            int n = 0;
+            for (Result r : results) if (r.command != null && r.command.state() == s) n++;
+            return n;
+        }
+
+        /** updateChildren gagal: tidak ada device yang tertulis, perintah dibatalkan. */
+        public void markFailed(CommandTracker tracker) {
+            for (Result r : results) {
+                if (r.outcome != Outcome.WRITTEN) continue;
+                r.outcome = Outcome.FAILED;
+                if (r.command != null) tracker.cancel(r.command);
+            }
+        }
+    }
+
+    private BulkControl() {}
+
+    /**
+     * @param serverTimestamp ServerValue.TIMESTAMP (core tidak bergantung ke Firebase SDK)
+     */
+    public static Plan plan(Collection<String> deviceIds, Request req, CommandTracker tracker,
+                            Object serverTimestamp, long nowMs) {
+        Map<String, Object> updates = new HashMap<>();
+        List<Result> results = new ArrayList<>();
+
+        TreeSet<String> unique = new TreeSet<>();
+        for (String id : deviceIds) if (id != null) unique.add(id);
+
+        for (String id : unique) {
+            if (!isValidKey(id)) {
+                results.add(new Result(id, Outcome.INVALID_ID, null));
+                continue;
+            }
+            String base = NODE + "/" + id + "/";
+            CommandTracker.Command cmd = null;
+            if (req.mode != null) updates.put(base + "mode", req.mode);
+            if (req.status != null) {
+                cmd = tracker.issue(id, req.status, nowMs);
+                updates.put(base + "status", req.status);
+                updates.put(base + "cmdId", cmd.id);
+                updates.put(base + "cmdSeq", cmd.seq);
+            }
+            updates.put(base + "updatedBy", req.updatedBy);
+            updates.put(base + "updatedAt", serverTimestamp);
+            results.add(new Result(id, Outcome.WRITTEN, cmd));
+        }
+        return new Plan(req, updates, results);
+    }
+
+    /** Key Firebase: tidak kosong, tanpa . # $ [ ] / dan karakter kontrol. */
+    static boolean isValidKey(String id) {
+        if (id == null || id.isEmpty()) return false;
+        for (int i = 0; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c == '.' || c == '#' || c == '$' || c == '[' || c == ']' || c == '/' || c < 0x20 || c == 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.hydro_guard;
+
+/**
+ * Circuit breaker sederhana untuk endpoint AI.
+ *
+ * CLOSED    : request normal; gagal berturut-turut >= failureThreshold → OPEN
+ * OPEN      : request langsung ditolak (fail fast) selama openMs
+ * HALF_OPEN : setelah openMs, satu request percobaan boleh lewat;
+ *             sukses → CLOSED, gagal → OPEN lagi
+ *
+ * Probe yang berakhir tanpa hasil HTTP (deadline / dibatalkan sebelum terkirim) dilepas
+ * lewat onAbandoned(); sebagai jaring pengaman probe juga kedaluwarsa setelah openMs.
+ */
+public final class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAtMs = 0L;
+    private boolean probeInFlight = false;
+    private long probeStartedAtMs = 0L;
+
+    public CircuitBreaker(int failureThreshold, long openMs) {
+        if (failureThreshold < 1) throw new IllegalArgumentException("failureThreshold harus >= 1");
+        if (openMs <= 0) throw new IllegalArgumentException("openMs harus > 0");
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    /** true kalau request boleh dikirim sekarang. */
+    public synchronized boolean allowRequest(long nowMs) {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (nowMs - openedAtMs < openMs) return false;
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                probeStartedAtMs = nowMs;
+                return true;
+            case HALF_OPEN:
+            default:
+                // Probe yang tidak pernah melapor tidak boleh mengunci breaker selamanya
+                if (probeInFlight && nowMs - probeStartedAtMs < openMs) return false;
+                probeInFlight = true;
+                probeStartedAtMs = nowMs;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure(long nowMs) {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMs = nowMs;
+        }
+    }
+
+    /** Request yang diizinkan selesai tanpa hasil HTTP; lepaskan probe supaya bisa dicoba lagi. */
+    public synchronized void onAbandoned() {
+        if (state == State.HALF_OPEN) probeInFlight = false;
+    }
+
+    public synchronized State state(long nowMs) {
+        if (state == State.OPEN && nowMs - openedAtMs >= openMs) return State.HALF_OPEN;
+        return state;
+    }
+
+    public synchronized int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+}
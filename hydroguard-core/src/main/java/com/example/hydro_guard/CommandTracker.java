@@ -0,0 +1,232 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Pelacak perintah pompa end-to-end (app → kontrol_pompa → ESP32 → ack).
+ *
+ * Tiap tulis kontrol membawa cmdId + cmdSeq (naik per device). ESP32 menyalin
+ * cmdId / cmdSeq yang sudah diterapkan ke ackId / ackSeq; saat ack itu terlihat
+ * lagi di listener, RTT perintah → ack dicatat ke histogram per device.
+ *
+ * Perintah yang tidak pernah di-ack dibedakan:
+ * - overtaken: ack datang untuk perintah yang lebih baru (ESP32 hanya membaca
+ *   state terakhir saat poll, jadi perintah di antaranya terlewati);
+ * - lost: tidak ada ack sama sekali sampai timeoutMs.
+ *
+ * Waktu memakai jam lokal (elapsedRealtime), bukan updatedAt server.
+ */
+public final class CommandTracker {
+
+    public static final long DEFAULT_TIMEOUT_MS = 15_000L;
+    private static final int MAX_PENDING_PER_DEVICE = 32;
+
+    private static final CommandTracker INSTANCE = new CommandTracker(DEFAULT_TIMEOUT_MS, newClientTag());
+
+    public static CommandTracker get() {
+        return INSTANCE;
+    }
+
+    public enum State { PENDING, ACKED, OVERTAKEN, LOST, CANCELLED }
+
+    /** Satu perintah yang sudah (akan) ditulis ke kontrol_pompa/{deviceId}. */
+    public static final class Command {
+        public final String deviceId, id;
+        public final long seq;
+        public final boolean status;
+        final long issuedAtMs;
+        private volatile State state = State.PENDING;
+        private volatile long rttMs = -1;
+
+        Command(String deviceId, String id, long seq, boolean status, long issuedAtMs) {
+            this.deviceId = deviceId;
+            this.id = id;
+            this.seq = seq;
+            this.status = status;
+            this.issuedAtMs = issuedAtMs;
+        }
+
+        public State state() {
+            return state;
+        }
+
+        /** RTT perintah → ack (ms), -1 kalau belum / tidak di-ack. */
+        public long rttMs() {
+            return rttMs;
+        }
+    }
+
+    private static final class Device {
+        long lastSeq;                                         // tertinggi yang pernah dilihat / dibuat
+        final ArrayDeque<Command> pending = new ArrayDeque<>(); // urut seq
+        final PredictMetrics.Histogram rtt;
+        long acked, overtaken, lost;
+
+        Device(String deviceId) {
+            rtt = new PredictMetrics.Histogram(deviceId, "ack", "rtt");
+        }
+    }
+
+    private final long timeoutMs;
+    private final String clientTag;
+    private final Map<String, Device> devices = new TreeMap<>();
+
+    public CommandTracker(long timeoutMs, String clientTag) {
+        if (timeoutMs <= 0) throw new IllegalArgumentException("timeoutMs harus > 0");
+        this.timeoutMs = timeoutMs;
+        this.clientTag = clientTag;
+    }
+
+    private static String newClientTag() {
+        return Long.toString(Math.abs(new Random().nextLong() % 1_679_616L), 36); // 4 char base36
+    }
+
+    public long timeoutMs() {
+        return timeoutMs;
+    }
+
+    // ===================== KIRIM =====================
+    /** Perintah baru: seq = terbesar yang diketahui + 1. */
+    public synchronized Command issue(String deviceId, boolean status, long nowMs) {
+        Device d = device(deviceId);
+        long seq = ++d.lastSeq;
+        Command c = new Command(deviceId, clientTag + "-" + seq, seq, status, nowMs);
+        if (d.pending.size() >= MAX_PENDING_PER_DEVICE) {
+            d.pending.pollFirst().state = State.LOST;
+            d.lost++;
+        }
+        d.pending.addLast(c);
+        return c;
+    }
+
+    /** Tulis gagal / transaksi dibatalkan: perintah tidak pernah sampai ke node. */
+    public synchronized void cancel(Command c) {
+        Device d = devices.get(c.deviceId);
+        if (d != null && d.pending.remove(c)) c.state = State.CANCELLED;
+    }
+
+    /** cmdSeq / ackSeq yang terlihat di node (termasuk dari penulis lain). */
+    public synchronized void observeSeq(String deviceId, long seq) {
+        Device d = device(deviceId);
+        if (seq > d.lastSeq) d.lastSeq = seq;
+    }
+
+    // ===================== ACK =====================
+    /**
+     * ackId / ackSeq terbaru dari node. RTT (ms) kalau ack ini untuk perintah kita
+     * yang masih pending, -1 kalau bukan (ack lama, duplikat, atau penulis lain).
+     * Perintah pending dengan seq <= ackSeq selain yang di-ack dihitung overtaken.
+     */
+    public synchronized long onAck(String deviceId, String ackId, long ackSeq, long nowMs) {
+        if (ackId == null) return -1;
+        Device d = devices.get(deviceId);
+        if (d == null || d.pending.isEmpty()) return -1;
+        if (ackSeq > d.lastSeq) d.lastSeq = ackSeq;
+
+        long rttMs = -1;
+        for (Iterator<Command> it = d.pending.iterator(); it.hasNext(); ) {
+            Command c = it.next();
+            if (c.seq > ackSeq) break;
+            it.remove();
+            if (c.id.equals(ackId)) {
+                rttMs = Math.max(0, nowMs - c.issuedAtMs);
+                d.rtt.record(rttMs * 1000L);
+                d.acked++;
+                c.rttMs = rttMs;
+                c.state = State.ACKED;
+            } else {
+                d.overtaken++;
+                c.state = State.OVERTAKEN;
+            }
+        }
+        return rttMs;
+    }
+
+    /** Tandai perintah yang lewat timeoutMs tanpa ack sebagai lost. Return jumlahnya. */
+    public synchronized int sweep(long nowMs) {
+        int n = 0;
+        for (Device d : devices.values()) {
+            while (!d.pending.isEmpty() && nowMs - d.pending.peekFirst().issuedAtMs >= timeoutMs) {
+                d.pending.pollFirst().state = State.LOST;
+                d.lost++;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /** Perintah terbaru yang belum di-ack, atau null. */
+    public synchronized Command pending(String deviceId) {
+        Device d = devices.get(deviceId);
+        return (d == null) ? null : d.pending.peekLast();
+    }
+
+    /** ms sampai perintah pending tertua device ini timeout, -1 kalau tidak ada. */
+    public synchronized long nextTimeoutInMs(String deviceId, long nowMs) {
+        Device d = devices.get(deviceId);
+        if (d == null || d.pending.isEmpty()) return -1;
+        return Math.max(0, d.pending.peekFirst().issuedAtMs + timeoutMs - nowMs);
+    }
+
+    // ===================== BACA =====================
+    public static final class Row {
+        public final String deviceId;
+        public final long acked, overtaken, lost;
+        public final int pending;
+        public final double p50Ms, p95Ms, p99Ms, maxMs;
+
+        Row(String deviceId, long acked, long overtaken, long lost, int pending,
+            double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+            this.deviceId = deviceId;
+            this.acked = acked;
+            this.overtaken = overtaken;
+            this.lost = lost;
+            this.pending = pending;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+        }
+    }
+
+    /** Per device urut deviceId. */
+    public synchronized List<Row> snapshot() {
+        List<Row> rows = new ArrayList<>();
+        for (Map.Entry<String, Device> e : devices.entrySet()) {
+            Device d = e.getValue();
+            if (d.acked + d.overtaken + d.lost + d.pending.size() == 0) continue;
+            rows.add(new Row(e.getKey(), d.acked, d.overtaken, d.lost, d.pending.size(),
+                    d.rtt.percentileUs(0.50) / 1000.0,
+                    d.rtt.percentileUs(0.95) / 1000.0,
+                    d.rtt.percentileUs(0.99) / 1000.0,
+                    d.rtt.maxUs() / 1000.0));
+        }
+        return rows;
+    }
+
+    /** Tabel teks untuk Log / layar diagnostik. */
+    public String dump() {
+        StringBuilder sb = new StringBuilder("device  acked overtaken lost pending  p50  p95  p99  max (ms)\n");
+        for (Row r : snapshot()) {
+            sb.append(String.format(Locale.US, "%s  %d %d %d %d  %.0f  %.0f  %.0f  %.0f%n",
+                    r.deviceId, r.acked, r.overtaken, r.lost, r.pending, r.p50Ms, r.p95Ms, r.p99Ms, r.maxMs));
+        }
+        return sb.toString();
+    }
+
+    private Device device(String deviceId) {
+        Device d = devices.get(deviceId);
+        if (d == null) {
+            d = new Device(deviceId);
+            devices.put(deviceId, d);
+        }
+        return d;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.hydro_guard;
+
+import java.util.Comparator;
+
+/**
+ * Urutan key seperti orderByKey() Firebase: key yang bisa dibaca sebagai int 32-bit
+ * lebih dulu, urut nilai angkanya ("76" < "101"); sisanya urut string biasa.
+ *
+ * Pakai ini untuk TreeMap / TreeSet yang rentangnya dicocokkan dengan halaman
+ * orderByKey().startAt(); urutan String biasa menaruh "101" sebelum "76".
+ */
+public final class FirebaseKeyOrder implements Comparator<String> {
+
+    public static final FirebaseKeyOrder INSTANCE = new FirebaseKeyOrder();
+
+    private FirebaseKeyOrder() {}
+
+    @Override
+    public int compare(String a, String b) {
+        if (a.equals(b)) return 0;
+        long na = parseInt(a), nb = parseInt(b);
+        boolean ia = na != NOT_INT, ib = nb != NOT_INT;
+        if (ia && ib) {
+            if (na != nb) return na < nb ? -1 : 1;
+            return Integer.compare(a.length(), b.length()); // "7" < "07"
+        }
+        if (ia) return -1;
+        if (ib) return 1;
+        return a.compareTo(b);
+    }
+
+    private static final long NOT_INT = Long.MIN_VALUE;
+
+    /** Nilai int 32-bit dari key, atau NOT_INT (sama seperti tryParseInt di SDK). */
+    static long parseInt(String s) {
+        int n = s.length();
+        if (n == 0 || n > 11) return NOT_INT;
+        int i = 0;
+        boolean negative = false;
+        if (s.charAt(0) == '-') {
+            if (n == 1) return NOT_INT;
+            negative = true;
+            i = 1;
+        }
+        long v = 0;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return NOT_INT;
+            v = v * 10 + (c - '0');
+        }
+        if (negative) v = -v;
+        return (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) ? NOT_INT : v;
+    }
+}
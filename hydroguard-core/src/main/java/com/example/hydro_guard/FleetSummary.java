@@ -0,0 +1,300 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Ringkasan armada untuk header dashboard admin: per kecamatan, per kelurahan
+ * dan seluruh armada (pompa ON, mode otomatis, soil rata-rata / minimum, device basi).
+ *
+ * Unit hitung = tempat (site) yang menunjuk ke satu deviceId. Tiap event telemetry /
+ * status pompa hanya mengurangi kontribusi lama lalu menambah kontribusi baru ke
+ * 3 grup milik tempat itu → O(1) per event (per tempat yang memakai device tsb).
+ *
+ * Kecamatan / kelurahan dikelompokkan dengan LocationIndex.nameKey (trim + huruf kecil),
+ * sama seperti filter daftar tempat: "Cibeunying" dan "cibeunying " satu grup.
+ *
+ * Tidak thread-safe; dipanggil dari main thread.
+ */
+public final class FleetSummary {
+
+    public static final long DEFAULT_STALE_MS = 60_000L;
+
+    private static final int SOIL_BUCKETS = 101; // 0..100 %
+
+    /** Agregat satu grup. Dibaca langsung oleh UI (jangan diubah). */
+    public static final class Stats {
+        int sites, pumpsOn, auto, stale;
+        int soilCount;
+        double soilSum;
+        // Histogram soil per 1% → min tanpa struktur terurut, update O(1)
+        final int[] soilHist = new int[SOIL_BUCKETS];
+
+        public int sites()   { return sites; }
+        public int pumpsOn() { return pumpsOn; }
+        public int auto()    { return auto; }
+        public int stale()   { return stale; }
+
+        /** Rata-rata soil (%) tempat yang punya telemetry, NaN kalau belum ada. */
+        public double meanSoil() {
+            return soilCount == 0 ? Double.NaN : soilSum / soilCount;
+        }
+
+        /** Soil minimum (dibulatkan ke 1%), -1 kalau belum ada. */
+        public int minSoil() {
+            if (soilCount == 0) return -1;
+            for (int i = 0; i < SOIL_BUCKETS; i++) if (soilHist[i] > 0) return i;
+            return -1;
+        }
+
+        boolean isEmpty() {
+            return sites == 0;
+        }
+    }
+
+    private static final class Device {
+        final String id;
+        double soil = Double.NaN;
+        boolean pumpOn, auto;
+        long updatedAt = 0L;
+        boolean stale = true;     // belum pernah ada telemetry = basi
+        final List<Site> sites = new ArrayList<>(1);
+
+        Device(String id) { this.id = id; }
+    }
+
+    private static final class Site {
+        final String tempatId;
+        final Device device;
+        final String kecamatan, kelurahan;   // sudah dinormalisasi (nameKey)
+        Stats[] groups;           // fleet, kecamatan, kelurahan
+
+        Site(String tempatId, Device device, String kecamatan, String kelurahan) {
+            this.tempatId = tempatId; this.device = device;
+            this.kecamatan = kecamatan; this.kelurahan = kelurahan;
+        }
+    }
+
+    private final long staleMs;
+    private final Stats fleet = new Stats();
+    private final Map<String, Stats> byKecamatan = new TreeMap<>();   // key = nameKey(kec)
+    private final Map<String, Stats> byKelurahan = new HashMap<>(); // key = nameKey(kec) + "\n" + nameKey(kel)
+    private final Map<String, Site> sites = new HashMap<>();
+    private final Map<String, Device> devices = new HashMap<>();
+
+    // Device yang masih segar, urut waktu telemetry masuk (paling lama di depan)
+    private final LinkedHashMap<String, Device> fresh = new LinkedHashMap<>();
+
+    public FleetSummary() {
+        this(DEFAULT_STALE_MS);
+    }
+
+    public FleetSummary(long staleMs) {
+        this.staleMs = staleMs;
+    }
+
+    // ===================== TEMPAT =====================
+    /** Tambah / pindahkan tempat. true kalau ada perubahan. */
+    public boolean putSite(String tempatId, String deviceId, String kecamatan, String kelurahan) {
+        kecamatan = LocationIndex.nameKey(kecamatan);
+        kelurahan = LocationIndex.nameKey(kelurahan);
+        Site prev = sites.get(tempatId);
+        if (prev != null && prev.device.id.equals(deviceId)
+                && prev.kecamatan.equals(kecamatan) && prev.kelurahan.equals(kelurahan)) {
+            return false;
+        }
+        if (prev != null) removeSite(tempatId);
+
+        Device d = device(deviceId);
+        Site s = new Site(tempatId, d, kecamatan, kelurahan);
+        s.groups = new Stats[] {
+                fleet,
+                group(byKecamatan, kecamatan),
+                group(byKelurahan, kelurahanKey(kecamatan, kelurahan))
+        };
+        sites.put(tempatId, s);
+        d.sites.add(s);
+        contribute(s, +1);
+        return true;
+    }
+
+    public boolean removeSite(String tempatId) {
+        Site s = sites.remove(tempatId);
+        if (s == null) return false;
+        contribute(s, -1);
+        // Device tetap disimpan walau tidak dipakai tempat lagi: status pompa tidak
+        // dikirim ulang oleh ChildEventListener, dan tempat yang hanya pindah lokasi
+        // langsung memakai state yang sama
+        s.device.sites.remove(s);
+        if (s.groups[1].isEmpty()) byKecamatan.remove(s.kecamatan);
+        if (s.groups[2].isEmpty()) byKelurahan.remove(kelurahanKey(s.kecamatan, s.kelurahan));
+        return true;
+    }
+
+    /** Buang tempat yang tidak ada lagi di snapshot /tempat terbaru. */
+    public boolean retainSites(Collection<String> tempatIds) {
+        Set<String> keep = new HashSet<>(tempatIds);
+        boolean changed = false;
+        for (String id : new ArrayList<>(sites.keySet())) {
+            if (!keep.contains(id)) changed |= removeSite(id);
+        }
+        return changed;
+    }
+
+    /** deviceId yang dipakai minimal satu tempat (untuk subscribe telemetry). */
+    public Set<String> deviceIds() {
+        Set<String> out = new HashSet<>();
+        for (Device d : devices.values()) if (!d.sites.isEmpty()) out.add(d.id);
+        return out;
+    }
+
+    /** true kalau device masih dipakai minimal satu tempat. */
+    public boolean isDeviceUsed(String deviceId) {
+        Device d = devices.get(deviceId);
+        return d != null && !d.sites.isEmpty();
+    }
+
+    /** true kalau device sudah pernah menerima telemetry (live atau dari cache). */
+    public boolean hasTelemetry(String deviceId) {
+        Device d = devices.get(deviceId);
+        return d != null && d.updatedAt > 0;
+    }
+
+    // ===================== EVENT =====================
+    /**
+     * Telemetry terbaru satu device.
+     * @param soil      % (NaN kalau tidak ada)
+     * @param updatedAt ms server (updatedAt); <= 0 → pakai nowMs
+     */
+    public boolean onTelemetry(String deviceId, double soil, long updatedAt, long nowMs) {
+        Device d = devices.get(deviceId);
+        if (d == null || d.sites.isEmpty()) return false;
+
+        long at = updatedAt > 0 ? updatedAt : nowMs;
+        boolean stale = nowMs - at > staleMs;
+        if (d.stale == stale && d.updatedAt == at && sameSoil(d.soil, soil)) return false;
+
+        for (Site s : d.sites) contribute(s, -1);
+        d.soil = soil;
+        d.updatedAt = at;
+        d.stale = stale;
+        for (Site s : d.sites) contribute(s, +1);
+
+        // Snapshot lama (cache saat attach) langsung basi, tidak masuk antrean segar
+        fresh.remove(deviceId);
+        if (!stale) fresh.put(deviceId, d);
+        return true;
+    }
+
+    /**
+     * Status pompa + mode dari kontrol_pompa/{deviceId}. Device yang belum dipakai
+     * tempat mana pun tetap dicatat (kontrol_pompa bisa datang sebelum /tempat).
+     */
+    public boolean onPump(String deviceId, boolean on, boolean auto) {
+        Device d = device(deviceId);
+        if (d.pumpOn == on && d.auto == auto) return false;
+
+        for (Site s : d.sites) contribute(s, -1);
+        d.pumpOn = on;
+        d.auto = auto;
+        for (Site s : d.sites) contribute(s, +1);
+        return true;
+    }
+
+    /**
+     * Tandai device yang telemetry-nya sudah lewat staleMs. Hanya menelusuri
+     * device tertua sampai ketemu yang masih segar (amortized O(1)).
+     */
+    public boolean sweepStale(long nowMs) {
+        boolean changed = false;
+        Iterator<Device> it = fresh.values().iterator();
+        while (it.hasNext()) {
+            Device d = it.next();
+            if (nowMs - d.updatedAt <= staleMs) break;
+            it.remove();
+            for (Site s : d.sites) contribute(s, -1);
+            d.stale = true;
+            for (Site s : d.sites) contribute(s, +1);
+            changed = true;
+        }
+        return changed;
+    }
+
+    // ===================== BACA =====================
+    public Stats fleet() {
+        return fleet;
+    }
+
+    /** null kalau kecamatan tidak punya tempat. */
+    public Stats kecamatan(String kecamatan) {
+        return byKecamatan.get(LocationIndex.nameKey(kecamatan));
+    }
+
+    public Stats kelurahan(String kecamatan, String kelurahan) {
+        return byKelurahan.get(kelurahanKey(LocationIndex.nameKey(kecamatan), LocationIndex.nameKey(kelurahan)));
+    }
+
+    /** Semua kecamatan urut nama ternormalisasi (key = nameKey, view read-only). */
+    public Map<String, Stats> byKecamatan() {
+        return Collections.unmodifiableMap(byKecamatan);
+    }
+
+    // ===================== internal =====================
+    private static void contribute(Site s, int sign) {
+        Device d = s.device;
+        boolean hasSoil = !Double.isNaN(d.soil);
+        int bucket = hasSoil ? soilBucket(d.soil) : -1;
+
+        for (Stats g : s.groups) {
+            g.sites += sign;
+            if (d.pumpOn) g.pumpsOn += sign;
+            if (d.auto) g.auto += sign;
+            if (d.stale) g.stale += sign;
+            if (hasSoil) {
+                g.soilCount += sign;
+                g.soilSum += sign * d.soil;
+                g.soilHist[bucket] += sign;
+            }
+        }
+    }
+
+    private Device device(String id) {
+        Device d = devices.get(id);
+        if (d == null) {
+            d = new Device(id);
+            devices.put(id, d);
+        }
+        return d;
+    }
+
+    private static Stats group(Map<String, Stats> map, String key) {
+        Stats g = map.get(key);
+        if (g == null) {
+            g = new Stats();
+            map.put(key, g);
+        }
+        return g;
+    }
+
+    private static String kelurahanKey(String kecamatan, String kelurahan) {
+        return kecamatan + "\n" + kelurahan;
+    }
+
+    private static int soilBucket(double soil) {
+        long r = Math.round(soil);
+        return (int) Math.max(0, Math.min(SOIL_BUCKETS - 1, r));
+    }
+
+    private static boolean sameSoil(double a, double b) {
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+}
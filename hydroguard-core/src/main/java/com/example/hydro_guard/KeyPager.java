@@ -0,0 +1,125 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batas halaman untuk daftar yang dimuat per halaman dengan orderByKey() (Kelola Tempat).
+ *
+ * Halaman membagi ruang key tanpa celah: halaman i = [startKey_i, startKey_i+1) menurut
+ * FirebaseKeyOrder. Hanya halaman terakhir yang terbuka (limitToFirst(pageSize + 1), child
+ * ke-(pageSize + 1) jadi nextKey); begitu halaman berikutnya dibuat, halaman itu dikunci
+ * ke endBefore(nextKey). Insert di halaman tengah membuat halaman itu membesar, bukan
+ * mendorong tempat ke celah antar halaman, jadi key yang hilang dari snapshot halamannya
+ * memang sudah dihapus di server.
+ *
+ * Tidak thread-safe; dipanggil dari main thread.
+ */
+public final class KeyPager<T> {
+
+    /** Satu halaman: rentang key + isi snapshot terakhir. */
+    public static final class Page<T> {
+        public final String startKey;      // null = dari awal
+        String endKey;                     // eksklusif; null = halaman terakhir (terbuka)
+        Map<String, T> items = Collections.emptyMap();
+        String nextKey;                    // hanya halaman terbuka: awal halaman berikutnya
+        boolean loaded = false;
+
+        Page(String startKey) {
+            this.startKey = startKey;
+        }
+
+        /** endBefore untuk query halaman; null = pakai limitToFirst(limit()). */
+        public String endKey() {
+            return endKey;
+        }
+
+        public String nextKey() {
+            return nextKey;
+        }
+
+        public Map<String, T> items() {
+            return items;
+        }
+
+        public boolean isLoaded() {
+            return loaded;
+        }
+
+        /** Akhir rentang yang sudah dimuat (eksklusif); null = sampai akhir /tempat. */
+        public String loadedEndKey() {
+            return (endKey != null) ? endKey : nextKey;
+        }
+    }
+
+    private final int pageSize;
+    private final List<Page<T>> pages = new ArrayList<>();
+
+    public KeyPager(int pageSize) {
+        if (pageSize < 1) throw new IllegalArgumentException("pageSize harus >= 1");
+        this.pageSize = pageSize;
+    }
+
+    public List<Page<T>> pages() {
+        return Collections.unmodifiableList(pages);
+    }
+
+    public boolean isEmpty() {
+        return pages.isEmpty();
+    }
+
+    /** Masih ada halaman yang belum dimuat (halaman terakhir belum selesai / punya nextKey). */
+    public boolean hasMore() {
+        if (pages.isEmpty()) return true;
+        Page<T> last = pages.get(pages.size() - 1);
+        return !last.loaded || last.nextKey != null;
+    }
+
+    /** limitToFirst untuk query halaman terbuka (satu lebih untuk nextKey). */
+    public int limit() {
+        return pageSize + 1;
+    }
+
+    /** Berapa child yang disimpan dari snapshot halaman ini; child berikutnya = nextKey. */
+    public int keepCount(Page<T> page) {
+        return (page.endKey == null) ? pageSize : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Halaman baru sesudah halaman terakhir, atau null kalau halaman terakhir belum dimuat /
+     * sudah habis. Halaman terakhir yang lama jadi tertutup (endKey = startKey halaman baru):
+     * pemanggil harus memasang ulang query-nya.
+     */
+    public Page<T> addPage() {
+        if (!pages.isEmpty()) {
+            Page<T> last = pages.get(pages.size() - 1);
+            if (!last.loaded || last.nextKey == null) return null;
+            last.endKey = last.nextKey;
+            last.nextKey = null;
+        }
+        Page<T> page = new Page<>(pages.isEmpty() ? null : pages.get(pages.size() - 1).endKey);
+        pages.add(page);
+        return page;
+    }
+
+    /**
+     * Snapshot baru satu halaman (sudah dipotong ke keepCount; nextKey = child sesudahnya,
+     * hanya untuk halaman terbuka). Return isi lama; key lama yang tidak ada di items =
+     * dihapus di server (atau, di halaman terbuka, terdorong ke bagian yang belum dimuat).
+     */
+    public Map<String, T> apply(Page<T> page, Map<String, T> items, String nextKey) {
+        Map<String, T> old = page.items;
+        page.items = items;
+        page.nextKey = (page.endKey == null) ? nextKey : null;
+        page.loaded = true;
+        return old;
+    }
+
+    /** Query halaman gagal: anggap selesai tanpa halaman berikutnya. */
+    public void failed(Page<T> page) {
+        page.loaded = true;
+        if (page.endKey == null) page.nextKey = null;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.hydro_guard;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Evaluator RandomForest on-device (pure Java).
+ *
+ * Membaca file hasil export_forest.py (flat array: fitur, threshold, offset anak,
+ * probabilitas leaf) lalu menghitung P(ON) persis seperti predict_proba sklearn:
+ * rata-rata probabilitas leaf dari semua pohon.
+ */
+public final class LocalForestModel {
+
+    // Urutan fitur WAJIB sama dengan main.py (FEATURE_ORDER)
+    public static final String[] FEATURE_ORDER = {"Humidity", "Rainfall", "Sunlight", "Soil_Moisture"};
+
+    private static final int MAGIC = 0x48475246; // "HGRF"
+    private static final int VERSION = 1;
+
+    private final int[] roots;
+    private final int[] feature;
+    private final double[] threshold;
+    private final int[] left;
+    private final int[] right;
+    private final double[] probOn;
+
+    private LocalForestModel(int[] roots, int[] feature, double[] threshold,
+                             int[] left, int[] right, double[] probOn) {
+        this.roots = roots;
+        this.feature = feature;
+        this.threshold = threshold;
+        this.left = left;
+        this.right = right;
+        this.probOn = probOn;
+    }
+
+    public static LocalForestModel load(InputStream in) throws IOException {
+        DataInputStream din = new DataInputStream(new BufferedInputStream(in));
+        try {
+            if (din.readInt() != MAGIC) throw new IOException("Bukan file forest HGRF");
+            int version = din.readInt();
+            if (version != VERSION) throw new IOException("Versi forest tidak didukung: " + version);
+
+            int nFeatures = din.readInt();
+            String[] names = new String[nFeatures];
+            for (int i = 0; i < nFeatures; i++) names[i] = din.readUTF();
+            if (!Arrays.equals(names, FEATURE_ORDER)) {
+                throw new IOException("Urutan fitur model " + Arrays.toString(names)
+                        + " != " + Arrays.toString(FEATURE_ORDER));
+            }
+
+            int nTrees = din.readInt();
+            int nNodes = din.readInt();
+            if (nTrees <= 0 || nNodes <= 0) throw new IOException("Forest kosong");
+
+            int[] roots = readInts(din, nTrees);
+            int[] feature = readInts(din, nNodes);
+            double[] threshold = readDoubles(din, nNodes);
+            int[] left = readInts(din, nNodes);
+            int[] right = readInts(din, nNodes);
+            double[] probOn = readDoubles(din, nNodes);
+
+            validate(roots, feature, left, right, nFeatures);
+            return new LocalForestModel(roots, feature, threshold, left, right, probOn);
+        } finally {
+            din.close();
+        }
+    }
+
+    private static int[] readInts(DataInputStream din, int n) throws IOException {
+        int[] out = new int[n];
+        for (int i = 0; i < n; i++) out[i] = din.readInt();
+        return out;
+    }
+
+    private static double[] readDoubles(DataInputStream din, int n) throws IOException {
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) out[i] = din.readDouble();
+        return out;
+    }
+
+    // Cegah loop tak berujung / index keluar batas kalau file korup
+    private static void validate(int[] roots, int[] feature, int[] left, int[] right, int nFeatures) throws IOException {
+        int n = feature.length;
+        for (int r : roots) {
+            if (r < 0 || r >= n) throw new IOException("Root di luar batas: " + r);
+        }
+        for (int i = 0; i < n; i++) {
+            if (feature[i] < 0) continue;
+            if (feature[i] >= nFeatures) throw new IOException("Index fitur salah di node " + i);
+            if (left[i] <= i || left[i] >= n || right[i] <= i || right[i] >= n) {
+                throw new IOException("Offset anak salah di node " + i);
+            }
+        }
+    }
+
+    public int treeCount() {
+        return roots.length;
+    }
+
+    public int nodeCount() {
+        return feature.length;
+    }
+
+    /**
+     * P(pompa ON) untuk fitur mentah (urutan FEATURE_ORDER).
+     * Input di-cast ke float seperti sklearn (X float32) supaya hasil split identik.
+     */
+    public double predictProbaOn(double humidity, double rainfall, double sunlight, double soilMoisture) {
+        double x0 = (float) humidity;
+        double x1 = (float) rainfall;
+        double x2 = (float) sunlight;
+        double x3 = (float) soilMoisture;
+
+        double sum = 0.0;
+        for (int root : roots) {
+            int n = root;
+            int f;
+            while ((f = feature[n]) >= 0) {
+                double x = (f == 0) ? x0 : (f == 1) ? x1 : (f == 2) ? x2 : x3;
+                n = (x <= threshold[n]) ? left[n] : right[n];
+            }
+            sum += probOn[n];
+        }
+        return sum / roots.length;
+    }
+
+    /** Sama dengan model.predict: kelas dengan proba terbesar (seri → OFF, seperti argmax). */
+    public static int statusFor(double probOn) {
+        return probOn > 0.5 ? 1 : 0;
+    }
+}
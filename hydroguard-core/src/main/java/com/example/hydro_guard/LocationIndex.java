@@ -0,0 +1,190 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index lokasi tempat: kecamatan → kelurahan → tempatId, di-update per tempat.
+ *
+ * Dipakai Kelola Tempat untuk opsi spinner berjenjang (kelurahan ikut kecamatan yang
+ * dipilih) dan hasil filter tanpa menelusuri semua tempat: lookup langsung ke
+ * grup yang dipilih, O(hasil). Nama dibandingkan tanpa beda huruf besar-kecil
+ * (sama seperti filter lama: equalsIgnoreCase); yang tampil = ejaan pertama yang masuk.
+ *
+ * Urutan hasil = urut tempatId menurut FirebaseKeyOrder (sama dengan orderByKey()).
+ * Tidak thread-safe.
+ */
+public final class LocationIndex {
+
+    /** Nilai kosong dari parser tempat; tidak muncul sebagai opsi. */
+    public static final String NONE = "-";
+
+    /** Satu grup (kecamatan / kelurahan): tempat urut id + nama tampilan. */
+    private static final class Group {
+        final String label;
+        final TreeMap<String, TempatItem> tempat = new TreeMap<>(FirebaseKeyOrder.INSTANCE);
+        final TreeMap<String, Group> children = new TreeMap<>(); // hanya di level kecamatan
+
+        Group(String label) { this.label = label; }
+    }
+
+    private final TreeMap<String, TempatItem> all = new TreeMap<>(FirebaseKeyOrder.INSTANCE);
+    private final TreeMap<String, Group> kecamatan = new TreeMap<>();
+    // Semua kelurahan lintas kecamatan (opsi saat kecamatan = Semua): key → jumlah tempat
+    private final TreeMap<String, Integer> kelurahanCount = new TreeMap<>();
+    private final Map<String, String> kelurahanLabel = new HashMap<>();
+
+    // ===================== UPDATE =====================
+    /** Tambah / ganti satu tempat. false kalau isinya sama persis. */
+    public boolean put(TempatItem t) {
+        TempatItem prev = all.get(t.tempatId);
+        if (prev != null && prev.sameContent(t)) return false;
+        if (prev != null) unlink(prev);
+
+        all.put(t.tempatId, t);
+        String kecKey = nameKey(t.kecamatan), kelKey = nameKey(t.kelurahan);
+
+        Group kec = kecamatan.get(kecKey);
+        if (kec == null) {
+            kec = new Group(t.kecamatan);
+            kecamatan.put(kecKey, kec);
+        }
+        kec.tempat.put(t.tempatId, t);
+
+        Group kel = kec.children.get(kelKey);
+        if (kel == null) {
+            kel = new Group(t.kelurahan);
+            kec.children.put(kelKey, kel);
+        }
+        kel.tempat.put(t.tempatId, t);
+
+        Integer n = kelurahanCount.get(kelKey);
+        kelurahanCount.put(kelKey, n == null ? 1 : n + 1);
+        if (n == null) kelurahanLabel.put(kelKey, t.kelurahan);
+        return true;
+    }
+
+    /** false kalau tempatId memang tidak ada. */
+    public boolean remove(String tempatId) {
+        TempatItem prev = (tempatId == null) ? null : all.remove(tempatId);
+        if (prev == null) return false;
+        unlink(prev);
+        return true;
+    }
+
+    public void clear() {
+        all.clear();
+        kecamatan.clear();
+        kelurahanCount.clear();
+        kelurahanLabel.clear();
+    }
+
+    // ===================== BACA =====================
+    public TempatItem get(String tempatId) {
+        return (tempatId == null) ? null : all.get(tempatId);
+    }
+
+    public boolean contains(String tempatId) {
+        return tempatId != null && all.containsKey(tempatId);
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    /** Semua tempat urut id (view read-only). */
+    public Collection<TempatItem> all() {
+        return Collections.unmodifiableCollection(all.values());
+    }
+
+    /** Opsi kecamatan urut nama, tanpa "-". */
+    public List<String> kecamatanOptions() {
+        List<String> out = new ArrayList<>(kecamatan.size());
+        for (Map.Entry<String, Group> e : kecamatan.entrySet()) {
+            if (!NONE.equals(e.getKey())) out.add(e.getValue().label);
+        }
+        return out;
+    }
+
+    /**
+     * Opsi kelurahan urut nama, tanpa "-".
+     * @param kec null = semua kecamatan; kecamatan tidak dikenal → kosong
+     */
+    public List<String> kelurahanOptions(String kec) {
+        List<String> out = new ArrayList<>();
+        if (kec == null) {
+            for (String k : kelurahanCount.keySet()) {
+                if (!NONE.equals(k)) out.add(kelurahanLabel.get(k));
+            }
+            return out;
+        }
+        Group g = kecamatan.get(nameKey(kec));
+        if (g == null) return out;
+        for (Map.Entry<String, Group> e : g.children.entrySet()) {
+            if (!NONE.equals(e.getKey())) out.add(e.getValue().label);
+        }
+        return out;
+    }
+
+    /**
+     * Tempat di kecamatan / kelurahan terpilih, urut id. null = "Semua".
+     * Kelurahan tanpa kecamatan dicari di semua kecamatan (perilaku filter lama).
+     */
+    public List<TempatItem> query(String kec, String kel) {
+        if (kec == null && kel == null) return new ArrayList<>(all.values());
+
+        if (kec != null) {
+            Group g = kecamatan.get(nameKey(kec));
+            if (g == null) return new ArrayList<>();
+            if (kel == null) return new ArrayList<>(g.tempat.values());
+            Group k = g.children.get(nameKey(kel));
+            return (k == null) ? new ArrayList<>() : new ArrayList<>(k.tempat.values());
+        }
+
+        // Hanya kelurahan: gabung kelurahan bernama sama dari tiap kecamatan, lalu urut id
+        String kelKey = nameKey(kel);
+        if (!kelurahanCount.containsKey(kelKey)) return new ArrayList<>();
+        TreeMap<String, TempatItem> merged = new TreeMap<>(FirebaseKeyOrder.INSTANCE);
+        for (Group g : kecamatan.values()) {
+            Group k = g.children.get(kelKey);
+            if (k != null) merged.putAll(k.tempat);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    // ===================== internal =====================
+    private void unlink(TempatItem t) {
+        String kecKey = nameKey(t.kecamatan), kelKey = nameKey(t.kelurahan);
+        Group kec = kecamatan.get(kecKey);
+        if (kec != null) {
+            kec.tempat.remove(t.tempatId);
+            Group kel = kec.children.get(kelKey);
+            if (kel != null) {
+                kel.tempat.remove(t.tempatId);
+                if (kel.tempat.isEmpty()) kec.children.remove(kelKey);
+            }
+            if (kec.tempat.isEmpty()) kecamatan.remove(kecKey);
+        }
+
+        Integer n = kelurahanCount.get(kelKey);
+        if (n != null) {
+            if (n <= 1) {
+                kelurahanCount.remove(kelKey);
+                kelurahanLabel.remove(kelKey);
+            } else {
+                kelurahanCount.put(kelKey, n - 1);
+            }
+        }
+    }
+
+    /** Kunci nama kecamatan / kelurahan; dipakai juga oleh FleetSummary supaya header = daftar. */
+    static String nameKey(String name) {
+        return (name == null) ? NONE : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.hydro_guard;
+
+/** Model notif /notifications/{scope}/{id} (wajib public + constructor kosong untuk Firebase). */
+public class NotifItem {
+    public String id;
+    public String message;
+    public String level;   // INFO/WARN/ERROR (opsional)
+    public String type;    // IN / ACC / REJECT
+    public String refId;   // id request terkait (opsional)
+    public long ts;        // epoch millis
+
+    public NotifItem() {}
+}
@@ -0,0 +1,95 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.function.ToLongFunction;
+
+/**
+ * Urut + kelompokkan notifikasi ke "Hari ini" / "Minggu ini".
+ * Dulu tersebar di NotifikasiActivity.renderAll dan NotifikasiOpActivity.render.
+ *
+ * Batas hari dihitung sekali per render (bukan 2 Calendar per item).
+ */
+public final class NotifikasiSorter {
+
+    public static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private NotifikasiSorter() {}
+
+    public static final class Buckets<T> {
+        public final List<T> today = new ArrayList<>();
+        public final List<T> week = new ArrayList<>();
+    }
+
+    public static <T> Comparator<T> newestFirst(ToLongFunction<T> ts) {
+        return (a, b) -> Long.compare(ts.applyAsLong(b), ts.applyAsLong(a));
+    }
+
+    /** Urut terbaru dulu (stabil: ts sama → urutan asli). */
+    public static <T> void sortNewestFirst(List<T> items, ToLongFunction<T> ts) {
+        items.sort(newestFirst(ts));
+    }
+
+    /**
+     * Notifikasi admin: item hari ini → today, sisanya (termasuk riwayat lama
+     * dan ts <= 0) → week. Urutan input dipertahankan.
+     */
+    public static <T> Buckets<T> splitToday(List<T> items, ToLongFunction<T> ts, long now, TimeZone tz) {
+        long startToday = startOfDayMillis(now, tz);
+        long startTomorrow = addDays(startToday, 1, tz);
+
+        Buckets<T> out = new Buckets<>();
+        for (T item : items) {
+            long t = ts.applyAsLong(item);
+            if (t > 0 && t >= startToday && t < startTomorrow) out.today.add(item);
+            else out.week.add(item);
+        }
+        return out;
+    }
+
+    /**
+     * Notifikasi operator: hanya 7 hari terakhir (termasuk hari ini); ts <= 0 dibuang.
+     * Tiap bucket diurut terbaru dulu.
+     */
+    public static <T> Buckets<T> splitLastWeek(Collection<T> items, ToLongFunction<T> ts, long now, TimeZone tz) {
+        long startToday = startOfDayMillis(now, tz);
+        long startWeek = addDays(startToday, -6, tz);
+
+        Buckets<T> out = new Buckets<>();
+        for (T item : items) {
+            if (item == null) continue;
+            long t = ts.applyAsLong(item);
+            if (t <= 0) continue;
+
+            if (t >= startToday) out.today.add(item);
+            else if (t >= startWeek) out.week.add(item);
+        }
+
+        Comparator<T> desc = newestFirst(ts);
+        out.today.sort(desc);
+        out.week.sort(desc);
+        return out;
+    }
+
+    /** Jam 00:00 di zona tz untuk hari yang memuat timeMillis. */
+    public static long startOfDayMillis(long timeMillis, TimeZone tz) {
+        Calendar c = Calendar.getInstance(tz);
+        c.setTimeInMillis(timeMillis);
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        return c.getTimeInMillis();
+    }
+
+    private static long addDays(long startOfDay, int days, TimeZone tz) {
+        Calendar c = Calendar.getInstance(tz);
+        c.setTimeInMillis(startOfDay);
+        c.add(Calendar.DAY_OF_YEAR, days);
+        return c.getTimeInMillis();
+    }
+}
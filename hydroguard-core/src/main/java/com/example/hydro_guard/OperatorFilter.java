@@ -0,0 +1,63 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Filter tabel operator (cari + role + status) di dashboard admin.
+ * Dulu: AdminDashboardActivity.applyFiltersAndRenderOperators.
+ */
+public final class OperatorFilter {
+
+    public static final String ALL = "Semua";
+    public static final String STATUS_AKTIF = "Aktif";
+    public static final String STATUS_MENUNGGU = "Menunggu";
+
+    private OperatorFilter() {}
+
+    /** Kriteria yang sudah dinormalisasi; dipakai ulang untuk cek satu user (delta). */
+    public static final class Criteria {
+        final String query;
+        final String role;          // null = semua role
+        final boolean onlyAktif;
+        final boolean onlyMenunggu;
+
+        /**
+         * @param query        teks cari mentah (boleh null/kosong)
+         * @param roleFilter   "Semua" atau nama role
+         * @param statusFilter "Semua" / "Aktif" / "Menunggu"
+         */
+        public Criteria(String query, String roleFilter, String statusFilter) {
+            this.query = (query == null) ? "" : query.trim().toLowerCase(Locale.getDefault());
+            this.role = (roleFilter == null || ALL.equalsIgnoreCase(roleFilter)) ? null : roleFilter;
+            this.onlyAktif = STATUS_AKTIF.equalsIgnoreCase(statusFilter);
+            this.onlyMenunggu = STATUS_MENUNGGU.equalsIgnoreCase(statusFilter);
+        }
+
+        public boolean matches(UserItem u) {
+            if (role != null && !u.role.equalsIgnoreCase(role)) return false;
+
+            if (onlyAktif || onlyMenunggu) {
+                boolean isAktif = u.isAktif();
+                if (onlyAktif && !isAktif) return false;
+                if (onlyMenunggu && isAktif) return false;
+            }
+
+            return query.isEmpty() || u.searchText.contains(query);
+        }
+    }
+
+    public static List<UserItem> filter(Iterable<UserItem> users, String query,
+                                        String roleFilter, String statusFilter) {
+        return filter(users, new Criteria(query, roleFilter, statusFilter));
+    }
+
+    public static List<UserItem> filter(Iterable<UserItem> users, Criteria criteria) {
+        List<UserItem> filtered = new ArrayList<>();
+        for (UserItem u : users) {
+            if (criteria.matches(u)) filtered.add(u);
+        }
+        return filtered;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.hydro_guard;
+
+/**
+ * State pompa optimistis untuk satu device (tombol manual di ManualControlActivity).
+ *
+ * - set(): niat user langsung tampil, tapi belum ditulis; tap beruntun dalam satu
+ *   jendela hanya menyisakan niat terakhir.
+ * - takeWrite(): saat jendela habis, status yang perlu ditulis (null kalau niat
+ *   akhirnya sama dengan yang sudah di server / sedang dikirim → tidak ada tulis).
+ * - onServer(): echo listener hanya dipakai kalau cmdSeq-nya sudah mencapai tulis
+ *   terakhir kita; echo state lama / antara tidak membuat UI berkedip.
+ *
+ * Tidak thread-safe; dipanggil dari main thread.
+ */
+public final class OptimisticControl {
+
+    private boolean server;          // status terakhir dari listener
+    private long serverSeq = -1;     // cmdSeq di node saat itu
+
+    private Boolean intent;          // niat user yang belum ditulis
+    private Boolean sent;            // status yang sedang dikirim (belum terlihat di echo)
+    private long sentSeq = -1;
+
+    private long coalesced, writes, staleEchoes;
+
+    /** Status yang ditampilkan: niat > sedang dikirim > server. */
+    public boolean displayed() {
+        if (intent != null) return intent;
+        if (sent != null) return sent;
+        return server;
+    }
+
+    /** true kalau ada niat / tulis yang belum dikonfirmasi echo server. */
+    public boolean isPending() {
+        return intent != null || sent != null;
+    }
+
+    /** Niat baru dari user. true kalau jendela baru dimulai (jadwalkan takeWrite). */
+    public boolean set(boolean status) {
+        boolean first = intent == null;
+        if (!first) coalesced++;
+        intent = status;
+        return first;
+    }
+
+    public boolean toggle() {
+        return set(!displayed());
+    }
+
+    /**
+     * Akhir jendela: status yang harus ditulis, atau null kalau niat akhirnya sama
+     * dengan yang sudah berlaku (mis. ON lalu OFF lagi). Setelah menulis panggil onSent().
+     */
+    public Boolean takeWrite() {
+        Boolean want = intent;
+        intent = null;
+        if (want == null) return null;
+        boolean current = (sent != null) ? sent : server;
+        if (want == current) {
+            coalesced++;
+            return null;
+        }
+        return want;
+    }
+
+    /** Tulis sudah dikirim dengan cmdSeq seq (lihat CommandTracker). */
+    public void onSent(boolean status, long seq) {
+        sent = status;
+        sentSeq = seq;
+        writes++;
+    }
+
+    /** Tulis gagal: tampilan kembali ke server (kecuali ada niat yang lebih baru). */
+    public void onFailed(long seq) {
+        if (sent != null && seq == sentSeq) sent = null;
+    }
+
+    /**
+     * Snapshot kontrol_pompa/{id}. Echo dengan cmdSeq < tulis terakhir kita
+     * diabaikan untuk tampilan. Return displayed() setelah rekonsiliasi.
+     */
+    public boolean onServer(boolean status, long cmdSeq) {
+        server = status;
+        serverSeq = cmdSeq;
+        if (sent != null) {
+            if (cmdSeq >= sentSeq) sent = null;
+            else staleEchoes++;
+        }
+        return displayed();
+    }
+
+    @Override
+    public String toString() {
+        return "OptimisticControl{server=" + server + "@" + serverSeq + ", intent=" + intent
+                + ", sent=" + sent + "@" + sentSeq + ", writes=" + writes + ", coalesced=" + coalesced
+                + ", staleEchoes=" + staleEchoes + "}";
+    }
+}
@@ -0,0 +1,455 @@
+package com.example.hydro_guard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encoder/decoder JSON untuk /api/predict dan /api/predict-batch
+ * tanpa JSONObject / StringBuilder per request.
+ *
+ * - Request ditulis langsung sebagai byte UTF-8 ke buffer yang dipakai ulang.
+ * - Response dibaca ke buffer yang sama lalu di-scan dengan pull parser kecil;
+ *   hanya pump_status, pump_label dan probability_on yang diambil, field lain di-skip.
+ */
+public final class PredictCodec {
+
+    private static final byte[] K_HUMIDITY = ascii("{\"Humidity\":");
+    private static final byte[] K_RAINFALL = ascii(",\"Rainfall\":");
+    private static final byte[] K_SUNLIGHT = ascii(",\"Sunlight\":");
+    private static final byte[] K_SOIL = ascii(",\"Soil_Moisture\":");
+
+    private static final byte[] F_PUMP_STATUS = ascii("pump_status");
+    private static final byte[] F_PUMP_LABEL = ascii("pump_label");
+    private static final byte[] F_PROBABILITY_ON = ascii("probability_on");
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private PredictCodec() {}
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // ===============================
+    // BUFFER (dipakai ulang per thread)
+    // ===============================
+    public static final class Buffer {
+        private static final int MAX_RETAINED = 64 * 1024;
+
+        byte[] data;
+        int length;
+
+        public Buffer(int initialCapacity) {
+            data = new byte[Math.max(64, initialCapacity)];
+        }
+
+        public byte[] data() {
+            return data;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        /** Kosongkan; buffer yang membengkak (batch besar) dikecilkan lagi. */
+        public Buffer reset() {
+            if (data.length > MAX_RETAINED) data = new byte[1024];
+            length = 0;
+            return this;
+        }
+
+        void ensure(int extra) {
+            int need = length + extra;
+            if (need <= data.length) return;
+            int cap = data.length;
+            while (cap < need) cap <<= 1;
+            byte[] n = new byte[cap];
+            System.arraycopy(data, 0, n, 0, length);
+            data = n;
+        }
+
+        public void append(byte b) {
+            ensure(1);
+            data[length++] = b;
+        }
+
+        void append(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, data, length, b.length);
+            length += b.length;
+        }
+
+        void appendAscii(String s) {
+            int n = s.length();
+            ensure(n);
+            for (int i = 0; i < n; i++) data[length++] = (byte) s.charAt(i);
+        }
+
+        void appendInt(int v) {
+            if (v == Integer.MIN_VALUE) {
+                appendAscii(Integer.toString(v));
+                return;
+            }
+            if (v < 0) {
+                append((byte) '-');
+                v = -v;
+            }
+            ensure(10);
+            int start = length;
+            do {
+                data[length++] = (byte) ('0' + (v % 10));
+                v /= 10;
+            } while (v > 0);
+            // balik urutan digit
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte t = data[i];
+                data[i] = data[j];
+                data[j] = t;
+            }
+        }
+
+        void appendDouble(double v) {
+            if (Double.isNaN(v) || Double.isInfinite(v)) {
+                throw new IllegalArgumentException("Fitur tidak valid (NaN/Infinity)");
+            }
+            if (v == Math.rint(v) && Math.abs(v) < 1e9) {
+                appendInt((int) v);
+                return;
+            }
+            appendAscii(Double.toString(v));
+        }
+
+        public void writeTo(OutputStream os) throws IOException {
+            os.write(data, 0, length);
+        }
+
+        /** Baca seluruh stream ke buffer (stream di-close). */
+        public void readFully(InputStream is) throws IOException {
+            length = 0;
+            try {
+                while (true) {
+                    ensure(1024);
+                    int n = is.read(data, length, data.length - length);
+                    if (n < 0) break;
+                    length += n;
+                }
+            } finally {
+                is.close();
+            }
+        }
+
+        public String preview(int max) {
+            return new String(data, 0, Math.min(length, max), StandardCharsets.UTF_8);
+        }
+    }
+
+    // ===============================
+    // ENCODE
+    // ===============================
+
+    /** Tulis satu objek request (urutan fitur sama dengan main.py). */
+    public static void encodeRequest(Buffer out, double humidity, int rainfall, int sunlight, double soilMoisture) {
+        out.append(K_HUMIDITY);
+        out.appendDouble(humidity);
+        out.append(K_RAINFALL);
+        out.appendInt(rainfall);
+        out.append(K_SUNLIGHT);
+        out.appendInt(sunlight);
+        out.append(K_SOIL);
+        out.appendDouble(soilMoisture);
+        out.append((byte) '}');
+    }
+
+    // ===============================
+    // DECODE
+    // ===============================
+
+    /** Hasil decode mentah; dipetakan ke PredictResult oleh SmartIrrigationApi. */
+    public static final class Prediction {
+        public int pumpStatus;
+        public String pumpLabel;
+        public double probabilityOn;
+
+        void clear() {
+            pumpStatus = 0;
+            pumpLabel = "-";
+            probabilityOn = 0;
+        }
+    }
+
+    /** Baca satu objek response; default sama dengan optInt/optString/optDouble lama. */
+    public static void readPrediction(Reader r, Prediction out) throws IOException {
+        out.clear();
+        r.beginObject();
+        while (r.hasNext()) {
+            int start = r.nextNameStart();
+            int len = r.lastNameLength();
+            if (r.nameEquals(start, len, F_PUMP_STATUS)) {
+                double d = r.nextDoubleOrNaN();
+                out.pumpStatus = Double.isNaN(d) ? 0 : (int) d;
+            } else if (r.nameEquals(start, len, F_PUMP_LABEL)) {
+                String s = r.nextStringOrNull();
+                out.pumpLabel = (s == null) ? "-" : s;
+            } else if (r.nameEquals(start, len, F_PROBABILITY_ON)) {
+                double d = r.nextDoubleOrNaN();
+                out.probabilityOn = Double.isNaN(d) ? 0 : d;
+            } else {
+                r.skipValue();
+            }
+        }
+        r.endObject();
+    }
+
+    /**
+     * Pull parser JSON minimal di atas byte[] (UTF-8).
+     * Cukup untuk respons API: object, array, string, number, true/false/null.
+     */
+    public static final class Reader {
+        private final byte[] b;
+        private final int end;
+        private int pos;
+        private int nameLen;
+
+        public Reader(byte[] b, int length) {
+            this.b = b;
+            this.end = length;
+            this.pos = 0;
+        }
+
+        public Reader(Buffer buf) {
+            this(buf.data, buf.length);
+        }
+
+        private IOException error(String msg) {
+            return new IOException("JSON tidak valid di posisi " + pos + ": " + msg);
+        }
+
+        private int peekNonWs() throws IOException {
+            while (pos < end) {
+                byte c = b[pos];
+                if (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                    pos++;
+                } else {
+                    return c;
+                }
+            }
+            throw error("data terpotong");
+        }
+
+        private void expect(char c) throws IOException {
+            if (peekNonWs() != c) throw error("harus '" + c + "'");
+            pos++;
+        }
+
+        public void beginObject() throws IOException { expect('{'); }
+
+        public void endObject() throws IOException { expect('}'); }
+
+        public void beginArray() throws IOException { expect('['); }
+
+        public void endArray() throws IOException { expect(']'); }
+
+        /** true kalau masih ada elemen/field; koma pemisah otomatis dilewati. */
+        public boolean hasNext() throws IOException {
+            int c = peekNonWs();
+            if (c == ',') {
+                pos++;
+                c = peekNonWs();
+            }
+            return c != '}' && c != ']';
+        }
+
+        /** Posisi awal nama field (tanpa alokasi); panjangnya lewat lastNameLength(). */
+        int nextNameStart() throws IOException {
+            expect('"');
+            int start = pos;
+            while (pos < end && b[pos] != '"') {
+                if (b[pos] == '\\') pos++;
+                pos++;
+            }
+            if (pos >= end) throw error("nama field terpotong");
+            nameLen = pos - start;
+            pos++;
+            expect(':');
+            return start;
+        }
+
+        int lastNameLength() {
+            return nameLen;
+        }
+
+        boolean nameEquals(int start, int len, byte[] name) {
+            if (len != name.length) return false;
+            for (int i = 0; i < len; i++) {
+                if (b[start + i] != name[i]) return false;
+            }
+            return true;
+        }
+
+        /** Angka (atau string angka); null / non-angka → NaN. */
+        double nextDoubleOrNaN() throws IOException {
+            int c = peekNonWs();
+            if (c == 'n') {
+                skipLiteral();
+                return Double.NaN;
+            }
+            if (c == '"') {
+                String s = nextStringOrNull();
+                try {
+                    return Double.parseDouble(s.trim());
+                } catch (NumberFormatException e) {
+                    return Double.NaN;
+                }
+            }
+            if (c == 't' || c == 'f') {
+                boolean v = (c == 't');
+                skipLiteral();
+                return v ? 1 : 0;
+            }
+            return parseNumber();
+        }
+
+        private double parseNumber() throws IOException {
+            int start = pos;
+            boolean neg = false;
+            if (pos < end && b[pos] == '-') {
+                neg = true;
+                pos++;
+            }
+
+            long mant = 0;
+            int digits = 0;
+            int fracDigits = 0;
+            boolean frac = false;
+            boolean slow = false;
+
+            while (pos < end) {
+                byte c = b[pos];
+                if (c >= '0' && c <= '9') {
+                    if (digits < 18) mant = mant * 10 + (c - '0');
+                    else slow = true;
+                    digits++;
+                    if (frac) fracDigits++;
+                } else if (c == '.' && !frac) {
+                    frac = true;
+                } else if (c == 'e' || c == 'E' || c == '+' || (c == '-' && pos > start)) {
+                    slow = true;
+                } else {
+                    break;
+                }
+                pos++;
+            }
+            if (digits == 0) throw error("angka kosong");
+
+            // Jalur cepat (eksak): mantissa <= 2^53 dan pangkat 10 <= 22
+            if (!slow && digits <= 15 && fracDigits < POW10.length) {
+                double v = mant / POW10[fracDigits];
+                return neg ? -v : v;
+            }
+            return Double.parseDouble(new String(b, start, pos - start, StandardCharsets.US_ASCII));
+        }
+
+        /** String (escape JSON didukung); null → null; nilai lain dikembalikan sebagai teks. */
+        String nextStringOrNull() throws IOException {
+            int c = peekNonWs();
+            if (c == 'n') {
+                skipLiteral();
+                return null;
+            }
+            if (c != '"') {
+                int start = pos;
+                skipValue();
+                return new String(b, start, pos - start, StandardCharsets.UTF_8).trim();
+            }
+
+            pos++;
+            int start = pos;
+            boolean escaped = false;
+            while (pos < end && b[pos] != '"') {
+                if (b[pos] == '\\') {
+                    escaped = true;
+                    pos++;
+                }
+                pos++;
+            }
+            if (pos >= end) throw error("string terpotong");
+            int stop = pos;
+            pos++;
+
+            if (!escaped) return new String(b, start, stop - start, StandardCharsets.UTF_8);
+            return unescape(start, stop);
+        }
+
+        private String unescape(int start, int stop) throws IOException {
+            String raw = new String(b, start, stop - start, StandardCharsets.UTF_8);
+            StringBuilder sb = new StringBuilder(raw.length());
+            for (int i = 0; i < raw.length(); i++) {
+                char ch = raw.charAt(i);
+                if (ch != '\\' || i + 1 >= raw.length()) {
+                    sb.append(ch);
+                    continue;
+                }
+                char e = raw.charAt(++i);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (i + 4 >= raw.length()) throw error("escape \\u terpotong");
+                        sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default: sb.append(e); break;
+                }
+            }
+            return sb.toString();
+        }
+
+        private void skipLiteral() {
+            while (pos < end) {
+                byte c = b[pos];
+                if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\n' || c == '\r' || c == '\t') break;
+                pos++;
+            }
+        }
+
+        public void skipValue() throws IOException {
+            int c = peekNonWs();
+            if (c == '"') {
+                pos++;
+                while (pos < end && b[pos] != '"') {
+                    if (b[pos] == '\\') pos++;
+                    pos++;
+                }
+                if (pos >= end) throw error("string terpotong");
+                pos++;
+            } else if (c == '{' || c == '[') {
+                int depth = 0;
+                while (pos < end) {
+                    byte x = b[pos];
+                    if (x == '"') {
+                        skipValue();
+                        continue;
+                    }
+                    pos++;
+                    if (x == '{' || x == '[') depth++;
+                    else if (x == '}' || x == ']') {
+                        if (--depth == 0) return;
+                    }
+                }
+                throw error("object/array terpotong");
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                parseNumber();
+            } else {
+                skipLiteral();
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry metrik latensi prediksi AI (in-process).
+ *
+ * Tiap kombinasi endpoint + outcome + fase punya histogram berukuran tetap
+ * (log-linear, 16 sub-bucket per pangkat dua → error relatif <= 6.25%),
+ * jadi memori tidak tumbuh walau jumlah request tak terbatas.
+ * Dibaca lewat snapshot() (layar diagnostik) atau dump() (logcat).
+ */
+public final class PredictMetrics {
+
+    // ===============================
+    // FASE
+    // ===============================
+    public static final String PHASE_QUEUE = "queue";
+    public static final String PHASE_CONNECT = "connect";
+    public static final String PHASE_WRITE = "write";
+    public static final String PHASE_TTFB = "ttfb";
+    public static final String PHASE_READ = "read";
+    public static final String PHASE_PARSE = "parse";
+    public static final String PHASE_TOTAL = "total";
+
+    private static final String[] PHASES = {
+            PHASE_QUEUE, PHASE_CONNECT, PHASE_WRITE, PHASE_TTFB, PHASE_READ, PHASE_PARSE, PHASE_TOTAL
+    };
+
+    // ===============================
+    // ENDPOINT & OUTCOME
+    // ===============================
+    public static final String EP_PREDICT = "predict";
+    public static final String EP_BATCH = "predict-batch";
+    public static final String EP_LOCAL = "local";
+    public static final String EP_CACHE = "cache";
+
+    public static final String OUT_OK = "ok";
+    public static final String OUT_ERROR = "error";
+    public static final String OUT_TIMEOUT = "timeout";
+    public static final String OUT_CIRCUIT_OPEN = "circuit_open";
+
+    private static final PredictMetrics INSTANCE = new PredictMetrics();
+
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public static PredictMetrics get() {
+        return INSTANCE;
+    }
+
+    /** Durasi per fase satu prediksi (nanodetik; -1 = fase tidak terjadi). */
+    public static final class Timing {
+        public long queueNs = -1;
+        public long connectNs = -1;
+        public long writeNs = -1;
+        public long ttfbNs = -1;
+        public long readNs = -1;
+        public long parseNs = -1;
+        public long totalNs = -1;
+
+        long phase(int i) {
+            switch (i) {
+                case 0: return queueNs;
+                case 1: return connectNs;
+                case 2: return writeNs;
+                case 3: return ttfbNs;
+                case 4: return readNs;
+                case 5: return parseNs;
+                default: return totalNs;
+            }
+        }
+
+        public Timing copy() {
+            Timing t = new Timing();
+            t.queueNs = queueNs;
+            t.connectNs = connectNs;
+            t.writeNs = writeNs;
+            t.ttfbNs = ttfbNs;
+            t.readNs = readNs;
+            t.parseNs = parseNs;
+            t.totalNs = totalNs;
+            return t;
+        }
+    }
+
+    public void record(String endpoint, String outcome, Timing t) {
+        if (t == null) return;
+        for (int i = 0; i < PHASES.length; i++) {
+            long ns = t.phase(i);
+            if (ns >= 0) histogram(endpoint, outcome, PHASES[i]).record(ns / 1000L);
+        }
+    }
+
+    public void recordTotal(String endpoint, String outcome, long totalNs) {
+        if (totalNs >= 0) histogram(endpoint, outcome, PHASE_TOTAL).record(totalNs / 1000L);
+    }
+
+    private Histogram histogram(String endpoint, String outcome, String phase) {
+        String key = endpoint + '|' + outcome + '|' + phase;
+        Histogram h = histograms.get(key);
+        if (h != null) return h;
+        Histogram created = new Histogram(endpoint, outcome, phase);
+        Histogram prev = histograms.putIfAbsent(key, created);
+        return prev != null ? prev : created;
+    }
+
+    public void reset() {
+        histograms.clear();
+    }
+
+    // ===============================
+    // READ API
+    // ===============================
+    public static final class Row {
+        public final String endpoint, outcome, phase;
+        public final long count;
+        public final double p50Ms, p95Ms, p99Ms, maxMs, meanMs;
+
+        Row(String endpoint, String outcome, String phase, long count,
+            double p50Ms, double p95Ms, double p99Ms, double maxMs, double meanMs) {
+            this.endpoint = endpoint;
+            this.outcome = outcome;
+            this.phase = phase;
+            this.count = count;
+            this.p50Ms = p50Ms;
+            this.p95Ms = p95Ms;
+            this.p99Ms = p99Ms;
+            this.maxMs = maxMs;
+            this.meanMs = meanMs;
+        }
+    }
+
+    /** Snapshot semua histogram, urut endpoint → outcome → fase. */
+    public List<Row> snapshot() {
+        List<Row> rows = new ArrayList<>();
+        for (Histogram h : histograms.values()) {
+            long n = h.count();
+            if (n == 0) continue;
+            rows.add(new Row(h.endpoint, h.outcome, h.phase, n,
+                    h.percentileUs(0.50) / 1000.0,
+                    h.percentileUs(0.95) / 1000.0,
+                    h.percentileUs(0.99) / 1000.0,
+                    h.maxUs() / 1000.0,
+                    h.meanUs() / 1000.0));
+        }
+        rows.sort((a, b) -> {
+            int c = a.endpoint.compareTo(b.endpoint);
+            if (c != 0) return c;
+            c = a.outcome.compareTo(b.outcome);
+            if (c != 0) return c;
+            return Integer.compare(phaseIndex(a.phase), phaseIndex(b.phase));
+        });
+        return rows;
+    }
+
+    private static int phaseIndex(String phase) {
+        for (int i = 0; i < PHASES.length; i++) if (PHASES[i].equals(phase)) return i;
+        return PHASES.length;
+    }
+
+    /** Tabel teks untuk Log / layar diagnostik. */
+    public String dump() {
+        StringBuilder sb = new StringBuilder("endpoint|outcome|phase  n  p50  p95  p99  max (ms)\n");
+        for (Row r : snapshot()) {
+            sb.append(String.format(Locale.US, "%s|%s|%s  %d  %.1f  %.1f  %.1f  %.1f%n",
+                    r.endpoint, r.outcome, r.phase, r.count, r.p50Ms, r.p95Ms, r.p99Ms, r.maxMs));
+        }
+        return sb.toString();
+    }
+
+    // ===============================
+    // HISTOGRAM (memori tetap)
+    // ===============================
+    static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB = 1 << SUB_BITS;   // 16 sub-bucket
+        private static final int MAX_EXP = 27;          // 2^27 us ≈ 134 dtk (lebih besar → bucket terakhir)
+        private static final int BUCKETS = (MAX_EXP - SUB_BITS + 2) * SUB;
+
+        final String endpoint, outcome, phase;
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong sumUs = new AtomicLong();
+        private final AtomicLong maxUs = new AtomicLong();
+
+        Histogram(String endpoint, String outcome, String phase) {
+            this.endpoint = endpoint;
+            this.outcome = outcome;
+            this.phase = phase;
+        }
+
+        static int indexOf(long us) {
+            if (us < SUB) return (int) Math.max(0, us);
+            int exp = 63 - Long.numberOfLeadingZeros(us);   // >= SUB_BITS
+            if (exp > MAX_EXP) return BUCKETS - 1;
+            int sub = (int) ((us >>> (exp - SUB_BITS)) & (SUB - 1));
+            return (exp - SUB_BITS + 1) * SUB + sub;
+        }
+
+        /** Batas atas bucket (us). */
+        static long upperBoundOf(int idx) {
+            if (idx < SUB) return idx;
+            int exp = idx / SUB - 1 + SUB_BITS;
+            long sub = idx % SUB;
+            long base = (1L << exp) | (sub << (exp - SUB_BITS));
+            return base + (1L << (exp - SUB_BITS)) - 1;
+        }
+
+        void record(long us) {
+            counts.incrementAndGet(indexOf(us));
+            total.incrementAndGet();
+            sumUs.addAndGet(Math.max(0, us));
+            long m;
+            while (us > (m = maxUs.get()) && !maxUs.compareAndSet(m, us)) {
+                // retry
+            }
+        }
+
+        long count() {
+            return total.get();
+        }
+
+        double meanUs() {
+            long n = total.get();
+            return n == 0 ? 0 : (double) sumUs.get() / n;
+        }
+
+        long maxUs() {
+            return maxUs.get();
+        }
+
+        long percentileUs(double q) {
+            long n = total.get();
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(q * n);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) return Math.min(upperBoundOf(i), maxUs.get());
+            }
+            return maxUs.get();
+        }
+    }
+}
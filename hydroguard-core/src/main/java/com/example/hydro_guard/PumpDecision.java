@@ -0,0 +1,38 @@
+package com.example.hydro_guard;
+
+/**
+ * Aturan keputusan pompa dari hasil prediksi (dipakai AiDecision).
+ *
+ * Hasil model (server / LocalForestModel) membawa probabilitas: di bawah 50% →
+ * tanah kering → siram. Hasil aturan cadangan (timeout / error / breaker OPEN)
+ * sudah berupa keputusan pompa, jadi pumpStatus dipakai apa adanya.
+ */
+public final class PumpDecision {
+
+    /** Sama dengan SOIL_ON_THRESHOLD di sketch ESP32. */
+    public static final double SOIL_ON_THRESHOLD = 50.0;
+
+    /** usedFormat / usedUrl untuk hasil aturan cadangan. */
+    public static final String FORMAT_RULE = "fallback-rule";
+    public static final String RULE_URL = "local-rule";
+
+    private PumpDecision() {}
+
+    /** Aturan auto lokal ESP32: tanah kering (<= ambang) dan tidak hujan → pompa ON. */
+    public static boolean ruleOn(double soilMoisture, int rainfall) {
+        return soilMoisture <= SOIL_ON_THRESHOLD && rainfall == 0;
+    }
+
+    /** Probabilitas ON yang valid; kalau API tidak mengirimnya, turunkan dari pumpStatus. */
+    public static double probOn(double probOn, int pumpStatus) {
+        if (!Double.isNaN(probOn) && !Double.isInfinite(probOn) && probOn >= 0) return probOn;
+        if (pumpStatus == 0 || pumpStatus == 1) return (pumpStatus == 1) ? 1.0 : 0.0;
+        return 0.5; // netral
+    }
+
+    /** true = pompa ON (siram). */
+    public static boolean shouldWater(String usedFormat, double probOn, int pumpStatus) {
+        if (FORMAT_RULE.equals(usedFormat)) return pumpStatus == 1;
+        return probOn(probOn, pumpStatus) * 100.0 < 50.0;
+    }
+}
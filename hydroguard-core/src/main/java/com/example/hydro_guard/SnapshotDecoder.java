@@ -0,0 +1,182 @@
+package com.example.hydro_guard;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decode node /tempat/{id} dan /users/{uid} (hasil DataSnapshot.getValue(), berupa Map)
+ * menjadi TempatItem / UserItem immutable.
+ *
+ * Alias field (nama/name, deviceId/device_id, no_wa/hp/phone/wa, ...) disusun sekali
+ * per jenis node; node cukup dikonversi sekali (getValue()) lalu dibaca dari Map,
+ * tidak ada lagi rantai child(...).getValue(String.class) per alias.
+ *
+ * Stateless dan thread-safe: dipanggil dari thread decode, hasilnya baru dikirim ke UI.
+ */
+public final class SnapshotDecoder {
+
+    public static final String DEFAULT_DEVICE_ID = "HG-01";
+
+    private SnapshotDecoder() {}
+
+    // ===============================
+    // SCHEMA /tempat/{id}
+    // ===============================
+    private static final int T_NAMA = 0, T_KECAMATAN = 1, T_KELURAHAN = 2, T_CREATED_BY = 3,
+            T_OPERATOR_ID = 4, T_OPERATOR_NAME = 5, T_DEVICE_ID = 6;
+
+    private static final Schema TEMPAT = new Schema(new String[][] {
+            {"nama", "name"},
+            {"kecamatan"},
+            {"kelurahan"},
+            {"createdBy", "created_by"},
+            {"operatorId", "operator_id"},
+            {"operatorName", "operator_name"},
+            {"deviceId", "device_id"},
+    });
+
+    // ===============================
+    // SCHEMA /users/{uid}
+    // ===============================
+    private static final int U_NAME = 0, U_EMAIL = 1, U_ROLE = 2, U_WA = 3, U_APPROVED = 4;
+
+    private static final Schema USER = new Schema(new String[][] {
+            {"name"},
+            {"email"},
+            {"role"},
+            {"no_wa", "hp", "phone", "wa"},
+            {"approved"},
+    });
+
+    // ===============================
+    // DECODE
+    // ===============================
+    /**
+     * @param raw nilai node (Map); selain Map dianggap node kosong
+     */
+    public static TempatItem tempat(String tempatId, Object raw) {
+        String[] f = TEMPAT.decode(raw);
+
+        String deviceId = f[T_DEVICE_ID];
+        if (deviceId == null) deviceId = looksLikeDeviceId(tempatId) ? tempatId : DEFAULT_DEVICE_ID;
+
+        return new TempatItem(
+                tempatId,
+                orDefault(f[T_NAMA], "(Tanpa nama tempat)"),
+                orDefault(f[T_KECAMATAN], "-"),
+                orDefault(f[T_KELURAHAN], "-"),
+                f[T_CREATED_BY], f[T_OPERATOR_ID], f[T_OPERATOR_NAME],
+                deviceId
+        );
+    }
+
+    /** null kalau user tidak punya role (tidak tampil di tabel). */
+    public static UserItem user(String uid, Object raw) {
+        String[] f = USER.decode(raw);
+        if (f[U_ROLE] == null) return null;
+
+        return new UserItem(
+                uid,
+                orDefault(f[U_NAME], "(tanpa nama)"),
+                orDefault(f[U_EMAIL], ""),
+                f[U_ROLE],
+                orDefault(f[U_WA], "-"),
+                "true".equalsIgnoreCase(f[U_APPROVED])   // boolean true atau string "true"
+        );
+    }
+
+    /** Id tempat yang sekaligus id device (HG-01, ESP-xx, DEV-xx). */
+    public static boolean looksLikeDeviceId(String s) {
+        if (s == null || s.isEmpty()) return false;
+        return s.startsWith("HG-") || s.startsWith("ESP-") || s.startsWith("DEV-");
+    }
+
+    private static String orDefault(String v, String def) {
+        return v == null ? def : v;
+    }
+
+    // ===============================
+    // SCHEMA ALIAS
+    // ===============================
+    /** Alias per field, urut prioritas; disusun sekali per jenis node. */
+    static final class Schema {
+        private final String[][] aliases;
+
+        Schema(String[][] aliases) {
+            this.aliases = new String[aliases.length][];
+            for (int f = 0; f < aliases.length; f++) this.aliases[f] = aliases[f].clone();
+        }
+
+        /**
+         * Tiap field diisi alias pertama yang tidak kosong (sama dengan fallback isEmpty
+         * lama); satu lookup Map per alias. Field tanpa nilai = null.
+         */
+        String[] decode(Object raw) {
+            String[] out = new String[aliases.length];
+            if (!(raw instanceof Map)) return out;
+
+            Map<?, ?> node = (Map<?, ?>) raw;
+            for (int f = 0; f < aliases.length; f++) {
+                for (String alias : aliases[f]) {
+                    String v = text(node.get(alias));
+                    if (v != null) {
+                        out[f] = v;
+                        break;
+                    }
+                }
+            }
+            return out;
+        }
+
+        /** String apa adanya; angka / boolean (mis. no_wa tersimpan sebagai angka) jadi teks. */
+        private static String text(Object v) {
+            if (v instanceof String) return ((String) v).isEmpty() ? null : (String) v;
+            if (v instanceof Number || v instanceof Boolean) return String.valueOf(v);
+            return null;
+        }
+    }
+
+    // ===============================
+    // WAKTU DECODE
+    // ===============================
+    /** Waktu decode per snapshot (jumlah, rata-rata, maksimum); aman dipanggil lintas thread. */
+    public static final class Stats {
+        private final String name;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNs = new AtomicLong();
+        private final AtomicLong maxNs = new AtomicLong();
+
+        public Stats(String name) {
+            this.name = name;
+        }
+
+        public void record(long ns) {
+            count.incrementAndGet();
+            totalNs.addAndGet(ns);
+            long m;
+            while (ns > (m = maxNs.get()) && !maxNs.compareAndSet(m, ns)) {
+                // retry
+            }
+        }
+
+        public long count() {
+            return count.get();
+        }
+
+        public double meanUs() {
+            long n = count.get();
+            return n == 0 ? 0 : totalNs.get() / 1000.0 / n;
+        }
+
+        public double maxUs() {
+            return maxNs.get() / 1000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "decode %s: n=%d mean=%.1fus max=%.1fus",
+                    name, count(), meanUs(), maxUs());
+        }
+    }
+}
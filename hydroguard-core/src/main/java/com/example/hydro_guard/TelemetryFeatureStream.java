@@ -0,0 +1,180 @@
+package com.example.hydro_guard;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fitur model dari aliran telemetry per device, bukan dari satu sampel.
+ *
+ * Tiap update telemetry/{id}/latest masuk lewat offer(): humidity, soil, hujan dan
+ * cahaya dihaluskan dengan EMA berbasis waktu (tauMs), lalu hujan / cahaya dibinerkan
+ * dengan hysteresis supaya nilai di sekitar ambang tidak membuat keputusan bolak-balik.
+ * Laju soil (%/menit) ikut di-EMA dari selisih soil EMA antar sampel; kalau tanah
+ * mengering lebih cepat dari DRY_FAST_ON, Features.dryingFast menyala (juga dengan
+ * hysteresis) dan AutoDecisionScheduler memutuskan ulang tanpa menunggu delta soil.
+ *
+ * O(1) waktu dan memori per sampel, berapa pun lamanya aliran.
+ * Tidak thread-safe; dipanggil dari main thread.
+ */
+public final class TelemetryFeatureStream {
+
+    public static final long DEFAULT_TAU_MS = 60_000L;
+
+    // Ambang naik sama dengan aturan satu sampel lama (hujan >= 50%, ldr_adc >= 2000),
+    // ambang turun sedikit di bawahnya
+    static final double RAIN_ON = 50.0, RAIN_OFF = 45.0;
+    static final double LDR_ON = 2000.0, LDR_OFF = 1800.0;
+    static final double BRIGHT_ON = 0.6, BRIGHT_OFF = 0.4;
+    // Laju pengeringan soil (%/menit, positif = makin kering)
+    static final double DRY_FAST_ON = 0.5, DRY_FAST_OFF = 0.3;
+
+    /** Nilai EMA saat ini (untuk log). NaN kalau belum ada data. */
+    public static final class Stats {
+        public final double soilEma, soilSlopePerMin;
+        public final double humidityEma, rainEma;
+        public final boolean dryingFast;
+
+        Stats(double soilEma, double soilSlopePerMin, double humidityEma, double rainEma, boolean dryingFast) {
+            this.soilEma = soilEma;
+            this.soilSlopePerMin = soilSlopePerMin;
+            this.humidityEma = humidityEma;
+            this.rainEma = rainEma;
+            this.dryingFast = dryingFast;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "soil=%.1f %+.2f%%/min%s hum=%.1f rain=%.1f",
+                    soilEma, soilSlopePerMin, dryingFast ? " (cepat kering)" : "", humidityEma, rainEma);
+        }
+    }
+
+    private static final class Device {
+        long lastAt = Long.MIN_VALUE;
+        double hum = Double.NaN, soilEma = Double.NaN, rain = Double.NaN;
+        double ldr = Double.NaN, bright = Double.NaN;
+        double slope = Double.NaN;     // EMA d(soilEma)/dt, %/menit
+        boolean rainOn, sunOn, dryingFast;
+    }
+
+    private final long tauMs;
+    private final Map<String, Device> devices = new HashMap<>();
+
+    private long accepted, duplicates;
+
+    public TelemetryFeatureStream() {
+        this(DEFAULT_TAU_MS);
+    }
+
+    public TelemetryFeatureStream(long tauMs) {
+        if (tauMs <= 0) throw new IllegalArgumentException("tau harus > 0");
+        this.tauMs = tauMs;
+    }
+
+    // ===================== INPUT =====================
+    /**
+     * Satu snapshot telemetry. Waktu sampel = updatedAt (ms server), atau wallMs kalau
+     * tidak ada. Snapshot dengan waktu <= sampel terakhir (listener memicu ulang,
+     * data cache) diabaikan. true kalau sampel dipakai.
+     */
+    public boolean offer(String deviceId, TelemetryValues.Source s, long wallMs) {
+        long updatedAt = (long) TelemetryValues.toDouble(s.get("updatedAt"), 0);
+        long t = updatedAt > 0 ? updatedAt : wallMs;
+
+        Device d = devices.get(deviceId);
+        if (d == null) {
+            d = new Device();
+            devices.put(deviceId, d);
+        } else if (t <= d.lastAt) {
+            duplicates++;
+            return false;
+        }
+
+        long dt = (d.lastAt == Long.MIN_VALUE) ? 0 : t - d.lastAt;
+        double a = (dt == 0) ? 1.0 : 1.0 - Math.exp(-(double) dt / tauMs);
+        d.lastAt = t;
+        accepted++;
+
+        d.hum = ema(d.hum, clamp(TelemetryValues.firstDouble(s, Double.NaN, "hum", "humidity", "Humidity")), a);
+        d.rain = ema(d.rain, clamp(TelemetryValues.firstDouble(s, Double.NaN, "rain_pct", "rainPct", "rain")), a);
+
+        double soil = clamp(TelemetryValues.firstDouble(s, Double.NaN, "soil", "soil_moisture", "Soil_Moisture"));
+        double prevSoil = d.soilEma;
+        d.soilEma = ema(d.soilEma, soil, a);
+        if (dt > 0 && !Double.isNaN(prevSoil) && !Double.isNaN(soil)) {
+            d.slope = ema(d.slope, (d.soilEma - prevSoil) * 60_000.0 / dt, a);
+        }
+
+        // Cahaya: bright (0/1) kalau ada, kalau tidak ldr_adc mentah
+        Object bright = s.get("bright");
+        if (bright != null) {
+            d.bright = ema(d.bright, TelemetryValues.parseBoolLike(bright) ? 1.0 : 0.0, a);
+        } else {
+            d.ldr = ema(d.ldr, TelemetryValues.firstDouble(s, Double.NaN, "ldr_adc", "LDR_ADC"), a);
+        }
+
+        // Hysteresis: ambang naik dan turun berbeda
+        if (!Double.isNaN(d.rain)) d.rainOn = d.rainOn ? d.rain >= RAIN_OFF : d.rain >= RAIN_ON;
+        if (!Double.isNaN(d.bright)) {
+            d.sunOn = d.sunOn ? d.bright >= BRIGHT_OFF : d.bright >= BRIGHT_ON;
+        } else if (!Double.isNaN(d.ldr)) {
+            d.sunOn = d.sunOn ? d.ldr >= LDR_OFF : d.ldr >= LDR_ON;
+        }
+        if (!Double.isNaN(d.slope)) {
+            double drying = -d.slope;
+            d.dryingFast = d.dryingFast ? drying >= DRY_FAST_OFF : drying >= DRY_FAST_ON;
+        }
+        return true;
+    }
+
+    private static double ema(double prev, double x, double a) {
+        if (Double.isNaN(x)) return prev;
+        if (Double.isNaN(prev)) return x;
+        return prev + a * (x - prev);
+    }
+
+    private static double clamp(double v) {
+        if (Double.isNaN(v)) return v;
+        if (Double.isInfinite(v)) return 0;
+        return Math.max(0, Math.min(100, v));
+    }
+
+    // ===================== OUTPUT =====================
+    public boolean has(String deviceId) {
+        return devices.containsKey(deviceId);
+    }
+
+    /** Fitur model yang sudah dihaluskan, null kalau belum ada sampel. Nilai hilang = 0 (seperti getDoubleAny dulu). */
+    public AutoDecisionScheduler.Features features(String deviceId) {
+        Device d = devices.get(deviceId);
+        if (d == null) return null;
+        return new AutoDecisionScheduler.Features(
+                Double.isNaN(d.hum) ? 0 : d.hum,
+                d.rainOn ? 1 : 0,
+                d.sunOn ? 1 : 0,
+                Double.isNaN(d.soilEma) ? 0 : d.soilEma,
+                d.dryingFast);
+    }
+
+    /** EMA soil / laju / humidity / hujan saat ini, null kalau belum ada sampel. */
+    public Stats stats(String deviceId) {
+        Device d = devices.get(deviceId);
+        if (d == null) return null;
+        return new Stats(d.soilEma, Double.isNaN(d.slope) ? 0.0 : d.slope, d.hum, d.rain, d.dryingFast);
+    }
+
+    public void remove(String deviceId) {
+        devices.remove(deviceId);
+    }
+
+    public int size() {
+        return devices.size();
+    }
+
+    @Override
+    public String toString() {
+        return "TelemetryFeatureStream{devices=" + devices.size() + ", accepted=" + accepted
+                + ", duplicates=" + duplicates + "}";
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.hydro_guard;
+
+/**
+ * Decode nilai telemetry dari RTDB (Number / String / Boolean campur aduk,
+ * tergantung firmware yang menulis). Tanpa dependensi Android/Firebase:
+ * activity cukup mengoper DataSnapshot.getValue() ke sini.
+ */
+public final class TelemetryValues {
+
+    /** Sumber nilai per key (mis. k -> snapshot.child(k).getValue()). */
+    public interface Source {
+        Object get(String key);
+    }
+
+    private TelemetryValues() {}
+
+    /**
+     * Angka dari Number atau String angka; selain itu (null, "", bukan angka) → def.
+     * Dulu: AdminDashboardActivity.getDoubleSafe.
+     */
+    public static double toDouble(Object v, double def) {
+        if (v == null) return def;
+        if (v instanceof Number) return ((Number) v).doubleValue();
+
+        if (v instanceof String) {
+            String s = ((String) v).trim();
+            if (s.isEmpty()) return def;
+            try {
+                return Double.parseDouble(s);
+            } catch (NumberFormatException ignored) {
+                return def;
+            }
+        }
+        return def;
+    }
+
+    /**
+     * Nilai angka pertama yang valid dari beberapa alias key, atau def.
+     * Dulu: ManualControlActivity.getDoubleAny (def = 0.0).
+     */
+    public static double firstDouble(Source src, double def, String... keys) {
+        for (String k : keys) {
+            Object v = src.get(k);
+            if (v instanceof Number) return ((Number) v).doubleValue();
+            if (v instanceof String) {
+                String s = ((String) v).trim();
+                if (s.isEmpty()) continue;
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException ignored) {
+                    // coba alias berikutnya
+                }
+            }
+        }
+        return def;
+    }
+
+    /** true / 1 / "on" / "yes" (tanpa beda huruf besar-kecil) → true. */
+    public static boolean parseBoolLike(Object v) {
+        if (v == null) return false;
+        if (v instanceof Boolean) return (Boolean) v;
+        if (v instanceof Number) return ((Number) v).intValue() != 0;
+        if (v instanceof String) {
+            // equalsIgnoreCase: tanpa alokasi toLowerCase per panggilan
+            String s = ((String) v).trim();
+            return s.equalsIgnoreCase("true") || s.equals("1")
+                    || s.equalsIgnoreCase("on") || s.equalsIgnoreCase("yes");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.hydro_guard;
+
+/** Satu tempat (/tempat/{id}) di Kelola Tempat. Dulu: AdminDashboardActivity.TempatItem. */
+public final class TempatItem {
+    public final String tempatId, nama, kecamatan, kelurahan, createdBy, operatorId, operatorName, deviceId;
+
+    public TempatItem(String tempatId, String nama, String kecamatan, String kelurahan,
+                      String createdBy, String operatorId, String operatorName, String deviceId) {
+        this.tempatId = tempatId;
+        this.nama = nama;
+        this.kecamatan = kecamatan;
+        this.kelurahan = kelurahan;
+        this.createdBy = createdBy;
+        this.operatorId = operatorId;
+        this.operatorName = operatorName;
+        this.deviceId = deviceId;
+    }
+
+    /** Semua field sama (untuk DiffUtil / skip render). */
+    public boolean sameContent(TempatItem o) {
+        return o != null
+                && eq(tempatId, o.tempatId) && eq(nama, o.nama)
+                && eq(kecamatan, o.kecamatan) && eq(kelurahan, o.kelurahan)
+                && eq(createdBy, o.createdBy) && eq(operatorId, o.operatorId)
+                && eq(operatorName, o.operatorName) && eq(deviceId, o.deviceId);
+    }
+
+    private static boolean eq(String a, String b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.hydro_guard;
+
+import java.util.Locale;
+
+/** Satu user (/users/{uid}) untuk tabel operator di dashboard admin. */
+public final class UserItem {
+    public final String uid, name, email, role, wa;
+    public final boolean approved;
+
+    // "nama email wa" lowercase, dihitung sekali (bukan tiap ketikan di kolom cari)
+    final String searchText;
+
+    public UserItem(String uid, String name, String email, String role, String wa, boolean approved) {
+        this.uid = uid; this.name = name; this.email = email; this.role = role; this.wa = wa; this.approved = approved;
+        this.searchText = (name + " " + email + " " + wa).toLowerCase(Locale.getDefault());
+    }
+
+    /** Field yang tampil di tabel sama semua. */
+    public boolean sameContent(UserItem o) {
+        return o != null && approved == o.approved
+                && eq(uid, o.uid) && eq(name, o.name) && eq(email, o.email)
+                && eq(role, o.role) && eq(wa, o.wa);
+    }
+
+    private static boolean eq(String a, String b) {
+        return (a == null) ? b == null : a.equals(b);
+    }
+
+    /** Admin selalu aktif; operator aktif setelah di-ACC. */
+    public boolean isAktif() {
+        return "admin".equalsIgnoreCase(role) || approved;
+    }
+}
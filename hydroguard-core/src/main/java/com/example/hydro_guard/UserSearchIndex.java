@@ -0,0 +1,227 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index pencarian user untuk dashboard admin, di-update per user (bukan dibangun ulang).
+ *
+ * - Tiap user dapat slot int; posting list = int[] slot terurut.
+ * - Trigram dari UserItem.searchText → posting; query >= 3 huruf hanya memeriksa
+ *   user di posting trigram paling jarang (lalu contains untuk memastikan).
+ * - Role & status jadi kode bucket (roleId * 2 + aktif) yang dihitung saat upsert;
+ *   per query dibuat tabel bucket yang lolos, jadi filter per baris cukup satu
+ *   lookup array, bukan equalsIgnoreCase.
+ * - Slot juga disimpan urut uid, jadi query kosong / pendek tidak perlu sort.
+ *
+ * Tidak thread-safe; UserStore yang mengunci.
+ */
+final class UserSearchIndex {
+
+    private static final Comparator<UserItem> BY_UID = (a, b) -> a.uid.compareTo(b.uid);
+
+    private UserItem[] slots = new UserItem[64];
+    private int[] bucketOf = new int[64];
+    private int slotHigh = 0;
+    private final Posting freeSlots = new Posting();
+
+    // Slot urut uid (Firebase mengirim child urut key → hampir selalu append)
+    private int[] ordered = new int[64];
+    private int orderedSize = 0;
+
+    private final Map<String, Integer> slotByUid = new HashMap<>();
+    private final Map<String, Integer> roleIds = new HashMap<>();
+    private final Map<Long, Posting> trigrams = new HashMap<>();
+
+    void put(UserItem u) {
+        remove(u.uid);
+
+        int slot;
+        if (freeSlots.size > 0) {
+            slot = freeSlots.items[--freeSlots.size];
+        } else {
+            slot = slotHigh++;
+            ensureCapacity(slotHigh);
+        }
+
+        slots[slot] = u;
+        bucketOf[slot] = roleId(u.role, true) * 2 + (u.isAktif() ? 1 : 0);
+        slotByUid.put(u.uid, slot);
+        insertOrdered(slot);
+
+        String text = u.searchText;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            Long key = trigram(text, i);
+            Posting p = trigrams.get(key);
+            if (p == null) {
+                p = new Posting();
+                trigrams.put(key, p);
+            }
+            p.add(slot);
+        }
+    }
+
+    void remove(String uid) {
+        Integer boxed = slotByUid.remove(uid);
+        if (boxed == null) return;
+        int slot = boxed;
+
+        String text = slots[slot].searchText;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            Long key = trigram(text, i);
+            Posting p = trigrams.get(key);
+            if (p == null) continue;
+            p.remove(slot);
+            if (p.size == 0) trigrams.remove(key);
+        }
+
+        int pos = orderedIndexOf(uid);
+        System.arraycopy(ordered, pos + 1, ordered, pos, orderedSize - pos - 1);
+        orderedSize--;
+
+        slots[slot] = null;
+        freeSlots.add(slot);
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0, slotHigh, null);
+        slotHigh = 0;
+        orderedSize = 0;
+        freeSlots.size = 0;
+        slotByUid.clear();
+        roleIds.clear();
+        trigrams.clear();
+    }
+
+    /** Hasil sama dengan OperatorFilter.filter(store.all(), c): urut uid. */
+    List<UserItem> search(OperatorFilter.Criteria c) {
+        List<UserItem> out = new ArrayList<>();
+
+        // Bucket yang lolos role + status; dihitung sekali per query
+        int wantRole = -1;
+        if (c.role != null) {
+            wantRole = roleId(c.role, false);
+            if (wantRole < 0) return out;
+        }
+        boolean[] accept = new boolean[roleIds.size() * 2];
+        for (int r = 0; r < roleIds.size(); r++) {
+            if (wantRole >= 0 && r != wantRole) continue;
+            accept[r * 2] = !c.onlyAktif;
+            accept[r * 2 + 1] = !c.onlyMenunggu;
+        }
+
+        String q = c.query;
+        if (q.length() >= 3) {
+            // Kandidat = posting trigram paling jarang; trigram yang tidak ada → kosong
+            Posting best = null;
+            for (int i = 0; i + 3 <= q.length(); i++) {
+                Posting p = trigrams.get(trigram(q, i));
+                if (p == null) return out;
+                if (best == null || p.size < best.size) best = p;
+            }
+            for (int i = 0; i < best.size; i++) {
+                int s = best.items[i];
+                if (accept[bucketOf[s]] && slots[s].searchText.contains(q)) out.add(slots[s]);
+            }
+            Collections.sort(out, BY_UID);
+            return out;
+        }
+
+        // Query kosong / 1-2 huruf: telusuri urutan uid, cek bucket dulu
+        for (int i = 0; i < orderedSize; i++) {
+            int s = ordered[i];
+            if (!accept[bucketOf[s]]) continue;
+            if (q.isEmpty() || slots[s].searchText.contains(q)) out.add(slots[s]);
+        }
+        return out;
+    }
+
+    int size() {
+        return slotByUid.size();
+    }
+
+    // ===================== internal =====================
+    private int roleId(String role, boolean create) {
+        String key = (role == null) ? "" : role.toLowerCase(Locale.ROOT);
+        Integer id = roleIds.get(key);
+        if (id == null) {
+            if (!create) return -1;
+            id = roleIds.size();
+            roleIds.put(key, id);
+        }
+        return id;
+    }
+
+    private void insertOrdered(int slot) {
+        String uid = slots[slot].uid;
+        int pos = orderedSize;
+        if (orderedSize > 0 && slots[ordered[orderedSize - 1]].uid.compareTo(uid) > 0) {
+            pos = -orderedIndexOf(uid) - 1;
+        }
+        System.arraycopy(ordered, pos, ordered, pos + 1, orderedSize - pos);
+        ordered[pos] = slot;
+        orderedSize++;
+    }
+
+    /** Binary search uid di ordered; (-(insertion point) - 1) kalau tidak ada. */
+    private int orderedIndexOf(String uid) {
+        int lo = 0, hi = orderedSize - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = slots[ordered[mid]].uid.compareTo(uid);
+            if (cmp < 0) lo = mid + 1;
+            else if (cmp > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= slots.length) return;
+        int cap = Math.max(n, slots.length * 2);
+        slots = Arrays.copyOf(slots, cap);
+        bucketOf = Arrays.copyOf(bucketOf, cap);
+        ordered = Arrays.copyOf(ordered, cap);
+    }
+
+    private static Long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /** int[] slot terurut naik, tanpa duplikat. */
+    static final class Posting {
+        int[] items = new int[4];
+        int size = 0;
+
+        void add(int v) {
+            // Slot baru hampir selalu paling besar → append
+            if (size > 0 && items[size - 1] >= v) {
+                int idx = Arrays.binarySearch(items, 0, size, v);
+                if (idx >= 0) return;
+                insertAt(-idx - 1, v);
+                return;
+            }
+            insertAt(size, v);
+        }
+
+        void remove(int v) {
+            int idx = Arrays.binarySearch(items, 0, size, v);
+            if (idx < 0) return;
+            System.arraycopy(items, idx + 1, items, idx, size - idx - 1);
+            size--;
+        }
+
+        private void insertAt(int idx, int v) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            System.arraycopy(items, idx, items, idx + 1, size - idx);
+            items[idx] = v;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.hydro_guard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Daftar user di memori, key = uid, urut seperti Firebase (key order).
+ * Diisi per child (ChildEventListener), bukan snapshot /users utuh.
+ *
+ * Tulis dari main thread; search() boleh dari thread background (dikunci).
+ */
+public final class UserStore {
+
+    private final TreeMap<String, UserItem> byUid = new TreeMap<>();
+    private final UserSearchIndex index = new UserSearchIndex();
+
+    /**
+     * Simpan / ganti user. false kalau isinya sama persis dengan yang tersimpan
+     * (mis. hanya lastLoginAt yang berubah) → tidak perlu render ulang.
+     */
+    public synchronized boolean upsert(UserItem u) {
+        UserItem prev = byUid.get(u.uid);
+        if (prev != null && prev.sameContent(u)) return false;
+        byUid.put(u.uid, u);
+        index.put(u);
+        return true;
+    }
+
+    /** false kalau uid memang tidak ada. */
+    public synchronized boolean remove(String uid) {
+        if (uid == null || byUid.remove(uid) == null) return false;
+        index.remove(uid);
+        return true;
+    }
+
+    public synchronized UserItem get(String uid) {
+        return (uid == null) ? null : byUid.get(uid);
+    }
+
+    /**
+     * Hasil filter (urut uid) lewat UserSearchIndex; sama dengan
+     * OperatorFilter.filter(all(), c) tapi tanpa menelusuri semua user.
+     */
+    public synchronized List<UserItem> search(OperatorFilter.Criteria c) {
+        return index.search(c);
+    }
+
+    /** Semua user urut uid (view read-only, jangan diubah saat iterasi). */
+    public Collection<UserItem> all() {
+        return Collections.unmodifiableCollection(byUid.values());
+    }
+
+    /**
+     * Buang user yang uid-nya tidak ada di keep (mis. user dari cache lokal yang
+     * sudah dihapus di server). Dikembalikan uid yang dibuang.
+     */
+    public synchronized List<String> retain(Set<String> keep) {
+        List<String> removed = new ArrayList<>();
+        for (String uid : byUid.keySet()) {
+            if (!keep.contains(uid)) removed.add(uid);
+        }
+        for (String uid : removed) {
+            byUid.remove(uid);
+            index.remove(uid);
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return byUid.size();
+    }
+
+    public synchronized void clear() {
+        byUid.clear();
+        index.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AutoDecisionSchedulerTest {
+
+    // min interval 30 dtk, refresh 10 menit, queue 2, in flight 1
+    private final AutoDecisionScheduler scheduler =
+            new AutoDecisionScheduler(30_000, 600_000, 2.0, 3.0, 2, 1);
+
+    private static AutoDecisionScheduler.Features soil(double soil) {
+        return new AutoDecisionScheduler.Features(60, 0, 0, soil);
+    }
+
+    @Test
+    public void ignoresDevicesNotInAutoMode() {
+        assertFalse(scheduler.offer("HG-01", soil(40), 0));
+        assertEquals(0, scheduler.queued());
+    }
+
+    @Test
+    public void queuedDeviceKeepsOnlyLatestFeatures() {
+        scheduler.setAuto("HG-01", true);
+        assertTrue(scheduler.offer("HG-01", soil(40), 0));
+        AutoDecisionScheduler.Features latest = soil(41);
+        assertTrue(scheduler.offer("HG-01", latest, 100));
+        assertEquals(1, scheduler.queued());
+        assertSame(latest, scheduler.poll(100).features);
+    }
+
+    @Test
+    public void smallChangesDoNotTriggerUntilRefresh() {
+        scheduler.setAuto("HG-01", true);
+        scheduler.offer("HG-01", soil(40), 0);
+        scheduler.poll(0);
+        scheduler.complete("HG-01", true, 0);
+
+        assertFalse(scheduler.offer("HG-01", soil(41), 60_000));
+        assertTrue(scheduler.offer("HG-01", soil(42), 60_000));
+        scheduler.poll(60_000);
+        scheduler.complete("HG-01", true, 60_000);
+        assertTrue(scheduler.offer("HG-01", soil(42), 660_000));   // refresh lewat
+    }
+
+    @Test
+    public void rateLimitAndInFlightCap() {
+        scheduler.setAuto("HG-01", true);
+        scheduler.setAuto("HG-02", true);
+        scheduler.offer("HG-01", soil(40), 0);
+        scheduler.offer("HG-02", soil(40), 0);
+
+        assertEquals("HG-01", scheduler.poll(0).deviceId);
+        assertNull(scheduler.poll(0));                 // maxInFlight = 1
+        scheduler.complete("HG-01", true, 1_000);
+        assertEquals("HG-02", scheduler.poll(1_000).deviceId);
+        scheduler.complete("HG-02", true, 2_000);
+
+        scheduler.offer("HG-01", soil(60), 5_000);
+        assertNull(scheduler.poll(5_000));             // < 30 dtk sejak mulai terakhir
+        assertEquals(25_000, scheduler.nextDueInMs(5_000));
+        assertEquals("HG-01", scheduler.poll(30_000).deviceId);
+    }
+
+    @Test
+    public void fullQueueDropsNewDevices() {
+        for (String id : new String[] {"A", "B", "C"}) scheduler.setAuto(id, true);
+        assertTrue(scheduler.offer("A", soil(40), 0));
+        assertTrue(scheduler.offer("B", soil(40), 0));
+        assertFalse(scheduler.offer("C", soil(40), 0));
+    }
+
+    @Test
+    public void leavingAutoModeRemovesQueuedJob() {
+        scheduler.setAuto("HG-01", true);
+        scheduler.offer("HG-01", soil(40), 0);
+        scheduler.setAuto("HG-01", false);
+        assertEquals(0, scheduler.queued());
+        assertNull(scheduler.poll(0));
+    }
+}
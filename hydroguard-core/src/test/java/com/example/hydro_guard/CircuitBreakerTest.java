@@ -0,0 +1,96 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private final CircuitBreaker breaker = new CircuitBreaker(3, 1_000);
+
+    @Test
+    public void opensAfterConsecutiveFailures() {
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state(0));
+        assertTrue(breaker.allowRequest(0));
+
+        breaker.onFailure(10);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state(10));
+        assertFalse(breaker.allowRequest(500));
+    }
+
+    @Test
+    public void successResetsFailureCount() {
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        breaker.onSuccess();
+        breaker.onFailure(0);
+        breaker.onFailure(0);
+        assertEquals(2, breaker.consecutiveFailures());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state(0));
+    }
+
+    @Test
+    public void halfOpenLetsExactlyOneProbeThrough() {
+        for (int i = 0; i < 3; i++) breaker.onFailure(0);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state(1_000));
+
+        assertTrue(breaker.allowRequest(1_000));
+        assertFalse(breaker.allowRequest(1_001));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state(1_001));
+    }
+
+    @Test
+    public void successfulProbeCloses() {
+        for (int i = 0; i < 3; i++) breaker.onFailure(0);
+        assertTrue(breaker.allowRequest(1_000));
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state(1_000));
+        assertEquals(0, breaker.consecutiveFailures());
+        assertTrue(breaker.allowRequest(1_000));
+    }
+
+    @Test
+    public void failedProbeReopensForAnotherFullWindow() {
+        for (int i = 0; i < 3; i++) breaker.onFailure(0);
+        assertTrue(breaker.allowRequest(1_000));
+        breaker.onFailure(1_200);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state(1_200));
+        assertFalse(breaker.allowRequest(2_100));
+        assertTrue(breaker.allowRequest(2_200));
+    }
+
+    @Test
+    public void abandonedProbeReleasesHalfOpen() {
+        for (int i = 0; i < 3; i++) breaker.onFailure(0);
+        assertTrue(breaker.allowRequest(1_000));
+        // Deadline probe lewat sebelum task-nya jalan: tidak ada onSuccess / onFailure
+        breaker.onAbandoned();
+        assertTrue(breaker.allowRequest(1_001));
+        assertFalse(breaker.allowRequest(1_002));
+    }
+
+    @Test
+    public void unreportedProbeExpiresAfterOpenWindow() {
+        for (int i = 0; i < 3; i++) breaker.onFailure(0);
+        assertTrue(breaker.allowRequest(1_000));
+        assertFalse(breaker.allowRequest(1_999));
+        assertTrue(breaker.allowRequest(2_000));
+    }
+
+    @Test
+    public void abandonWhileClosedIsNoOp() {
+        assertTrue(breaker.allowRequest(0));
+        breaker.onAbandoned();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state(0));
+        assertEquals(0, breaker.consecutiveFailures());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsZeroThreshold() {
+        new CircuitBreaker(0, 1_000);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class CommandTrackerTest {
+
+    private final CommandTracker tracker = new CommandTracker(15_000, "t");
+
+    @Test
+    public void seqContinuesFromLargestSeenOnNode() {
+        tracker.observeSeq("HG-01", 41);
+        CommandTracker.Command c = tracker.issue("HG-01", true, 0);
+        assertEquals(42, c.seq);
+        assertEquals("t-42", c.id);
+    }
+
+    @Test
+    public void ackRecordsRttOnce() {
+        CommandTracker.Command c = tracker.issue("HG-01", true, 1_000);
+        assertSame(c, tracker.pending("HG-01"));
+
+        assertEquals(350, tracker.onAck("HG-01", c.id, c.seq, 1_350));
+        assertEquals(CommandTracker.State.ACKED, c.state());
+        assertEquals(350, c.rttMs());
+        assertNull(tracker.pending("HG-01"));
+
+        // Listener memicu ulang dengan ack yang sama
+        assertEquals(-1, tracker.onAck("HG-01", c.id, c.seq, 2_000));
+        List<CommandTracker.Row> rows = tracker.snapshot();
+        assertEquals(1, rows.size());
+        assertEquals(1, rows.get(0).acked);
+    }
+
+    @Test
+    public void ackForNewerCommandOvertakesOlderOnes() {
+        CommandTracker.Command a = tracker.issue("HG-01", true, 0);
+        CommandTracker.Command b = tracker.issue("HG-01", false, 100);
+        CommandTracker.Command c = tracker.issue("HG-01", true, 200);
+
+        assertEquals(300, tracker.onAck("HG-01", b.id, b.seq, 400));
+        assertEquals(CommandTracker.State.OVERTAKEN, a.state());
+        assertEquals(CommandTracker.State.ACKED, b.state());
+        assertEquals(CommandTracker.State.PENDING, c.state());
+        assertSame(c, tracker.pending("HG-01"));
+        assertEquals(1, tracker.snapshot().get(0).overtaken);
+    }
+
+    @Test
+    public void ackFromOtherWriterOvertakesButHasNoRtt() {
+        CommandTracker.Command mine = tracker.issue("HG-01", true, 0);
+        assertEquals(-1, tracker.onAck("HG-01", "lain-1", mine.seq, 500));
+        assertEquals(CommandTracker.State.OVERTAKEN, mine.state());
+        assertEquals(-1, mine.rttMs());
+    }
+
+    @Test
+    public void unackedCommandIsLostAfterTimeout() {
+        CommandTracker.Command c = tracker.issue("HG-01", true, 0);
+        assertEquals(5_000, tracker.nextTimeoutInMs("HG-01", 10_000));
+        assertEquals(0, tracker.sweep(14_999));
+        assertEquals(1, tracker.sweep(15_000));
+        assertEquals(CommandTracker.State.LOST, c.state());
+        assertEquals(-1, tracker.nextTimeoutInMs("HG-01", 15_000));
+
+        // Ack yang datang terlambat tidak menghidupkan lagi
+        assertEquals(-1, tracker.onAck("HG-01", c.id, c.seq, 20_000));
+        assertEquals(CommandTracker.State.LOST, c.state());
+        assertEquals(1, tracker.snapshot().get(0).lost);
+    }
+
+    @Test
+    public void cancelledWriteIsNotCountedAsLost() {
+        CommandTracker.Command c = tracker.issue("HG-01", true, 0);
+        tracker.cancel(c);
+        assertEquals(CommandTracker.State.CANCELLED, c.state());
+        assertEquals(0, tracker.sweep(60_000));
+        assertEquals(0, tracker.snapshot().size());
+    }
+
+    @Test
+    public void devicesAreTrackedSeparately() {
+        CommandTracker.Command a = tracker.issue("HG-01", true, 0);
+        CommandTracker.Command b = tracker.issue("HG-02", true, 0);
+        assertEquals(1, a.seq);
+        assertEquals(1, b.seq);
+        tracker.onAck("HG-02", b.id, b.seq, 100);
+        assertEquals(CommandTracker.State.PENDING, a.state());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class FirebaseKeyOrderTest {
+
+    @Test
+    public void integerKeysSortNumericallyBeforeStrings() {
+        List<String> keys = new ArrayList<>(Arrays.asList(
+                "tempat_b", "101", "HG-01", "76", "-5", "2147483648", "9", "07", "7", "A"));
+        Collections.sort(keys, FirebaseKeyOrder.INSTANCE);
+        // 2147483648 di luar int 32-bit → diperlakukan sebagai string
+        assertEquals(Arrays.asList("-5", "7", "07", "9", "76", "101", "2147483648", "A", "HG-01", "tempat_b"), keys);
+    }
+
+    @Test
+    public void subSetOverNumericPageRangeDoesNotThrow() {
+        TreeSet<String> ids = new TreeSet<>(FirebaseKeyOrder.INSTANCE);
+        ids.addAll(Arrays.asList("5", "76", "80", "101", "150"));
+        assertEquals(Arrays.asList("76", "80"), new ArrayList<>(ids.subSet("76", "101")));
+    }
+
+    @Test
+    public void locationIndexFollowsKeyOrder() {
+        LocationIndex index = new LocationIndex();
+        for (String id : Arrays.asList("101", "76", "HG-01")) {
+            index.put(new TempatItem(id, "Tempat " + id, "Kec", "Kel", "admin", "-", "-", "dev-" + id));
+        }
+        List<String> order = new ArrayList<>();
+        for (TempatItem t : index.query("Kec", null)) order.add(t.tempatId);
+        assertEquals(Arrays.asList("76", "101", "HG-01"), order);
+    }
+}
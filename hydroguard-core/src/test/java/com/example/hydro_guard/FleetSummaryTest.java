@@ -0,0 +1,50 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class FleetSummaryTest {
+
+    private final FleetSummary summary = new FleetSummary();
+    private final LocationIndex index = new LocationIndex();
+
+    private void put(String id, String kec, String kel) {
+        index.put(new TempatItem(id, "Tempat " + id, kec, kel, "admin", "-", "-", "dev-" + id));
+        summary.putSite(id, "dev-" + id, kec, kel);
+    }
+
+    @Test
+    public void spellingVariantsShareOneGroupLikeLocationIndex() {
+        put("1", "Cibeunying", "Sukaluyu");
+        put("2", "cibeunying ", " SUKALUYU");
+        put("3", "Coblong", "Dago");
+
+        // Label spinner = ejaan pertama yang dilihat LocationIndex
+        String kec = index.kecamatanOptions().get(0);
+        String kel = index.kelurahanOptions(kec).get(0);
+        assertEquals(index.query(kec, null).size(), summary.kecamatan(kec).sites());
+        assertEquals(index.query(kec, kel).size(), summary.kelurahan(kec, kel).sites());
+        assertEquals(2, summary.kecamatan("CIBEUNYING").sites());
+        assertEquals(2, summary.byKecamatan().size());
+    }
+
+    @Test
+    public void respellingSiteIsNoChangeAndRemoveEmptiesGroup() {
+        put("1", "Cibeunying", "Sukaluyu");
+        assertFalse(summary.putSite("1", "dev-1", " cibeunying", "sukaluyu"));
+
+        summary.removeSite("1");
+        assertNull(summary.kecamatan("Cibeunying"));
+        assertNull(summary.kelurahan("Cibeunying", "Sukaluyu"));
+    }
+
+    @Test
+    public void missingLocationGroupsUnderNone() {
+        summary.putSite("1", "dev-1", null, null);
+        assertEquals(1, summary.kecamatan(null).sites());
+        assertEquals(1, summary.fleet().sites());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+/** Halaman KeyPager di atas /tempat tiruan (query orderByKey seperti Firebase). */
+public class KeyPagerTest {
+
+    private static final int PAGE = 3;
+
+    private final TreeSet<String> server = new TreeSet<>(FirebaseKeyOrder.INSTANCE);
+    private final KeyPager<String> pager = new KeyPager<>(PAGE);
+    // Isi yang ditampilkan (LocationIndex di activity)
+    private final TreeSet<String> shown = new TreeSet<>(FirebaseKeyOrder.INSTANCE);
+
+    /** Jalankan query halaman seperti TempatPage.onDataChange + onTempatPageChanged. */
+    private void refresh(KeyPager.Page<String> page) {
+        Set<String> range = (page.startKey == null) ? server : server.tailSet(page.startKey, true);
+        if (page.endKey() != null) range = ((TreeSet<String>) range).headSet(page.endKey(), false);
+
+        int limit = (page.endKey() == null) ? pager.limit() : Integer.MAX_VALUE;
+        int keep = pager.keepCount(page);
+        Map<String, String> out = new LinkedHashMap<>();
+        String next = null;
+        int n = 0;
+        for (String key : range) {
+            if (n++ == limit) break;
+            if (out.size() == keep) {
+                next = key;
+                break;
+            }
+            out.put(key, key);
+        }
+        Map<String, String> old = pager.apply(page, out, next);
+        shown.addAll(out.keySet());
+        for (String id : old.keySet()) if (!out.containsKey(id)) shown.remove(id);
+    }
+
+    private void refreshAll() {
+        for (KeyPager.Page<String> p : pager.pages()) refresh(p);
+    }
+
+    private void loadAll() {
+        while (pager.addPage() != null) {
+            refreshAll();   // halaman sebelumnya dipasang ulang dengan endBefore
+        }
+    }
+
+    private void seed(int... keys) {
+        for (int k : keys) server.add(Integer.toString(k));
+    }
+
+    @Test
+    public void pagesCoverAllKeysInFirebaseOrder() {
+        seed(5, 76, 80, 101, 150, 200, 300, 999);
+        server.add("HG-01");
+        loadAll();
+        assertFalse(pager.hasMore());
+        assertEquals(3, pager.pages().size());
+        assertEquals(server, shown);
+        assertEquals("101", pager.pages().get(1).startKey);
+    }
+
+    @Test
+    public void insertIntoMiddlePageKeepsEveryTempat() {
+        seed(10, 20, 30, 40, 50, 60, 70, 80, 90);
+        loadAll();
+        KeyPager.Page<String> middle = pager.pages().get(1);
+        assertEquals("40", middle.startKey);
+        assertEquals("70", middle.endKey());
+
+        // Dulu: "60" terdorong keluar halaman tengah dan tidak dimiliki halaman mana pun
+        server.add("45");
+        refresh(middle);
+        assertEquals(server, shown);
+        assertEquals(4, middle.items().size());
+
+        // Key di antara akhir halaman tengah dan awal halaman berikutnya
+        server.add("65");
+        refresh(middle);
+        assertTrue(shown.contains("65"));
+        assertEquals(server, shown);
+    }
+
+    @Test
+    public void deleteInMiddlePageRemovesOnlyThatTempat() {
+        seed(10, 20, 30, 40, 50, 60, 70, 80, 90);
+        loadAll();
+        server.remove("50");
+        refresh(pager.pages().get(1));
+        assertEquals(server, shown);
+    }
+
+    @Test
+    public void openLastPageMovesNextKeyOnInsert() {
+        seed(10, 20, 30, 40, 50);
+        KeyPager.Page<String> first = pager.addPage();
+        refresh(first);
+        assertEquals("40", first.nextKey());
+        assertTrue(pager.hasMore());
+
+        server.add("15");
+        refresh(first);
+        assertEquals("30", first.nextKey());
+
+        // Halaman berikutnya mulai dari nextKey terbaru; tidak ada yang terlewat
+        assertEquals("30", pager.addPage().startKey);
+        refreshAll();
+        assertNull(pager.addPage());
+        assertEquals(server, shown);
+    }
+
+    @Test
+    public void cannotAddPageBeforeLastOneLoads() {
+        pager.addPage();
+        assertNull(pager.addPage());
+        assertTrue(pager.hasMore());
+    }
+}
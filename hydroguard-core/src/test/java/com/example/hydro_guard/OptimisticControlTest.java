@@ -0,0 +1,87 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class OptimisticControlTest {
+
+    private final OptimisticControl control = new OptimisticControl();
+
+    @Test
+    public void tapsInOneWindowCoalesceToLastIntent() {
+        control.onServer(false, 5);
+        assertTrue(control.toggle());      // jendela baru: ON
+        assertFalse(control.toggle());     // OFF
+        assertFalse(control.toggle());     // ON
+        assertTrue(control.displayed());
+        assertFalse(control.toggle());     // OFF lagi
+        assertFalse(control.displayed());
+
+        assertNull(control.takeWrite());   // sama dengan server → tidak ada tulis
+        assertFalse(control.isPending());
+    }
+
+    @Test
+    public void staleEchoDoesNotFlickerDisplay() {
+        control.onServer(false, 5);
+        control.set(true);
+        assertEquals(Boolean.TRUE, control.takeWrite());
+        control.onSent(true, 6);
+
+        // Echo state lama (cmdSeq 5) sebelum tulis kita terlihat
+        assertTrue(control.onServer(false, 5));
+        assertTrue(control.isPending());
+
+        // Echo tulis kita
+        assertTrue(control.onServer(true, 6));
+        assertFalse(control.isPending());
+    }
+
+    @Test
+    public void newerWriteFromElsewhereWins() {
+        control.onServer(false, 5);
+        control.set(true);
+        control.onSent(control.takeWrite(), 6);
+
+        // Penulis lain (mis. service) menulis seq 7 = OFF
+        assertFalse(control.onServer(false, 7));
+        assertFalse(control.isPending());
+    }
+
+    @Test
+    public void failedWriteFallsBackToServerState() {
+        control.onServer(false, 5);
+        control.set(true);
+        control.onSent(control.takeWrite(), 6);
+        control.onFailed(6);
+        assertFalse(control.displayed());
+        assertFalse(control.isPending());
+    }
+
+    @Test
+    public void failureOfOlderWriteKeepsNewerInFlight() {
+        control.onServer(false, 5);
+        control.set(true);
+        control.onSent(control.takeWrite(), 6);
+        control.set(false);
+        control.onSent(control.takeWrite(), 7);
+
+        control.onFailed(6);
+        assertFalse(control.displayed());
+        assertTrue(control.isPending());
+    }
+
+    @Test
+    public void intentShowsImmediatelyOverPendingWrite() {
+        control.onServer(false, 5);
+        control.set(true);
+        control.onSent(control.takeWrite(), 6);
+        control.set(false);
+        assertFalse(control.displayed());
+        assertEquals(Boolean.FALSE, control.takeWrite());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PredictCodecTest {
+
+    private static PredictCodec.Prediction decode(String json) throws IOException {
+        byte[] b = json.getBytes(StandardCharsets.UTF_8);
+        PredictCodec.Prediction p = new PredictCodec.Prediction();
+        PredictCodec.readPrediction(new PredictCodec.Reader(b, b.length), p);
+        return p;
+    }
+
+    @Test
+    public void encodesRequestInMainPyFieldOrder() {
+        PredictCodec.Buffer buf = new PredictCodec.Buffer(16);
+        PredictCodec.encodeRequest(buf, 55.0, 1, 0, 42.5);
+        assertEquals("{\"Humidity\":55,\"Rainfall\":1,\"Sunlight\":0,\"Soil_Moisture\":42.5}", buf.preview(1024));
+    }
+
+    @Test
+    public void encodedRequestParsesBackToSameValues() throws IOException {
+        Random rnd = new Random(7);
+        PredictCodec.Buffer buf = new PredictCodec.Buffer(64);
+        for (int i = 0; i < 2_000; i++) {
+            double hum = rnd.nextInt(4) == 0 ? rnd.nextInt(101) : rnd.nextDouble() * 100;
+            double soil = rnd.nextInt(4) == 0 ? -rnd.nextInt(5) : rnd.nextDouble() * 100;
+            int rain = rnd.nextInt(2), sun = rnd.nextInt(2);
+            PredictCodec.encodeRequest(buf.reset(), hum, rain, sun, soil);
+
+            PredictCodec.Reader r = new PredictCodec.Reader(buf);
+            double[] got = new double[4];
+            int n = 0;
+            r.beginObject();
+            while (r.hasNext()) {
+                r.nextNameStart();
+                got[n++] = r.nextDoubleOrNaN();
+            }
+            r.endObject();
+
+            assertEquals(4, n);
+            assertEquals(hum, got[0], 0);
+            assertEquals(rain, got[1], 0);
+            assertEquals(sun, got[2], 0);
+            assertEquals(soil, got[3], 0);
+        }
+    }
+
+    @Test
+    public void rejectsNonFiniteFeatures() {
+        try {
+            PredictCodec.encodeRequest(new PredictCodec.Buffer(16), Double.NaN, 0, 0, 10);
+            fail("NaN harus ditolak");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void readsPredictionAndSkipsUnknownFields() throws IOException {
+        PredictCodec.Prediction p = decode("{\"model\":{\"trees\":[1,2,{\"x\":\"}\"}]},"
+                + "\"pump_status\":1, \"pump_label\":\"ON \\\"kering\\\" \\u00e9\",\"probability_on\":0.875,"
+                + "\"extra\":null,\"ok\":true}");
+        assertEquals(1, p.pumpStatus);
+        assertEquals("ON \"kering\" \u00e9", p.pumpLabel);
+        assertEquals(0.875, p.probabilityOn, 0);
+    }
+
+    @Test
+    public void lenientValuesMatchOptDefaults() throws IOException {
+        PredictCodec.Prediction p = decode("{\"pump_status\":\"1\",\"pump_label\":null,\"probability_on\":\"abc\"}");
+        assertEquals(1, p.pumpStatus);
+        assertEquals("-", p.pumpLabel);
+        assertEquals(0.0, p.probabilityOn, 0);
+
+        p = decode("{}");
+        assertEquals(0, p.pumpStatus);
+        assertEquals("-", p.pumpLabel);
+
+        p = decode("{\"probability_on\":1.5e-3,\"pump_status\":true}");
+        assertEquals(1.5e-3, p.probabilityOn, 0);
+        assertEquals(1, p.pumpStatus);
+    }
+
+    @Test
+    public void malformedResponsesThrowIOException() {
+        String[] bad = {
+                "", "   ", "[]", "{\"pump_status\":1", "{\"pump_status\" 1}",
+                "{\"pump_label\":\"tanpa penutup}", "{\"pump_status\":-}", "{\"probability_on\":}",
+                "{\"model\":{\"a\":[1,2}"
+        };
+        for (String json : bad) {
+            try {
+                decode(json);
+                fail("harus gagal: " + json);
+            } catch (IOException expected) {
+                assertFalse(expected.getMessage().isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void bufferReadsWholeStreamAndShrinksOnReset() throws IOException {
+        byte[] big = new byte[100_000];
+        for (int i = 0; i < big.length; i++) big[i] = (byte) ('a' + i % 26);
+        PredictCodec.Buffer buf = new PredictCodec.Buffer(64);
+        buf.readFully(new ByteArrayInputStream(big));
+        assertEquals(big.length, buf.length());
+        assertEquals('a' + (big.length - 1) % 26, buf.data()[big.length - 1]);
+
+        buf.reset();
+        assertEquals(0, buf.length());
+        assertEquals(1024, buf.data().length);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PumpDecisionTest {
+
+    /** Sama dengan yang diisi SmartIrrigationApi.fallbackResult untuk aturan cadangan. */
+    private static boolean fallbackDecision(double soil, int rainfall) {
+        boolean on = PumpDecision.ruleOn(soil, rainfall);
+        return PumpDecision.shouldWater(PumpDecision.FORMAT_RULE, on ? 1.0 : 0.0, on ? 1 : 0);
+    }
+
+    @Test
+    public void fallbackRuleWatersDrySoilWithoutRain() {
+        assertTrue(fallbackDecision(20.0, 0));
+        assertTrue(fallbackDecision(PumpDecision.SOIL_ON_THRESHOLD, 0));
+    }
+
+    @Test
+    public void fallbackRuleKeepsPumpOffForWetSoilOrRain() {
+        assertFalse(fallbackDecision(80.0, 0));
+        assertFalse(fallbackDecision(20.0, 1));
+    }
+
+    @Test
+    public void fallbackDecisionMatchesEsp32Rule() {
+        for (int soil = 0; soil <= 100; soil++) {
+            for (int rain = 0; rain <= 1; rain++) {
+                assertEquals("soil=" + soil + " rain=" + rain,
+                        soil <= 50 && rain == 0, fallbackDecision(soil, rain));
+            }
+        }
+    }
+
+    @Test
+    public void modelProbabilityBelowHalfWaters() {
+        assertTrue(PumpDecision.shouldWater("json", 0.2, 0));
+        assertFalse(PumpDecision.shouldWater("json", 0.8, 1));
+        assertFalse(PumpDecision.shouldWater("local-rf", 0.5, 0));
+    }
+
+    @Test
+    public void missingProbabilityFallsBackToStatusOrNeutral() {
+        assertEquals(1.0, PumpDecision.probOn(Double.NaN, 1), 0);
+        assertEquals(0.0, PumpDecision.probOn(-1, 0), 0);
+        assertEquals(0.5, PumpDecision.probOn(Double.POSITIVE_INFINITY, -1), 0);
+        assertEquals(0.3, PumpDecision.probOn(0.3, 1), 0);
+    }
+}
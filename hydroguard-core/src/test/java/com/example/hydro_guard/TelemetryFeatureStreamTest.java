@@ -0,0 +1,76 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TelemetryFeatureStreamTest {
+
+    private static final long STEP_MS = 2_500L;   // interval kirim ESP32
+
+    private final TelemetryFeatureStream stream = new TelemetryFeatureStream();
+
+    private boolean offer(long at, double soil, double rainPct) {
+        Map<String, Object> s = new HashMap<>();
+        s.put("updatedAt", at);
+        s.put("hum", 60.0);
+        s.put("soil", soil);
+        s.put("rain_pct", rainPct);
+        s.put("ldr_adc", 1000L);
+        return stream.offer("HG-01", s::get, 0);
+    }
+
+    @Test
+    public void repeatedUpdatedAtIsIgnored() {
+        assertTrue(offer(1_000, 40, 0));
+        assertFalse(offer(1_000, 90, 0));
+        assertEquals(40.0, stream.features("HG-01").soilMoisture, 1e-9);
+    }
+
+    @Test
+    public void rainHysteresisDoesNotFlapAroundThreshold() {
+        long t = 0;
+        for (int i = 0; i < 200; i++) offer(t += STEP_MS, 50, 60);
+        assertEquals(1, stream.features("HG-01").rainfall);
+        // 47% ada di antara ambang turun (45) dan naik (50) → tetap hujan
+        for (int i = 0; i < 200; i++) offer(t += STEP_MS, 50, 47);
+        assertEquals(1, stream.features("HG-01").rainfall);
+        for (int i = 0; i < 200; i++) offer(t += STEP_MS, 50, 30);
+        assertEquals(0, stream.features("HG-01").rainfall);
+    }
+
+    @Test
+    public void steadyDryingRaisesDryingFastAndStableSoilClearsIt() {
+        long t = 0;
+        double soil = 80;
+        for (int i = 0; i < 240; i++) offer(t += STEP_MS, 80, 0);          // 10 menit stabil
+        assertFalse(stream.features("HG-01").dryingFast);
+
+        for (int i = 0; i < 240; i++) offer(t += STEP_MS, soil -= 1.0 / 24, 0); // -1 %/menit
+        assertEquals(-1.0, stream.stats("HG-01").soilSlopePerMin, 0.05);
+        assertTrue(stream.features("HG-01").dryingFast);
+
+        for (int i = 0; i < 480; i++) offer(t += STEP_MS, soil, 0);
+        assertFalse(stream.features("HG-01").dryingFast);
+    }
+
+    @Test
+    public void schedulerRedecidesWhenDryingFastFlips() {
+        AutoDecisionScheduler scheduler = new AutoDecisionScheduler(0, 600_000, 2.0, 3.0, 16, 4);
+        scheduler.setAuto("HG-01", true);
+        AutoDecisionScheduler.Features base = new AutoDecisionScheduler.Features(60, 0, 0, 55, false);
+        assertTrue(scheduler.offer("HG-01", base, 0));
+        scheduler.poll(0);
+        scheduler.complete("HG-01", true, 0);
+
+        // Soil belum bergeser 2%, tapi laju pengeringan baru melewati ambang
+        AutoDecisionScheduler.Features drying = new AutoDecisionScheduler.Features(60, 0, 0, 54.5, true);
+        assertFalse(scheduler.offer("HG-01", new AutoDecisionScheduler.Features(60, 0, 0, 54.5, false), 1_000));
+        assertTrue(scheduler.offer("HG-01", drying, 1_000));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hydro_guard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/** UserStore.search (index) harus sama persis dengan filter linear lama OperatorFilter.filter. */
+public class UserSearchIndexTest {
+
+    private static final String[] NAMES = {"Budi", "Siti Aminah", "Agus", "Dewi", "Rina", "Joko Susilo", "Ani"};
+    private static final String[] ROLES = {"admin", "operator", "Operator", "teknisi"};
+    private static final String[] QUERIES = {
+            "", " ", "a", "bu", "BUDI", "siti", "ami", "gmail", "@hydro", "0812", "08123", "xyz", "i a", " agus "
+    };
+    private static final String[] ROLE_FILTERS = {"Semua", "admin", "operator", "OPERATOR", "teknisi", "tamu"};
+    private static final String[] STATUS_FILTERS = {"Semua", "Aktif", "Menunggu"};
+
+    private static UserItem randomUser(Random rnd, int i) {
+        String name = NAMES[rnd.nextInt(NAMES.length)] + (rnd.nextBoolean() ? " " + i : "");
+        String email = name.toLowerCase().replace(' ', '.') + (rnd.nextBoolean() ? "@gmail.com" : "@hydro.id");
+        String wa = "0812" + (100_000 + rnd.nextInt(900_000));
+        return new UserItem(String.format("uid%04d", rnd.nextInt(400)), name, email,
+                ROLES[rnd.nextInt(ROLES.length)], wa, rnd.nextBoolean());
+    }
+
+    private static void assertSameAsLinear(UserStore store) {
+        for (String q : QUERIES) {
+            for (String role : ROLE_FILTERS) {
+                for (String status : STATUS_FILTERS) {
+                    OperatorFilter.Criteria c = new OperatorFilter.Criteria(q, role, status);
+                    List<UserItem> expected = OperatorFilter.filter(new ArrayList<>(store.all()), c);
+                    assertEquals("q='" + q + "' role=" + role + " status=" + status,
+                            uids(expected), uids(store.search(c)));
+                }
+            }
+        }
+    }
+
+    private static List<String> uids(List<UserItem> users) {
+        List<String> out = new ArrayList<>(users.size());
+        for (UserItem u : users) out.add(u.uid);
+        return out;
+    }
+
+    @Test
+    public void matchesLinearFilterAfterInserts() {
+        Random rnd = new Random(1);
+        UserStore store = new UserStore();
+        for (int i = 0; i < 300; i++) store.upsert(randomUser(rnd, i));
+        assertSameAsLinear(store);
+    }
+
+    @Test
+    public void matchesLinearFilterAfterUpdatesAndRemoves() {
+        Random rnd = new Random(2);
+        UserStore store = new UserStore();
+        for (int i = 0; i < 2_000; i++) {
+            if (rnd.nextInt(4) == 0) {
+                store.remove(String.format("uid%04d", rnd.nextInt(400)));
+            } else {
+                store.upsert(randomUser(rnd, i));   // uid yang sama → update isi
+            }
+            if (i % 500 == 499) assertSameAsLinear(store);
+        }
+    }
+
+    @Test
+    public void emptyStoreFindsNothing() {
+        UserStore store = new UserStore();
+        assertEquals(0, store.search(new OperatorFilter.Criteria("budi", "Semua", "Semua")).size());
+        assertSameAsLinear(store);
+    }
+}
@@ -81,6 +81,11 @@ static bool autoPendingInit  = false;
 static unsigned long autoPendingSince = 0;
 static String prevMode = "";
 
+// ================= COMMAND ACK =================
+// App menulis cmdId + cmdSeq tiap perintah; setelah diterapkan, ESP32 menyalinnya ke
+// ackId / ackSeq (+ ackStatus = relay sebenarnya) supaya app bisa mengukur RTT.
+static String g_lastAckId = "";
+
 // ================= INTERVALS =================
 // Lebih responsif untuk analog sensor (soil/rain/ldr)
 static unsigned long lastFastRead = 0;
@@ -611,6 +616,23 @@ static void sendSensorsToFirebase() {
 }
 
 // ================= CONTROL POLL =================
+static void sendCommandAck(const char* cmdId, long cmdSeq) {
+  StaticJsonDocument<192> doc;
+  doc["ackId"] = cmdId;
+  doc["ackSeq"] = cmdSeq;
+  doc["ackStatus"] = pumpState;
+  doc["ackAt"][".sv"] = "timestamp";
+
+  String payload; serializeJson(doc, payload);
+  String path = String(PATH_CONTROL) + "/" + DEVICE_ID;
+
+  if (fbPatchJson(path, payload)) {
+    g_lastAckId = cmdId;
+  } else {
+    Serial.println("[FB] ack FAILED (dicoba lagi di poll berikutnya)");
+  }
+}
+
 static void pollControlFromFirebase() {
   String path = String(PATH_CONTROL) + "/" + DEVICE_ID;
 
@@ -624,8 +646,15 @@ static void pollControlFromFirebase() {
   body.trim();
   if (body.length() == 0 || body == "null") return;
 
-  StaticJsonDocument<768> doc;
-  auto err = deserializeJson(doc, body);
+  // Node juga berisi field ai_* dari app; cukup parse field yang dipakai di sini
+  StaticJsonDocument<128> filter;
+  filter["mode"] = true;
+  filter["status"] = true;
+  filter["cmdId"] = true;
+  filter["cmdSeq"] = true;
+
+  StaticJsonDocument<384> doc;
+  auto err = deserializeJson(doc, body, DeserializationOption::Filter(filter));
   if (err) {
     Serial.print("[FB] parse control gagal: ");
     Serial.println(err.c_str());
@@ -657,10 +686,14 @@ static void pollControlFromFirebase() {
     if (hasStatus) {
       setPumpLocal(cmdStatus, false);
     }
-    return;
   }
+  // AUTO: status firebase diabaikan (sensor-only), perintah tetap di-ack
+  // dengan ackStatus = relay sebenarnya
 
-  // AUTO: status firebase diabaikan (sensor-only)
+  const char* cmdId = doc["cmdId"] | "";
+  if (cmdId[0] != '\0' && g_lastAckId != cmdId) {
+    sendCommandAck(cmdId, doc["cmdSeq"] | -1L);
+  }
 }
 
 // ================= INIT CONTROL NODE =================
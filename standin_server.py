@@ -0,0 +1,309 @@
+"""
+Stand-in lokal untuk API prediksi (main.py) -- untuk load test SmartIrrigationApi
+tanpa memukul HF Space. Hanya stdlib (tanpa FastAPI / model joblib).
+
+Endpoints (bentuk JSON sama dengan main.py):
+- GET  /health
+- POST /api/predict
+- POST /api/predict-batch
+- GET/POST /_standin/config   (lihat / ubah injeksi saat server jalan)
+
+Prediksi memakai aturan sederhana yang mirip model (tanah kering & tidak hujan -> ON),
+jadi hasilnya stabil dan deterministik.
+
+Injeksi (argumen CLI atau ENV STANDIN_*):
+  --latency-ms 120        latensi dasar per request
+  --jitter-ms 40          tambahan acak (eksponensial, rata-rata = jitter)
+  --batch-item-ms 2       tambahan per item di /api/predict-batch
+  --error-rate 0.0        peluang HTTP 500
+  --unavailable-rate 0.0  peluang HTTP 503 (seperti model belum siap)
+  --hang-rate 0.0         peluang request "menggantung" selama --hang-ms
+  --hang-ms 30000
+  --cold-start-s 0        N detik pertama semua predict -> 503
+
+Contoh:
+  python standin_server.py --port 8000 --latency-ms 200 --jitter-ms 80 --error-rate 0.02
+  curl -X POST localhost:8000/_standin/config -d '{"error_rate": 0.5}'
+
+Dari emulator Android, host PC = http://10.0.2.2:8000
+(SmartIrrigationApi.configureEndpoint("http://10.0.2.2:8000")).
+"""
+
+from __future__ import annotations
+
+import argparse
+import json
+import math
+import os
+import random
+import threading
+import time
+from http.server import BaseHTTPRequestHandler, ThreadingHTTPServer
+from typing import Any, Dict, List, Optional, Tuple
+
+FEATURE_ORDER = ["Humidity", "Rainfall", "Sunlight", "Soil_Moisture"]
+
+
+# =========================
+# Config injeksi (bisa diubah live)
+# =========================
+class Injection:
+    FIELDS = {
+        "latency_ms": float,
+        "jitter_ms": float,
+        "batch_item_ms": float,
+        "error_rate": float,
+        "unavailable_rate": float,
+        "hang_rate": float,
+        "hang_ms": float,
+        "cold_start_s": float,
+    }
+
+    def __init__(self, **kw: float) -> None:
+        self._lock = threading.Lock()
+        self._values: Dict[str, float] = {k: float(kw.get(k, 0.0)) for k in self.FIELDS}
+        self.started_at = time.monotonic()
+        self._rnd = random.Random(kw.get("seed"))
+
+    def snapshot(self) -> Dict[str, float]:
+        with self._lock:
+            return dict(self._values)
+
+    def update(self, patch: Dict[str, Any]) -> Dict[str, float]:
+        with self._lock:
+            for k, v in patch.items():
+                if k not in self.FIELDS:
+                    raise ValueError(f"field tidak dikenal: {k}")
+                v = float(v)
+                if v < 0:
+                    raise ValueError(f"{k} tidak boleh negatif")
+                self._values[k] = v
+            return dict(self._values)
+
+    def random(self) -> float:
+        with self._lock:
+            return self._rnd.random()
+
+    def delay_s(self, items: int = 1) -> float:
+        c = self.snapshot()
+        jitter = 0.0
+        if c["jitter_ms"] > 0:
+            with self._lock:
+                jitter = self._rnd.expovariate(1.0 / c["jitter_ms"])
+        return (c["latency_ms"] + jitter + c["batch_item_ms"] * max(0, items - 1)) / 1000.0
+
+    def warming_up(self) -> bool:
+        return time.monotonic() - self.started_at < self.snapshot()["cold_start_s"]
+
+
+class Counters:
+    def __init__(self) -> None:
+        self._lock = threading.Lock()
+        self.values: Dict[str, int] = {}
+
+    def inc(self, key: str, n: int = 1) -> None:
+        with self._lock:
+            self.values[key] = self.values.get(key, 0) + n
+
+    def snapshot(self) -> Dict[str, int]:
+        with self._lock:
+            return dict(self.values)
+
+
+INJECT: Injection
+COUNTERS = Counters()
+
+
+# =========================
+# Prediksi tiruan
+# =========================
+def _validate(obj: Any, loc: List[Any]) -> Tuple[Optional[Dict[str, float]], List[Dict[str, Any]]]:
+    """Validasi seperti PredictRequest (pydantic) di main.py; error -> format detail 422."""
+    if not isinstance(obj, dict):
+        return None, [{"loc": loc, "msg": "Input should be a valid dictionary", "type": "dict_type"}]
+
+    limits = {
+        "Humidity": (0.0, 100.0),
+        "Rainfall": (0.0, 1.0),
+        "Sunlight": (0.0, None),
+        "Soil_Moisture": (0.0, 100.0),
+    }
+    errors: List[Dict[str, Any]] = []
+    out: Dict[str, float] = {}
+    for name in FEATURE_ORDER:
+        v = obj.get(name)
+        if v is None:
+            errors.append({"loc": loc + [name], "msg": "Field required", "type": "missing"})
+            continue
+        if isinstance(v, bool) or not isinstance(v, (int, float)):
+            errors.append({"loc": loc + [name], "msg": "Input should be a valid number", "type": "float_type"})
+            continue
+        lo, hi = limits[name]
+        if v < lo or (hi is not None and v > hi):
+            errors.append({"loc": loc + [name], "msg": f"Input should be between {lo} and {hi}", "type": "range"})
+            continue
+        if name == "Rainfall" and v not in (0, 1):
+            errors.append({"loc": loc + [name], "msg": "Input should be a valid integer", "type": "int_type"})
+            continue
+        out[name] = float(v)
+    return (None if errors else out), errors
+
+
+def _predict_one(f: Dict[str, float]) -> Dict[str, Any]:
+    # Tanah makin kering -> peluang ON naik; hujan menekan kuat
+    z = (50.0 - f["Soil_Moisture"]) / 6.0 - (6.0 if f["Rainfall"] >= 1 else 0.0)
+    prob_on = 1.0 / (1.0 + math.exp(-z))
+    status = 1 if prob_on > 0.5 else 0
+    return {
+        "pump_status": status,
+        "pump_label": "ON" if status == 1 else "OFF",
+        "probability_on": round(prob_on, 6),
+        "used_features": {k: f[k] for k in FEATURE_ORDER},
+    }
+
+
+# =========================
+# HTTP
+# =========================
+class Handler(BaseHTTPRequestHandler):
+    protocol_version = "HTTP/1.1"  # keep-alive, seperti HF Space
+    server_version = "HydroGuardStandin/1.0"
+
+    def log_message(self, fmt: str, *args: Any) -> None:  # noqa: A003
+        if os.getenv("STANDIN_VERBOSE"):
+            super().log_message(fmt, *args)
+
+    def _send(self, code: int, body: Any) -> None:
+        data = json.dumps(body, separators=(",", ":")).encode("utf-8")
+        self.send_response(code)
+        self.send_header("Content-Type", "application/json")
+        self.send_header("Content-Length", str(len(data)))
+        self.end_headers()
+        self.wfile.write(data)
+        COUNTERS.inc(f"http_{code}")
+
+    def _read_json(self) -> Any:
+        n = int(self.headers.get("Content-Length") or 0)
+        raw = self.rfile.read(n) if n > 0 else b""
+        return json.loads(raw.decode("utf-8")) if raw else None
+
+    def do_GET(self) -> None:  # noqa: N802
+        if self.path == "/health":
+            ready = not INJECT.warming_up()
+            self._send(200, {
+                "status": "ok",
+                "model_path": "standin",
+                "model_loaded": ready,
+                "model_load_error": None if ready else "cold start (standin)",
+                "feature_order": FEATURE_ORDER,
+                "standin": {"config": INJECT.snapshot(), "counters": COUNTERS.snapshot()},
+            })
+        elif self.path == "/_standin/config":
+            self._send(200, INJECT.snapshot())
+        else:
+            self._send(404, {"detail": "Not Found"})
+
+    def do_POST(self) -> None:  # noqa: N802
+        try:
+            body = self._read_json()
+        except (ValueError, UnicodeDecodeError):
+            self._send(422, {"detail": [{"loc": ["body"], "msg": "JSON decode error", "type": "json_invalid"}]})
+            return
+
+        if self.path == "/_standin/config":
+            try:
+                self._send(200, INJECT.update(body or {}))
+            except (ValueError, TypeError, AttributeError) as e:
+                self._send(400, {"detail": str(e)})
+            return
+
+        if self.path == "/api/predict":
+            COUNTERS.inc("predict")
+            self._handle_predict(body, batch=False)
+        elif self.path == "/api/predict-batch":
+            COUNTERS.inc("predict_batch")
+            self._handle_predict(body, batch=True)
+        else:
+            self._send(404, {"detail": "Not Found"})
+
+    def _handle_predict(self, body: Any, batch: bool) -> None:
+        items = body if batch else [body]
+        if batch:
+            if not isinstance(body, list):
+                self._send(422, {"detail": [{"loc": ["body"], "msg": "Input should be a valid list", "type": "list_type"}]})
+                return
+            if not body:
+                self._send(400, {"detail": "Request list kosong."})
+                return
+            COUNTERS.inc("predict_batch_items", len(body))
+
+        # Injeksi: cold start, hang, latensi, error
+        if INJECT.warming_up():
+            self._send(503, {"detail": "Model belum siap. Error load: cold start (standin)"})
+            return
+
+        cfg = INJECT.snapshot()
+        if INJECT.random() < cfg["hang_rate"]:
+            COUNTERS.inc("injected_hang")
+            time.sleep(cfg["hang_ms"] / 1000.0)
+
+        time.sleep(INJECT.delay_s(len(items)))
+
+        r = INJECT.random()
+        if r < cfg["error_rate"]:
+            COUNTERS.inc("injected_500")
+            self._send(500, {"detail": "Injected error (standin)"})
+            return
+        if r < cfg["error_rate"] + cfg["unavailable_rate"]:
+            COUNTERS.inc("injected_503")
+            self._send(503, {"detail": "Model belum siap. Error load: injected (standin)"})
+            return
+
+        results: List[Dict[str, Any]] = []
+        errors: List[Dict[str, Any]] = []
+        for i, item in enumerate(items):
+            feats, errs = _validate(item, ["body", i] if batch else ["body"])
+            if errs:
+                errors.extend(errs)
+            else:
+                results.append(_predict_one(feats))
+
+        if errors:
+            self._send(422, {"detail": errors})
+            return
+        self._send(200, results if batch else results[0])
+
+
+def main() -> None:
+    global INJECT
+
+    def env(name: str, default: float) -> float:
+        return float(os.getenv("STANDIN_" + name.upper(), default))
+
+    ap = argparse.ArgumentParser(description="Stand-in lokal API prediksi HydroGuard")
+    ap.add_argument("--host", default=os.getenv("STANDIN_HOST", "0.0.0.0"))
+    ap.add_argument("--port", type=int, default=int(os.getenv("STANDIN_PORT", "8000")))
+    ap.add_argument("--seed", type=int, default=None)
+    for name, default in (
+        ("latency_ms", 120.0), ("jitter_ms", 40.0), ("batch_item_ms", 2.0),
+        ("error_rate", 0.0), ("unavailable_rate", 0.0), ("hang_rate", 0.0),
+        ("hang_ms", 30000.0), ("cold_start_s", 0.0),
+    ):
+        ap.add_argument("--" + name.replace("_", "-"), dest=name, type=float, default=env(name, default))
+    args = ap.parse_args()
+
+    INJECT = Injection(**{k: getattr(args, k) for k in Injection.FIELDS}, seed=args.seed)
+
+    server = ThreadingHTTPServer((args.host, args.port), Handler)
+    server.daemon_threads = True
+    print(f"Stand-in API di http://{args.host}:{args.port}  injeksi={INJECT.snapshot()}")
+    try:
+        server.serve_forever()
+    except KeyboardInterrupt:
+        pass
+    finally:
+        server.server_close()
+
+
+if __name__ == "__main__":
+    main()